@@ -1,14 +1,15 @@
 package com.instagram.comment.config;
 
+import com.instagram.common.counter.CounterColumnWriter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 @Configuration
 public class CommentServiceConfig {
 
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public CounterColumnWriter commentLikesCounterWriter(JdbcTemplate jdbcTemplate) {
+        return new CounterColumnWriter(jdbcTemplate, "comments", "likes_count");
     }
 }
@@ -87,20 +87,6 @@ public class CommentController {
         return ResponseEntity.ok(commentService.getCommentReplies(commentId, page, size));
     }
 
-    @PostMapping("/{commentId}/likes/increment")
-    @Operation(summary = "Increment comment likes count (internal use)")
-    public ResponseEntity<Void> incrementLikesCount(@PathVariable UUID commentId) {
-        commentService.incrementLikesCount(commentId);
-        return ResponseEntity.ok().build();
-    }
-
-    @PostMapping("/{commentId}/likes/decrement")
-    @Operation(summary = "Decrement comment likes count (internal use)")
-    public ResponseEntity<Void> decrementLikesCount(@PathVariable UUID commentId) {
-        commentService.decrementLikesCount(commentId);
-        return ResponseEntity.ok().build();
-    }
-
     @GetMapping("/{commentId}/owner")
     @Operation(summary = "Get comment owner ID (internal use)")
     public ResponseEntity<UUID> getCommentOwnerId(@PathVariable UUID commentId) {
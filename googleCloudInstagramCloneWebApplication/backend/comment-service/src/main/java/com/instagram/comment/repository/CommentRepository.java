@@ -4,7 +4,6 @@ import com.instagram.comment.entity.Comment;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -25,14 +24,6 @@ public interface CommentRepository extends JpaRepository<Comment, UUID> {
 
     long countByPostIdAndIsActiveTrue(UUID postId);
 
-    @Modifying
-    @Query("UPDATE Comment c SET c.likesCount = c.likesCount + 1 WHERE c.id = :commentId")
-    void incrementLikesCount(@Param("commentId") UUID commentId);
-
-    @Modifying
-    @Query("UPDATE Comment c SET c.likesCount = CASE WHEN c.likesCount > 0 THEN c.likesCount - 1 ELSE 0 END WHERE c.id = :commentId")
-    void decrementLikesCount(@Param("commentId") UUID commentId);
-
     @Query("SELECT c.userId FROM Comment c WHERE c.id = :commentId")
     Optional<UUID> findUserIdByCommentId(@Param("commentId") UUID commentId);
 
@@ -0,0 +1,29 @@
+package com.instagram.comment.service;
+
+import com.instagram.common.counter.CounterColumnWriter;
+import com.instagram.common.counter.CounterDeltaHandler;
+import com.instagram.common.counter.CounterType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+@Component
+@RequiredArgsConstructor
+public class CommentCounterHandler implements CounterDeltaHandler {
+
+    private final CounterColumnWriter commentLikesCounterWriter;
+
+    @Override
+    public Set<CounterType> supportedTypes() {
+        return EnumSet.of(CounterType.COMMENT_LIKES);
+    }
+
+    @Override
+    public void apply(CounterType type, Map<UUID, Long> deltas) {
+        commentLikesCounterWriter.apply(deltas);
+    }
+}
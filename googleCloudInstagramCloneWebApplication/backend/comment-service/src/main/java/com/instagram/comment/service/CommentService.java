@@ -2,12 +2,16 @@ package com.instagram.comment.service;
 
 import com.instagram.comment.entity.Comment;
 import com.instagram.comment.repository.CommentRepository;
+import com.instagram.common.client.UserServiceClient;
+import com.instagram.common.counter.CounterOutbox;
+import com.instagram.common.counter.CounterType;
 import com.instagram.common.dto.CommentDto;
 import com.instagram.common.dto.PagedResponse;
 import com.instagram.common.dto.UserDto;
 import com.instagram.common.exception.BadRequestException;
 import com.instagram.common.exception.ResourceNotFoundException;
 import com.instagram.common.exception.UnauthorizedException;
+import com.instagram.common.resilience.DownstreamCalls;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -30,9 +34,9 @@ public class CommentService {
 
     private final CommentRepository commentRepository;
     private final RestTemplate restTemplate;
-
-    @Value("${user.service.url}")
-    private String userServiceUrl;
+    private final DownstreamCalls downstreamCalls;
+    private final CounterOutbox counterOutbox;
+    private final UserServiceClient userServiceClient;
 
     @Value("${post.service.url}")
     private String postServiceUrl;
@@ -62,16 +66,8 @@ public class CommentService {
 
         comment = commentRepository.save(comment);
 
-        // Update post comments count
-        try {
-            restTemplate.postForEntity(
-                    postServiceUrl + "/api/posts/" + postId + "/comments/increment",
-                    null,
-                    Void.class
-            );
-        } catch (Exception e) {
-            log.warn("Failed to increment comments count for post {}: {}", postId, e.getMessage());
-        }
+        // Post comments count is applied by post-service once the outbox relay delivers it
+        counterOutbox.record(CounterType.POST_COMMENTS, postId, 1);
 
         log.info("Created comment {} on post {} by user {}", comment.getId(), postId, userId);
         return mapToDto(comment, fetchUser(userId));
@@ -116,16 +112,7 @@ public class CommentService {
         comment.setIsActive(false);
         commentRepository.save(comment);
 
-        // Update post comments count
-        try {
-            restTemplate.postForEntity(
-                    postServiceUrl + "/api/posts/" + comment.getPostId() + "/comments/decrement",
-                    null,
-                    Void.class
-            );
-        } catch (Exception e) {
-            log.warn("Failed to decrement comments count for post {}: {}", comment.getPostId(), e.getMessage());
-        }
+        counterOutbox.record(CounterType.POST_COMMENTS, comment.getPostId(), -1);
 
         log.info("Deleted comment {}", commentId);
     }
@@ -176,14 +163,6 @@ public class CommentService {
         );
     }
 
-    public void incrementLikesCount(UUID commentId) {
-        commentRepository.incrementLikesCount(commentId);
-    }
-
-    public void decrementLikesCount(UUID commentId) {
-        commentRepository.decrementLikesCount(commentId);
-    }
-
     @Transactional(readOnly = true)
     public Optional<UUID> getCommentOwnerId(UUID commentId) {
         return commentRepository.findUserIdByCommentId(commentId);
@@ -195,40 +174,21 @@ public class CommentService {
     }
 
     private boolean postExists(UUID postId) {
-        try {
+        return downstreamCalls.call("post", () -> {
             ResponseEntity<Boolean> response = restTemplate.getForEntity(
                     postServiceUrl + "/api/posts/" + postId + "/exists",
                     Boolean.class
             );
             return Boolean.TRUE.equals(response.getBody());
-        } catch (Exception e) {
-            log.warn("Failed to check if post {} exists: {}", postId, e.getMessage());
-            return false;
-        }
+        }, () -> false);
     }
 
     private UserDto fetchUser(UUID userId) {
-        try {
-            ResponseEntity<UserDto> response = restTemplate.getForEntity(
-                    userServiceUrl + "/api/users/id/" + userId,
-                    UserDto.class
-            );
-            return response.getBody();
-        } catch (Exception e) {
-            log.warn("Failed to fetch user {}: {}", userId, e.getMessage());
-            return null;
-        }
+        return userServiceClient.getUser(userId);
     }
 
     private Map<UUID, UserDto> fetchUsers(Set<UUID> userIds) {
-        Map<UUID, UserDto> usersMap = new HashMap<>();
-        for (UUID userId : userIds) {
-            UserDto user = fetchUser(userId);
-            if (user != null) {
-                usersMap.put(userId, user);
-            }
-        }
-        return usersMap;
+        return userServiceClient.getUsers(userIds);
     }
 
     private CommentDto mapToDto(Comment comment, UserDto user) {
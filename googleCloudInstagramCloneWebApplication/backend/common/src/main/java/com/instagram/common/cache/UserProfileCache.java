@@ -0,0 +1,206 @@
+package com.instagram.common.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.instagram.common.dto.UserDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Near cache for user profiles used to hydrate post and comment authors. A bounded in-process tier sits
+ * in front of a Redis tier shared by every service instance; user-service evicts both through
+ * {@link UserProfileCacheInvalidator} whenever a profile changes.
+ * <p>
+ * Every invalidation also bumps a per-user version. A loader notes the versions before reading from
+ * user-service and its result is only written to Redis while they are unchanged, so a profile read just
+ * before an invalidation is never written back over it.
+ */
+@Component
+@ConditionalOnProperty(name = "user.service.url")
+// Services without the Redis starter resolve profiles straight from user-service
+@ConditionalOnClass(name = "org.springframework.data.redis.core.StringRedisTemplate")
+@Slf4j
+public class UserProfileCache {
+
+    public static final String KEY_PREFIX = "user:profile:";
+    public static final String INVALIDATION_CHANNEL = "user:profile:invalidations";
+    public static final String VERSION_KEY_PREFIX = "user:profile:version:";
+    // Far longer than any load takes, so a version cannot expire and count back up under a pending write
+    public static final long VERSION_TTL_SECONDS = 86400;
+
+    // KEYS: profile and version key pairs. ARGV: ttl, then the version each profile was loaded at and its
+    // JSON. Returns 1 for each profile written and 0 for each skipped because it was invalidated meanwhile.
+    private static final RedisScript<List> WRITE_SCRIPT = RedisScript.of("""
+            local written = {}
+            for i = 1, #KEYS, 2 do
+                local n = (i + 1) / 2
+                if (redis.call('GET', KEYS[i + 1]) or '0') == ARGV[2 * n] then
+                    redis.call('SETEX', KEYS[i], ARGV[1], ARGV[2 * n + 1])
+                    written[n] = 1
+                else
+                    written[n] = 0
+                end
+            end
+            return written
+            """, List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Cache<UUID, UserDto> localCache;
+    private final Duration redisTtl;
+    private final Counter redisHits;
+    private final Counter redisMisses;
+
+    public UserProfileCache(StringRedisTemplate redisTemplate,
+                            ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry,
+                            @Value("${user.profile-cache.local.max-size:10000}") long localMaxSize,
+                            @Value("${user.profile-cache.local.ttl:60}") long localTtlSeconds,
+                            @Value("${user.profile-cache.redis.ttl:600}") long redisTtlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.redisTtl = Duration.ofSeconds(redisTtlSeconds);
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(localTtlSeconds))
+                .recordStats()
+                .build();
+
+        // Local hits, misses and evictions come from the Caffeine binder; the Redis tier is counted by hand
+        CaffeineCacheMetrics.monitor(meterRegistry, localCache, "userProfiles.local");
+        this.redisHits = Counter.builder("cache.gets")
+                .tag("cache", "userProfiles.redis")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.redisMisses = Counter.builder("cache.gets")
+                .tag("cache", "userProfiles.redis")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached profiles for {@code userIds}, calling {@code loader} once with whatever neither
+     * tier holds and caching its result.
+     */
+    public Map<UUID, UserDto> getAll(Collection<UUID> userIds, Function<List<UUID>, Map<UUID, UserDto>> loader) {
+        Map<UUID, UserDto> result = new HashMap<>(localCache.getAllPresent(userIds));
+
+        List<UUID> misses = userIds.stream()
+                .filter(userId -> !result.containsKey(userId))
+                .toList();
+        if (misses.isEmpty()) {
+            return result;
+        }
+
+        Map<UUID, UserDto> fromRedis = readRedis(misses);
+        localCache.putAll(fromRedis);
+        result.putAll(fromRedis);
+
+        List<UUID> remaining = misses.stream()
+                .filter(userId -> !fromRedis.containsKey(userId))
+                .toList();
+        if (remaining.isEmpty()) {
+            return result;
+        }
+
+        // Versions are read before the loader so any invalidation that commits after it is seen by the write
+        Map<UUID, String> versions = readVersions(remaining);
+        Map<UUID, UserDto> loaded = loader.apply(remaining);
+        localCache.putAll(writeRedis(loaded, versions));
+        result.putAll(loaded);
+        return result;
+    }
+
+    public void evictLocal(UUID userId) {
+        localCache.invalidate(userId);
+    }
+
+    private Map<UUID, UserDto> readRedis(List<UUID> userIds) {
+        Map<UUID, UserDto> found = new HashMap<>();
+        try {
+            List<String> values = redisTemplate.opsForValue().multiGet(
+                    userIds.stream().map(userId -> KEY_PREFIX + userId).toList());
+            if (values == null) {
+                return found;
+            }
+
+            for (int i = 0; i < userIds.size(); i++) {
+                String json = values.get(i);
+                if (json != null) {
+                    found.put(userIds.get(i), objectMapper.readValue(json, UserDto.class));
+                }
+            }
+        } catch (Exception e) {
+            log.warn("User profile cache read failed: {}", e.getMessage());
+        }
+
+        redisHits.increment(found.size());
+        redisMisses.increment(userIds.size() - found.size());
+        return found;
+    }
+
+    private Map<UUID, String> readVersions(List<UUID> userIds) {
+        Map<UUID, String> versions = new HashMap<>();
+        try {
+            List<String> values = redisTemplate.opsForValue().multiGet(
+                    userIds.stream().map(userId -> VERSION_KEY_PREFIX + userId).toList());
+            for (int i = 0; i < userIds.size(); i++) {
+                String version = values != null ? values.get(i) : null;
+                versions.put(userIds.get(i), version != null ? version : "0");
+            }
+        } catch (Exception e) {
+            log.warn("User profile version read failed: {}", e.getMessage());
+        }
+        return versions;
+    }
+
+    /**
+     * Writes the loaded profiles whose version is unchanged and returns the ones safe to keep locally.
+     */
+    private Map<UUID, UserDto> writeRedis(Map<UUID, UserDto> users, Map<UUID, String> versions) {
+        List<UUID> userIds = users.keySet().stream()
+                .filter(versions::containsKey)
+                .toList();
+        if (userIds.isEmpty()) {
+            // Without a version to check against, nothing is shared; the local copy expires on its own
+            return users;
+        }
+
+        try {
+            List<String> keys = new ArrayList<>(userIds.size() * 2);
+            List<String> args = new ArrayList<>(userIds.size() * 2 + 1);
+            args.add(String.valueOf(redisTtl.toSeconds()));
+            for (UUID userId : userIds) {
+                keys.add(KEY_PREFIX + userId);
+                keys.add(VERSION_KEY_PREFIX + userId);
+                args.add(versions.get(userId));
+                args.add(objectMapper.writeValueAsString(users.get(userId)));
+            }
+
+            List<?> written = redisTemplate.execute(WRITE_SCRIPT, keys, args.toArray());
+            Map<UUID, UserDto> current = new HashMap<>(users);
+            for (int i = 0; i < userIds.size(); i++) {
+                if (written == null || !Long.valueOf(1).equals(written.get(i))) {
+                    current.remove(userIds.get(i));
+                }
+            }
+            return current;
+        } catch (Exception e) {
+            log.warn("User profile cache write failed: {}", e.getMessage());
+            return users;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.instagram.common.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+@Configuration
+@ConditionalOnProperty(name = "user.service.url")
+@ConditionalOnClass(name = "org.springframework.data.redis.core.StringRedisTemplate")
+public class UserProfileCacheConfig {
+
+    @Bean
+    public RedisMessageListenerContainer userProfileInvalidationListener(RedisConnectionFactory connectionFactory,
+                                                                         UserProfileCache userProfileCache) {
+        // The Redis tier is evicted by the publisher; each instance only has to drop its local copy
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> userProfileCache.evictLocal(
+                        UUID.fromString(new String(message.getBody(), StandardCharsets.UTF_8))),
+                new ChannelTopic(UserProfileCache.INVALIDATION_CHANNEL));
+        return container;
+    }
+}
@@ -0,0 +1,57 @@
+package com.instagram.common.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+/**
+ * Publisher side of {@link UserProfileCache}: bumps the profile's version, drops the shared Redis entry
+ * and tells every instance to drop its local copy. Only user-service, which owns profile data, enables it.
+ */
+@Component
+@ConditionalOnProperty(name = "user.profile-cache.publish-invalidations", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class UserProfileCacheInvalidator {
+
+    private final StringRedisTemplate redisTemplate;
+
+    public void invalidate(UUID userId) {
+        // Evicting before commit would let a concurrent reader re-cache the old row
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(userId);
+                }
+            });
+        } else {
+            publish(userId);
+        }
+    }
+
+    private void publish(UUID userId) {
+        try {
+            // The version goes up first, so a load that started before this commit can no longer write back
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                String versionKey = UserProfileCache.VERSION_KEY_PREFIX + userId;
+                redis.incr(versionKey);
+                redis.expire(versionKey, UserProfileCache.VERSION_TTL_SECONDS);
+                redis.del(UserProfileCache.KEY_PREFIX + userId);
+                return null;
+            });
+            redisTemplate.convertAndSend(UserProfileCache.INVALIDATION_CHANNEL, userId.toString());
+        } catch (Exception e) {
+            log.warn("Failed to invalidate cached profile for user {}: {}", userId, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.instagram.common.client;
+
+import com.instagram.common.cache.UserProfileCache;
+import com.instagram.common.concurrent.SingleFlight;
+import com.instagram.common.dto.UserDto;
+import com.instagram.common.resilience.DownstreamCalls;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.*;
+
+/**
+ * Resolves user profiles through {@link UserProfileCache}, falling back to user-service's batch endpoint
+ * so rendering a page of posts or comments costs at most one round-trip per chunk of uncached authors.
+ * Concurrent misses for the same author share one fetch. Without the cache (no Redis on the classpath)
+ * every lookup goes to the batch endpoint.
+ */
+@Component
+@ConditionalOnProperty(name = "user.service.url")
+@Slf4j
+public class UserServiceClient {
+
+    private final RestTemplate restTemplate;
+    private final UserProfileCache userProfileCache; // null when the service has no Redis
+    private final DownstreamCalls downstreamCalls;
+    private final SingleFlight<UUID, UserDto> userLookups;
+
+    @Value("${user.service.url}")
+    private String userServiceUrl;
+
+    @Value("${user.service.batch-size:100}")
+    private int batchSize;
+
+    public UserServiceClient(RestTemplate restTemplate,
+                             ObjectProvider<UserProfileCache> userProfileCache,
+                             DownstreamCalls downstreamCalls,
+                             MeterRegistry meterRegistry) {
+        this.restTemplate = restTemplate;
+        this.userProfileCache = userProfileCache.getIfAvailable();
+        this.downstreamCalls = downstreamCalls;
+        this.userLookups = new SingleFlight<>("user-lookups", meterRegistry);
+    }
+
+    public Map<UUID, UserDto> getUsers(Collection<UUID> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        // Coalesce duplicate and null IDs before going over the wire
+        List<UUID> distinctIds = userIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+
+        if (userProfileCache == null) {
+            return userLookups.executeAll(distinctIds, this::fetchUsers);
+        }
+        return userProfileCache.getAll(distinctIds, missingIds -> userLookups.executeAll(missingIds, this::fetchUsers));
+    }
+
+    public UserDto getUser(UUID userId) {
+        return getUsers(List.of(userId)).get(userId);
+    }
+
+    private Map<UUID, UserDto> fetchUsers(List<UUID> distinctIds) {
+        Map<UUID, UserDto> usersMap = new HashMap<>();
+        for (int from = 0; from < distinctIds.size(); from += batchSize) {
+            List<UUID> chunk = distinctIds.subList(from, Math.min(from + batchSize, distinctIds.size()));
+            for (UserDto user : fetchChunk(chunk)) {
+                usersMap.put(UUID.fromString(user.getId()), user);
+            }
+        }
+        return usersMap;
+    }
+
+    private List<UserDto> fetchChunk(List<UUID> userIds) {
+        // Cached profiles were already served by the cache; uncached ones render without author details
+        return downstreamCalls.call("user", () -> {
+            ResponseEntity<List<UserDto>> response = restTemplate.exchange(
+                    userServiceUrl + "/api/users/batch",
+                    HttpMethod.POST,
+                    new HttpEntity<>(userIds),
+                    new ParameterizedTypeReference<List<UserDto>>() {}
+            );
+            return response.getBody() != null ? response.getBody() : Collections.<UserDto>emptyList();
+        }, Collections::emptyList);
+    }
+}
@@ -0,0 +1,56 @@
+package com.instagram.common.counter;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Applies summed deltas to one counter column with a single {@code UPDATE ... FROM (VALUES ...)} per
+ * thousand rows, so a batch touching many rows costs one statement and a hot row is updated once per batch.
+ * Runs in the caller's transaction and never lets a counter drop below zero.
+ */
+public class CounterColumnWriter {
+
+    private static final int ROWS_PER_STATEMENT = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String updateSqlPrefix;
+    private final String updateSqlSuffix;
+
+    public CounterColumnWriter(JdbcTemplate jdbcTemplate, String table, String column) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.updateSqlPrefix = "UPDATE " + table + " AS t SET " + column + " = GREATEST(t." + column + " + v.delta, 0) FROM (VALUES ";
+        this.updateSqlSuffix = ") AS v(id, delta) WHERE t.id = v.id";
+    }
+
+    /**
+     * Returns the number of rows with a non-zero delta, which is the number of rows the statements target.
+     */
+    public int apply(Map<UUID, Long> deltas) {
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        deltas.forEach((id, delta) -> {
+            if (delta != 0) {
+                rows.add(new Object[]{id, delta});
+            }
+        });
+        for (int from = 0; from < rows.size(); from += ROWS_PER_STATEMENT) {
+            update(rows.subList(from, Math.min(from + ROWS_PER_STATEMENT, rows.size())));
+        }
+        return rows.size();
+    }
+
+    private void update(List<Object[]> rows) {
+        StringBuilder sql = new StringBuilder(updateSqlPrefix);
+        Object[] args = new Object[rows.size() * 2];
+        for (int i = 0; i < rows.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append("(?::uuid, ?::bigint)");
+            args[i * 2] = rows.get(i)[0];
+            args[i * 2 + 1] = rows.get(i)[1];
+        }
+        sql.append(updateSqlSuffix);
+        jdbcTemplate.update(sql.toString(), args);
+    }
+}
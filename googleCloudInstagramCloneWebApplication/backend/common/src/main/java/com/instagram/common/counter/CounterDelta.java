@@ -0,0 +1,10 @@
+package com.instagram.common.counter;
+
+import java.util.UUID;
+
+/**
+ * A change to one counter. {@code eventId} is assigned when the delta is written to the outbox and lets
+ * consumers drop redeliveries.
+ */
+public record CounterDelta(UUID eventId, CounterType type, UUID targetId, int delta) {
+}
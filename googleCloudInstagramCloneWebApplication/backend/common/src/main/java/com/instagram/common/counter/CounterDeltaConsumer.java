@@ -0,0 +1,91 @@
+package com.instagram.common.counter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Owner side of counter propagation. A relayed batch is applied in one transaction: its event IDs are
+ * recorded in {@code processed_counter_events}, and the deltas of events not seen before are summed per
+ * target and written together. A redelivered delta is skipped instead of counted twice, and nothing is
+ * acknowledged to the relay until its deltas have committed.
+ * <p>
+ * This per-batch sum is what absorbs hot rows: the relay ships up to {@code counter.outbox.batch-size}
+ * deltas at a time, so a burst of likes on one post arrives as one net delta and one row update rather
+ * than a lock convoy of single-row increments. Handlers write the sums with a {@link CounterColumnWriter}.
+ */
+@Component
+@ConditionalOnProperty(name = "counter.consumer.enabled", havingValue = "true")
+@Slf4j
+public class CounterDeltaConsumer {
+
+    private static final int EVENTS_PER_STATEMENT = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<CounterType, CounterDeltaHandler> handlers = new EnumMap<>(CounterType.class);
+
+    @Value("${counter.consumer.retention-days:7}")
+    private int retentionDays;
+
+    public CounterDeltaConsumer(JdbcTemplate jdbcTemplate, List<CounterDeltaHandler> counterDeltaHandlers) {
+        this.jdbcTemplate = jdbcTemplate;
+        for (CounterDeltaHandler handler : counterDeltaHandlers) {
+            handler.supportedTypes().forEach(type -> handlers.put(type, handler));
+        }
+    }
+
+    @Transactional
+    public void apply(List<CounterDelta> deltas) {
+        List<CounterDelta> handled = new ArrayList<>(deltas.size());
+        for (CounterDelta delta : deltas) {
+            if (handlers.containsKey(delta.type())) {
+                handled.add(delta);
+            } else {
+                log.warn("No handler for counter type {}, dropping event {}", delta.type(), delta.eventId());
+            }
+        }
+        if (handled.isEmpty()) {
+            return;
+        }
+
+        Set<UUID> fresh = markProcessed(handled.stream().map(CounterDelta::eventId).distinct().toList());
+        Map<CounterType, Map<UUID, Long>> totals = new EnumMap<>(CounterType.class);
+        for (CounterDelta delta : handled) {
+            // Removing the ID also drops a repeat of the same event within this batch
+            if (fresh.remove(delta.eventId())) {
+                totals.computeIfAbsent(delta.type(), type -> new HashMap<>())
+                        .merge(delta.targetId(), (long) delta.delta(), Long::sum);
+            }
+        }
+        totals.forEach((type, byTarget) -> handlers.get(type).apply(type, byTarget));
+    }
+
+    @Scheduled(cron = "${counter.consumer.cleanup-cron:0 0 * * * *}")
+    public void purgeProcessedEvents() {
+        // Producers retry within seconds, so a week of history is far more than redelivery needs
+        int purged = jdbcTemplate.update(
+                "DELETE FROM processed_counter_events WHERE processed_at < NOW() - make_interval(days => ?)",
+                retentionDays);
+        if (purged > 0) {
+            log.info("Purged {} processed counter events", purged);
+        }
+    }
+
+    private Set<UUID> markProcessed(List<UUID> eventIds) {
+        Set<UUID> fresh = new HashSet<>();
+        for (int from = 0; from < eventIds.size(); from += EVENTS_PER_STATEMENT) {
+            List<UUID> chunk = eventIds.subList(from, Math.min(from + EVENTS_PER_STATEMENT, eventIds.size()));
+            String sql = "INSERT INTO processed_counter_events (event_id) VALUES "
+                    + String.join(", ", Collections.nCopies(chunk.size(), "(?::uuid)"))
+                    + " ON CONFLICT DO NOTHING RETURNING event_id";
+            fresh.addAll(jdbcTemplate.queryForList(sql, UUID.class, chunk.toArray()));
+        }
+        return fresh;
+    }
+}
@@ -0,0 +1,28 @@
+package com.instagram.common.counter;
+
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/counters")
+@ConditionalOnProperty(name = "counter.consumer.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class CounterDeltaController {
+
+    private final CounterDeltaConsumer counterDeltaConsumer;
+
+    @PostMapping("/deltas")
+    @Operation(summary = "Apply counter deltas relayed from another service's outbox (internal use)")
+    public ResponseEntity<Void> applyDeltas(@RequestBody List<CounterDelta> deltas) {
+        counterDeltaConsumer.apply(deltas);
+        return ResponseEntity.noContent().build();
+    }
+}
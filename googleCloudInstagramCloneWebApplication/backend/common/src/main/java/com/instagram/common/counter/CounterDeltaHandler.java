@@ -0,0 +1,20 @@
+package com.instagram.common.counter;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Applies deltas to the counters a service owns. Implemented once per owning service.
+ */
+public interface CounterDeltaHandler {
+
+    Set<CounterType> supportedTypes();
+
+    /**
+     * Applies the net deltas of {@code type} from one relayed batch, keyed by target. Runs inside the
+     * consumer's transaction, which also marks the batch's events processed, so the write must not be
+     * deferred past it; {@link CounterColumnWriter} writes the whole map in that transaction.
+     */
+    void apply(CounterType type, Map<UUID, Long> deltas);
+}
@@ -0,0 +1,12 @@
+package com.instagram.common.counter;
+
+import java.util.List;
+
+/**
+ * Transport between {@link CounterOutboxRelay} and {@link CounterDeltaConsumer}. Implementations throw
+ * when delivery fails so the relay keeps the deltas for the next attempt.
+ */
+public interface CounterEventBus {
+
+    void publish(List<CounterDelta> deltas);
+}
@@ -0,0 +1,48 @@
+package com.instagram.common.counter;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Records counter deltas in the producing service's {@code counter_outbox} table. Callers must be inside
+ * the transaction that writes the row being counted, so the delta commits or rolls back with it.
+ */
+@Component
+@ConditionalOnProperty(name = "counter.outbox.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class CounterOutbox {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void record(CounterType type, UUID targetId, int delta) {
+        jdbcTemplate.update(
+                "INSERT INTO counter_outbox (id, counter_type, target_id, delta) VALUES (?, ?, ?, ?)",
+                UUID.randomUUID(), type.name(), targetId, delta);
+    }
+
+    /**
+     * Records one delta per target as a single JDBC batch.
+     */
+    public void recordAll(CounterType type, Map<UUID, Integer> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO counter_outbox (id, counter_type, target_id, delta) VALUES (?, ?, ?, ?)",
+                new ArrayList<>(deltas.entrySet()),
+                deltas.size(),
+                (ps, entry) -> {
+                    ps.setObject(1, UUID.randomUUID());
+                    ps.setString(2, type.name());
+                    ps.setObject(3, entry.getKey());
+                    ps.setInt(4, entry.getValue());
+                });
+    }
+}
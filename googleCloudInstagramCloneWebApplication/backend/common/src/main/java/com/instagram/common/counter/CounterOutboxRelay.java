@@ -0,0 +1,66 @@
+package com.instagram.common.counter;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Drains {@code counter_outbox} onto the {@link CounterEventBus}. Rows are claimed with
+ * {@code FOR UPDATE SKIP LOCKED} so replicas split the backlog, and deleted only after the bus accepts
+ * them; delivery is therefore at-least-once and consumers deduplicate by event ID.
+ */
+@Component
+@ConditionalOnProperty(name = "counter.outbox.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class CounterOutboxRelay {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CounterEventBus counterEventBus;
+
+    @Value("${counter.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${counter.outbox.relay-interval:1000}")
+    public void relay() {
+        try {
+            Integer published;
+            do {
+                published = transactionTemplate.execute(status -> relayBatch());
+            } while (published != null && published == batchSize);
+        } catch (Exception e) {
+            log.warn("Counter outbox relay failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    private int relayBatch() {
+        List<CounterDelta> deltas = jdbcTemplate.query(
+                "SELECT id, counter_type, target_id, delta FROM counter_outbox " +
+                "ORDER BY created_at LIMIT ? FOR UPDATE SKIP LOCKED",
+                (rs, rowNum) -> new CounterDelta(
+                        rs.getObject("id", UUID.class),
+                        CounterType.valueOf(rs.getString("counter_type")),
+                        rs.getObject("target_id", UUID.class),
+                        rs.getInt("delta")),
+                batchSize);
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+
+        counterEventBus.publish(deltas);
+
+        jdbcTemplate.batchUpdate("DELETE FROM counter_outbox WHERE id = ?", deltas, deltas.size(),
+                (ps, delta) -> ps.setObject(1, delta.eventId()));
+        log.debug("Relayed {} counter deltas", deltas.size());
+        return deltas.size();
+    }
+}
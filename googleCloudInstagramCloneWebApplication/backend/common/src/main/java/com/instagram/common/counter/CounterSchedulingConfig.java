@@ -0,0 +1,11 @@
+package com.instagram.common.counter;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+@ConditionalOnExpression("${counter.outbox.enabled:false} or ${counter.consumer.enabled:false}")
+public class CounterSchedulingConfig {
+}
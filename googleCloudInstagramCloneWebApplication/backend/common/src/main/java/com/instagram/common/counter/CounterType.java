@@ -0,0 +1,20 @@
+package com.instagram.common.counter;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Denormalized counters kept by one service on behalf of another. Each type names the property holding
+ * the base URL of the service that owns the counted row.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum CounterType {
+
+    POST_LIKES("post.service.url"),
+    POST_COMMENTS("post.service.url"),
+    COMMENT_LIKES("comment.service.url"),
+    USER_POSTS("user.service.url");
+
+    private final String ownerUrlProperty;
+}
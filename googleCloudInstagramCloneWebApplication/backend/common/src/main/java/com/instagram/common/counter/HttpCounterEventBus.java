@@ -0,0 +1,42 @@
+package com.instagram.common.counter;
+
+import com.instagram.common.resilience.DownstreamCalls;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Delivers deltas to the owning service's {@code /api/counters/deltas} endpoint, one request per owner.
+ * Consumers drop duplicate event IDs, so deliveries are safe to retry.
+ */
+@Component
+// Only the outbox relay publishes, so services that merely consume deltas get no bus (or RestTemplate need)
+@ConditionalOnExpression("${counter.outbox.enabled:false} and '${counter.bus:}' == 'http'")
+@RequiredArgsConstructor
+public class HttpCounterEventBus implements CounterEventBus {
+
+    private final RestTemplate restTemplate;
+    private final Environment environment;
+    private final DownstreamCalls downstreamCalls;
+
+    @Override
+    public void publish(List<CounterDelta> deltas) {
+        Map<String, List<CounterDelta>> byOwner = deltas.stream()
+                .collect(Collectors.groupingBy(delta -> delta.type().getOwnerUrlProperty()));
+
+        // "post.service.url" is guarded as the "post" downstream
+        byOwner.forEach((urlProperty, ownerDeltas) -> downstreamCalls.run(
+                urlProperty.substring(0, urlProperty.indexOf('.')),
+                () -> restTemplate.postForEntity(
+                        environment.getRequiredProperty(urlProperty) + "/api/counters/deltas",
+                        new HttpEntity<>(ownerDeltas),
+                        Void.class)));
+    }
+}
@@ -0,0 +1,24 @@
+package com.instagram.common.counter;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Hands deltas straight to the {@link CounterDeltaConsumer} in the same application context. Intended for
+ * tests and single-process setups where producer and owner run together.
+ */
+@Component
+@ConditionalOnExpression("${counter.outbox.enabled:false} and '${counter.bus:}' == 'memory'")
+@RequiredArgsConstructor
+public class InMemoryCounterEventBus implements CounterEventBus {
+
+    private final CounterDeltaConsumer counterDeltaConsumer;
+
+    @Override
+    public void publish(List<CounterDelta> deltas) {
+        counterDeltaConsumer.apply(deltas);
+    }
+}
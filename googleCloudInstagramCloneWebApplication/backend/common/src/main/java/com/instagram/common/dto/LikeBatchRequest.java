@@ -0,0 +1,51 @@
+package com.instagram.common.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Like and unlike taps replayed in bulk, e.g. from a client's offline queue, in the order they were made.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LikeBatchRequest {
+
+    @NotEmpty(message = "At least one operation is required")
+    @Size(max = 500, message = "At most 500 operations per batch")
+    private List<@Valid @NotNull Operation> operations;
+
+    public enum Action {
+        LIKE, UNLIKE
+    }
+
+    public enum TargetType {
+        POST, COMMENT
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Operation {
+
+        @NotNull(message = "Action is required")
+        private Action action;
+
+        @NotNull(message = "Target type is required")
+        private TargetType targetType;
+
+        @NotNull(message = "Target ID is required")
+        private UUID targetId;
+    }
+}
@@ -0,0 +1,17 @@
+package com.instagram.common.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LikeBatchResponse {
+    // Operations received, distinct targets they collapsed to, and targets whose like state actually changed
+    private int operations;
+    private int targets;
+    private int changed;
+}
@@ -0,0 +1,55 @@
+package com.instagram.common.dto;
+
+import com.instagram.common.exception.BadRequestException;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Binary wire format of the batch like-status endpoint. The request body is the IDs as consecutive
+ * 16-byte big-endian UUIDs; the response is one bit per requested ID, in request order, least
+ * significant bit first within each byte. A 50-post page is 800 bytes out and 7 bytes back.
+ */
+public final class LikeStatusBitmap {
+
+    public static final String MEDIA_TYPE = "application/octet-stream";
+
+    private static final int UUID_BYTES = 16;
+
+    private LikeStatusBitmap() {
+    }
+
+    public static byte[] encodeIds(List<UUID> ids) {
+        ByteBuffer buffer = ByteBuffer.allocate(ids.size() * UUID_BYTES);
+        for (UUID id : ids) {
+            buffer.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits());
+        }
+        return buffer.array();
+    }
+
+    public static List<UUID> decodeIds(byte[] body) {
+        if (body == null || body.length % UUID_BYTES != 0) {
+            throw new BadRequestException("Body must be a sequence of 16-byte UUIDs");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(body);
+        List<UUID> ids = new ArrayList<>(body.length / UUID_BYTES);
+        while (buffer.hasRemaining()) {
+            ids.add(new UUID(buffer.getLong(), buffer.getLong()));
+        }
+        return ids;
+    }
+
+    public static byte[] newBitmap(int idCount) {
+        return new byte[(idCount + 7) / 8];
+    }
+
+    public static void set(byte[] bitmap, int index) {
+        bitmap[index >>> 3] |= (byte) (1 << (index & 7));
+    }
+
+    public static boolean isSet(byte[] bitmap, int index) {
+        return (bitmap[index >>> 3] & (1 << (index & 7))) != 0;
+    }
+}
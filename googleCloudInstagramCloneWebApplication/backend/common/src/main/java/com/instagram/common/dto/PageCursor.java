@@ -0,0 +1,61 @@
+package com.instagram.common.dto;
+
+import com.instagram.common.exception.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Opaque keyset position: the sort key of the last row a client has seen, with the row id as tiebreak.
+ * {@code rank} is only used by listings ordered by a score (e.g. likes) before recency.
+ */
+@Getter
+@AllArgsConstructor
+public class PageCursor {
+
+    public static final UUID MAX_ID = new UUID(-1L, -1L);
+    private static final LocalDateTime MAX_CREATED_AT = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    private final long rank;
+    private final LocalDateTime createdAt;
+    private final UUID id;
+
+    public static PageCursor first() {
+        return new PageCursor(Long.MAX_VALUE, MAX_CREATED_AT, MAX_ID);
+    }
+
+    public static PageCursor of(LocalDateTime createdAt, UUID id) {
+        return new PageCursor(Long.MAX_VALUE, createdAt, id);
+    }
+
+    public static PageCursor of(long rank, LocalDateTime createdAt, UUID id) {
+        return new PageCursor(rank, createdAt, id);
+    }
+
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return first();
+        }
+
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = decoded.split("\\|");
+            return new PageCursor(
+                    Long.parseLong(parts[0]),
+                    LocalDateTime.parse(parts[1]),
+                    UUID.fromString(parts[2])
+            );
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        String raw = rank + "|" + createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
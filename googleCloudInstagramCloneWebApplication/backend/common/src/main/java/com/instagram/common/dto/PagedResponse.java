@@ -1,5 +1,6 @@
 package com.instagram.common.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -20,6 +21,9 @@ public class PagedResponse<T> {
     private boolean hasNext;
     private boolean hasPrevious;
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+
     public static <T> PagedResponse<T> of(List<T> content, int page, int size, long totalElements) {
         int totalPages = (int) Math.ceil((double) totalElements / size);
         return PagedResponse.<T>builder()
@@ -32,4 +36,17 @@ public class PagedResponse<T> {
                 .hasPrevious(page > 0)
                 .build();
     }
+
+    /**
+     * Slice-style page for keyset pagination: no total count is computed, {@code hasNext} is
+     * derived from whether a {@code nextCursor} exists.
+     */
+    public static <T> PagedResponse<T> ofCursor(List<T> content, int size, String nextCursor) {
+        return PagedResponse.<T>builder()
+                .content(content)
+                .size(size)
+                .hasNext(nextCursor != null)
+                .nextCursor(nextCursor)
+                .build();
+    }
 }
@@ -20,6 +20,8 @@ public class PostDto {
     private UserDto user;
     private String imageUrl;
     private List<String> imageUrls;
+    private List<String> thumbnailUrls;
+    private List<String> feedImageUrls;
     private String caption;
     private String location;
     private List<String> hashtags;
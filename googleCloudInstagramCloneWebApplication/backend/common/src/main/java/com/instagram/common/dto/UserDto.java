@@ -18,6 +18,7 @@ public class UserDto {
     private String fullName;
     private String bio;
     private String profilePictureUrl;
+    private String avatarUrl;
     private Long followersCount;
     private Long followingCount;
     private Long postsCount;
@@ -0,0 +1,141 @@
+package com.instagram.common.http;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * The RestTemplate every service uses for calls to its peers: a pooled Apache HttpClient with bounded
+ * connection, pool-wait and read timeouts, and keep-alive reuse. Each downstream named by a
+ * {@code <service>.service.url} property gets its own per-route pool limit and pool gauges.
+ */
+@Configuration
+public class InterServiceHttpClientConfig {
+
+    private static final List<String> DOWNSTREAM_SERVICES = List.of("user", "post", "feed", "like", "comment");
+
+    @Value("${http.client.max-connections:200}")
+    private int maxConnections;
+
+    @Value("${http.client.max-connections-per-route:50}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${http.client.connect-timeout:1000}")
+    private long connectTimeoutMillis;
+
+    @Value("${http.client.read-timeout:5000}")
+    private long readTimeoutMillis;
+
+    @Value("${http.client.pool-timeout:500}")
+    private long poolTimeoutMillis;
+
+    @Value("${http.client.keep-alive:30}")
+    private long keepAliveSeconds;
+
+    @Value("${http.client.connection-ttl:300}")
+    private long connectionTtlSeconds;
+
+    @Value("${http.client.gzip:true}")
+    private boolean gzip;
+
+    @Bean
+    public PoolingHttpClientConnectionManager interServiceConnectionManager(Environment environment,
+                                                                            MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMillis))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMillis))
+                        .setTimeToLive(TimeValue.ofSeconds(connectionTtlSeconds))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+
+        for (String service : DOWNSTREAM_SERVICES) {
+            String url = environment.getProperty(service + ".service.url");
+            if (url == null) {
+                continue;
+            }
+
+            HttpRoute route = new HttpRoute(toHost(URI.create(url)));
+            connectionManager.setMaxPerRoute(route, environment.getProperty(
+                    "http.client.routes." + service + ".max-connections", Integer.class, maxConnectionsPerRoute));
+            bindRouteGauges(meterRegistry, connectionManager, route, service);
+        }
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "inter-service").bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient interServiceHttpClient(PoolingHttpClientConnectionManager interServiceConnectionManager) {
+        HttpClientBuilder builder = HttpClients.custom()
+                .setConnectionManager(interServiceConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolTimeoutMillis))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMillis))
+                        .setConnectionKeepAlive(TimeValue.ofSeconds(keepAliveSeconds))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(keepAliveSeconds));
+        if (!gzip) {
+            builder.disableContentCompression();
+        }
+        return builder.build();
+    }
+
+    @Bean
+    public RestTemplate restTemplate(RestTemplateBuilder restTemplateBuilder, CloseableHttpClient interServiceHttpClient) {
+        // Built through RestTemplateBuilder so http.client.requests observations still apply
+        return restTemplateBuilder
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(interServiceHttpClient))
+                .build();
+    }
+
+    private static HttpHost toHost(URI uri) {
+        // Routes are matched on the resolved port, so make the scheme default explicit
+        int port = uri.getPort() != -1 ? uri.getPort() : ("https".equals(uri.getScheme()) ? 443 : 80);
+        return new HttpHost(uri.getScheme(), uri.getHost(), port);
+    }
+
+    private static void bindRouteGauges(MeterRegistry meterRegistry, PoolingHttpClientConnectionManager connectionManager,
+                                        HttpRoute route, String service) {
+        bindRouteGauge(meterRegistry, connectionManager, route, service, "leased", PoolStats::getLeased);
+        bindRouteGauge(meterRegistry, connectionManager, route, service, "available", PoolStats::getAvailable);
+        bindRouteGauge(meterRegistry, connectionManager, route, service, "pending", PoolStats::getPending);
+        bindRouteGauge(meterRegistry, connectionManager, route, service, "max", PoolStats::getMax);
+    }
+
+    private static void bindRouteGauge(MeterRegistry meterRegistry, PoolingHttpClientConnectionManager connectionManager,
+                                       HttpRoute route, String service, String state, ToIntFunction<PoolStats> stat) {
+        Gauge.builder("http.client.route.connections", connectionManager,
+                        manager -> stat.applyAsInt(manager.getStats(route)))
+                .tag("service", service)
+                .tag("state", state)
+                .register(meterRegistry);
+    }
+}
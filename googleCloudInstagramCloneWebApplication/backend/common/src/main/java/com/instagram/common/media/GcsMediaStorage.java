@@ -0,0 +1,57 @@
+package com.instagram.common.media;
+
+import com.google.cloud.ReadChannel;
+import com.google.cloud.WriteChannel;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+
+/**
+ * Media storage backed by a GCS bucket. Objects are written through a resumable upload session in
+ * fixed-size chunks, so only one chunk per upload is held in memory.
+ */
+public class GcsMediaStorage implements MediaStorage {
+
+    private final Storage storage;
+    private final String bucketName;
+    private final int chunkSize;
+
+    /**
+     * @param chunkSize resumable upload chunk in bytes; GCS requires a multiple of 256 KiB
+     */
+    public GcsMediaStorage(Storage storage, String bucketName, int chunkSize) {
+        this.storage = storage;
+        this.bucketName = bucketName;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public String store(String objectName, String contentType, InputStream content) throws IOException {
+        BlobInfo blobInfo = BlobInfo.newBuilder(BlobId.of(bucketName, objectName))
+                .setContentType(contentType)
+                .build();
+
+        try (WriteChannel writer = storage.writer(blobInfo)) {
+            writer.setChunkSize(chunkSize);
+            content.transferTo(Channels.newOutputStream(writer));
+        }
+
+        return String.format("https://storage.googleapis.com/%s/%s", bucketName, objectName);
+    }
+
+    @Override
+    public InputStream open(String objectName) {
+        ReadChannel reader = storage.reader(BlobId.of(bucketName, objectName));
+        reader.setChunkSize(chunkSize);
+        return Channels.newInputStream(reader);
+    }
+
+    @Override
+    public void delete(String objectName) {
+        storage.delete(BlobId.of(bucketName, objectName));
+    }
+}
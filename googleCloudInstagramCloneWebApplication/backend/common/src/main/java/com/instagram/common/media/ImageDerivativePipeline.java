@@ -0,0 +1,113 @@
+package com.instagram.common.media;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Generates image derivatives off the request path. Work goes onto a bounded queue served by a fixed set
+ * of worker threads; each job reads the stored original back, renders its variants with
+ * {@link ImageDerivatives} and stores them beside it. When the queue is full new jobs are dropped and the
+ * original stays the only copy, since callers fall back to it until variant URLs are recorded.
+ */
+@Slf4j
+public class ImageDerivativePipeline implements AutoCloseable {
+
+    private final String name;
+    private final MediaStorage mediaStorage;
+    private final float quality;
+    private final long maxSourcePixels;
+    private final ThreadPoolExecutor executor;
+    private final MeterRegistry meterRegistry;
+    private final Counter rejectedJobs;
+
+    public ImageDerivativePipeline(String name, MediaStorage mediaStorage, int threads, int queueCapacity,
+                                   float quality, long maxSourcePixels, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.mediaStorage = mediaStorage;
+        this.quality = quality;
+        this.maxSourcePixels = maxSourcePixels;
+        this.meterRegistry = meterRegistry;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("image-derivatives-" + name + "-", 0).daemon().factory());
+
+        Gauge.builder("media.derivatives.queued", executor, pool -> pool.getQueue().size())
+                .description("Derivative jobs waiting for a worker")
+                .tag("pipeline", name)
+                .register(meterRegistry);
+        this.rejectedJobs = Counter.builder("media.derivatives.rejected")
+                .description("Derivative jobs dropped because the queue was full")
+                .tag("pipeline", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues derivative generation for a stored original. {@code onReady} runs on a worker thread with
+     * every variant's URL once all of them are stored; it is not called if generation fails.
+     *
+     * @return false if the queue was full and the job was dropped
+     */
+    public boolean submit(String originalObjectName, Set<ImageVariant> variants,
+                          Consumer<Map<ImageVariant, String>> onReady) {
+        try {
+            executor.execute(() -> generate(originalObjectName, variants, onReady));
+            return true;
+        } catch (RejectedExecutionException e) {
+            rejectedJobs.increment();
+            log.warn("Derivative queue {} is full, serving {} without variants", name, originalObjectName);
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Shutting down with {} derivative jobs still queued in {}", executor.getQueue().size(), name);
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+
+    private void generate(String originalObjectName, Set<ImageVariant> variants,
+                          Consumer<Map<ImageVariant, String>> onReady) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String result = "success";
+        try {
+            Map<ImageVariant, byte[]> rendered;
+            try (InputStream original = mediaStorage.open(originalObjectName)) {
+                rendered = ImageDerivatives.render(original, variants, quality, maxSourcePixels);
+            }
+
+            Map<ImageVariant, String> urls = new EnumMap<>(ImageVariant.class);
+            for (Map.Entry<ImageVariant, byte[]> entry : rendered.entrySet()) {
+                String objectName = MediaObjectNames.forVariant(originalObjectName, entry.getKey());
+                urls.put(entry.getKey(), mediaStorage.store(objectName, "image/jpeg", new ByteArrayInputStream(entry.getValue())));
+            }
+            onReady.accept(urls);
+        } catch (Exception e) {
+            result = "failure";
+            log.warn("Failed to generate derivatives for {}: {}", originalObjectName, e.getMessage());
+        } finally {
+            sample.stop(meterRegistry.timer("media.derivatives.generate", "pipeline", name, "result", result));
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.instagram.common.media;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Renders {@link ImageVariant}s as progressive JPEGs using only the JDK's ImageIO and Java2D, so it
+ * runs headless with no native libraries. The source is decoded once, subsampled while reading to about
+ * twice the largest variant, which keeps the decoded raster small even for full-resolution camera images.
+ * ImageIO ignores the EXIF Orientation tag, so it is read from the JPEG's APP1 segment and applied to the
+ * decoded raster; otherwise portrait phone photos would come out sideways.
+ */
+public final class ImageDerivatives {
+
+    private static final String JPEG_METADATA_FORMAT = "javax_imageio_jpeg_image_1.0";
+    private static final int APP1_MARKER = 0xE1;
+    private static final int ORIENTATION_TAG = 0x0112;
+
+    private ImageDerivatives() {
+    }
+
+    public static Map<ImageVariant, byte[]> render(InputStream source, Collection<ImageVariant> variants,
+                                                   float quality, long maxSourcePixels) throws IOException {
+        BufferedImage image = decode(source, variants, maxSourcePixels);
+        Map<ImageVariant, byte[]> rendered = new EnumMap<>(ImageVariant.class);
+        for (ImageVariant variant : variants) {
+            rendered.put(variant, encodeJpeg(resize(image, variant), quality));
+        }
+        return rendered;
+    }
+
+    private static BufferedImage decode(InputStream source, Collection<ImageVariant> variants,
+                                        long maxSourcePixels) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source)) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                // Metadata is kept so the EXIF orientation can be read
+                reader.setInput(input, true, false);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                // Checked from the header, before any pixels are allocated
+                if ((long) width * height > maxSourcePixels) {
+                    throw new IOException("Image is too large: " + width + "x" + height);
+                }
+
+                int orientation = orientation(reader);
+                // Orientations 5-8 swap the axes, so variants are sized against the upright dimensions
+                boolean transposed = orientation >= 5;
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = transposed
+                        ? subsampling(height, width, variants)
+                        : subsampling(width, height, variants);
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return orient(reader.read(0, param), orientation);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * The EXIF Orientation (1-8) from the first image's APP1 segment, or 1 when there is none.
+     */
+    private static int orientation(ImageReader reader) {
+        try {
+            IIOMetadata metadata = reader.getImageMetadata(0);
+            if (metadata == null || !Arrays.asList(metadata.getMetadataFormatNames()).contains(JPEG_METADATA_FORMAT)) {
+                return 1;
+            }
+
+            // APP1 is not a marker the JPEG plugin models, so it surfaces as an "unknown" node holding the raw bytes
+            Node markers = findChild(metadata.getAsTree(JPEG_METADATA_FORMAT), "markerSequence");
+            for (Node marker = markers != null ? markers.getFirstChild() : null; marker != null; marker = marker.getNextSibling()) {
+                if ("unknown".equals(marker.getNodeName())
+                        && String.valueOf(APP1_MARKER).equals(((Element) marker).getAttribute("MarkerTag"))
+                        && ((IIOMetadataNode) marker).getUserObject() instanceof byte[] data) {
+                    int orientation = exifOrientation(data);
+                    if (orientation != 0) {
+                        return orientation;
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Unreadable metadata is no reason to reject an image that decodes
+        }
+        return 1;
+    }
+
+    /**
+     * Reads the Orientation tag from an APP1 payload ("Exif\0\0" then a TIFF header and IFD0), or returns 0.
+     */
+    private static int exifOrientation(byte[] data) {
+        if (data.length < 14 || data[0] != 'E' || data[1] != 'x' || data[2] != 'i' || data[3] != 'f') {
+            return 0;
+        }
+
+        ByteBuffer tiff = ByteBuffer.wrap(data, 6, data.length - 6).slice();
+        tiff.order(tiff.get(0) == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        int ifd = tiff.getInt(4);
+        if (ifd < 8 || ifd + 2 > tiff.limit()) {
+            return 0;
+        }
+
+        int entries = tiff.getShort(ifd) & 0xffff;
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > tiff.limit()) {
+                return 0;
+            }
+            if ((tiff.getShort(entry) & 0xffff) == ORIENTATION_TAG) {
+                int orientation = tiff.getShort(entry + 8) & 0xffff;
+                return orientation >= 1 && orientation <= 8 ? orientation : 0;
+            }
+        }
+        return 0;
+    }
+
+    private static Node findChild(Node parent, String name) {
+        for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (name.equals(child.getNodeName())) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Turns the decoded raster upright. Each transform maps source pixel cells exactly onto target cells,
+     * so nearest-neighbour drawing moves pixels without resampling them.
+     */
+    private static BufferedImage orient(BufferedImage source, int orientation) {
+        int w = source.getWidth();
+        int h = source.getHeight();
+        AffineTransform transform = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, w, 0);   // mirrored
+            case 3 -> new AffineTransform(-1, 0, 0, -1, w, h);  // rotated 180
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, h);   // flipped vertically
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);    // transposed
+            case 6 -> new AffineTransform(0, 1, -1, 0, h, 0);   // rotated 90 clockwise
+            case 7 -> new AffineTransform(0, -1, -1, 0, h, w);  // transversed
+            case 8 -> new AffineTransform(0, -1, 1, 0, 0, w);   // rotated 90 counter-clockwise
+            default -> null;
+        };
+        if (transform == null) {
+            return source;
+        }
+
+        boolean transposed = orientation >= 5;
+        BufferedImage target = new BufferedImage(transposed ? h : w, transposed ? w : h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, target.getWidth(), target.getHeight());
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+            graphics.drawImage(source, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private static int subsampling(int width, int height, Collection<ImageVariant> variants) {
+        // The largest fraction of the source any variant needs; decoding at twice that leaves headroom for filtering
+        double scale = 0;
+        for (ImageVariant variant : variants) {
+            int edge = variant.isSquare() ? Math.min(width, height) : width;
+            scale = Math.max(scale, (double) variant.getSize() / edge);
+        }
+        return scale >= 0.5 ? 1 : (int) (1 / (2 * scale));
+    }
+
+    private static BufferedImage resize(BufferedImage source, ImageVariant variant) {
+        BufferedImage current = source;
+        int targetWidth;
+        int targetHeight;
+        if (variant.isSquare()) {
+            int edge = Math.min(source.getWidth(), source.getHeight());
+            current = source.getSubimage((source.getWidth() - edge) / 2, (source.getHeight() - edge) / 2, edge, edge);
+            targetWidth = Math.min(edge, variant.getSize());
+            targetHeight = targetWidth;
+        } else {
+            targetWidth = Math.min(source.getWidth(), variant.getSize());
+            targetHeight = Math.max(1, (int) Math.round((double) source.getHeight() * targetWidth / source.getWidth()));
+        }
+
+        // Halving in bilinear steps approximates an area-averaging downscale at a fraction of its cost
+        while (current.getWidth() / 2 >= targetWidth && current.getHeight() / 2 >= targetHeight) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2);
+        }
+        return draw(current, targetWidth, targetHeight);
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            // JPEG has no alpha channel, so transparent areas are flattened onto white
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
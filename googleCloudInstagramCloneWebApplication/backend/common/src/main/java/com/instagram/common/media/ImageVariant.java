@@ -0,0 +1,21 @@
+package com.instagram.common.media;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Downscaled renditions generated from uploaded images. Square variants are center-cropped to
+ * {@code size} x {@code size}; the others keep their aspect ratio and are at most {@code size} wide.
+ * Images smaller than a variant are never upscaled.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ImageVariant {
+
+    THUMBNAIL(320, true),
+    FEED(1080, false),
+    AVATAR(160, true);
+
+    private final int size;
+    private final boolean square;
+}
@@ -0,0 +1,54 @@
+package com.instagram.common.media;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Filesystem-backed media storage for tests and local runs without GCS.
+ */
+@Slf4j
+public class LocalMediaStorage implements MediaStorage {
+
+    private final Path root;
+    private final String baseUrl;
+
+    public LocalMediaStorage(String root, String baseUrl) {
+        this.root = Path.of(root).toAbsolutePath().normalize();
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    }
+
+    @Override
+    public String store(String objectName, String contentType, InputStream content) throws IOException {
+        Path target = resolve(objectName);
+        Files.createDirectories(target.getParent());
+        Files.copy(content, target, StandardCopyOption.REPLACE_EXISTING);
+        return baseUrl + "/" + objectName;
+    }
+
+    @Override
+    public InputStream open(String objectName) throws IOException {
+        return Files.newInputStream(resolve(objectName));
+    }
+
+    @Override
+    public void delete(String objectName) {
+        try {
+            Files.deleteIfExists(resolve(objectName));
+        } catch (IOException e) {
+            log.warn("Failed to delete local media {}: {}", objectName, e.getMessage());
+        }
+    }
+
+    private Path resolve(String objectName) {
+        Path path = root.resolve(objectName).normalize();
+        if (!path.startsWith(root)) {
+            throw new IllegalArgumentException("Object name escapes the media root: " + objectName);
+        }
+        return path;
+    }
+}
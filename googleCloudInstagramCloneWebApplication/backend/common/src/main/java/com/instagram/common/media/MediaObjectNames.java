@@ -0,0 +1,44 @@
+package com.instagram.common.media;
+
+import java.util.Locale;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Naming for stored media objects: uploads get a random name under their owner's directory, and
+ * derivatives sit beside their original.
+ */
+public final class MediaObjectNames {
+
+    private static final Pattern SAFE_EXTENSION = Pattern.compile("\\.[A-Za-z0-9]{1,10}");
+
+    private MediaObjectNames() {
+    }
+
+    /**
+     * Returns {@code <directory>/<random UUID><extension>}, keeping the original file's extension only
+     * when it is a plain alphanumeric suffix, since the client controls the filename.
+     */
+    public static String forUpload(String directory, String originalFilename) {
+        String objectName = directory + "/" + UUID.randomUUID();
+        if (originalFilename != null) {
+            int lastDotIndex = originalFilename.lastIndexOf('.');
+            String extension = lastDotIndex > 0 ? originalFilename.substring(lastDotIndex) : "";
+            if (SAFE_EXTENSION.matcher(extension).matches()) {
+                objectName += extension;
+            }
+        }
+        return objectName;
+    }
+
+    /**
+     * Returns the derivative's name: the original's name with its extension replaced by
+     * {@code _<variant>.jpg}.
+     */
+    public static String forVariant(String originalObjectName, ImageVariant variant) {
+        int lastSlash = originalObjectName.lastIndexOf('/');
+        int lastDot = originalObjectName.lastIndexOf('.');
+        String base = lastDot > lastSlash ? originalObjectName.substring(0, lastDot) : originalObjectName;
+        return base + "_" + variant.name().toLowerCase(Locale.ROOT) + ".jpg";
+    }
+}
@@ -0,0 +1,26 @@
+package com.instagram.common.media;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Object storage for user-uploaded media. Implementations stream content rather than buffering whole
+ * files, and may be called from several upload and derivative threads at once.
+ */
+public interface MediaStorage {
+
+    /**
+     * Writes the content under the given object name and returns the URL it is served from.
+     */
+    String store(String objectName, String contentType, InputStream content) throws IOException;
+
+    /**
+     * Opens a stored object for reading. The caller closes the stream.
+     */
+    InputStream open(String objectName) throws IOException;
+
+    /**
+     * Removes the object if it exists. Used to clean up after uploads whose owning row was never saved.
+     */
+    void delete(String objectName);
+}
@@ -0,0 +1,168 @@
+package com.instagram.common.resilience;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.core.IntervalFunction;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedRetryMetrics;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Guards calls to peer services. Each downstream gets its own circuit breaker, semaphore bulkhead and
+ * retry, composed as retry(breaker(bulkhead(call))): a slow or failing downstream can hold at most its
+ * bulkhead's share of request threads, and once its breaker opens callers fail fast instead of waiting
+ * on timeouts. Only I/O errors and 5xx responses are retried, with jittered exponential backoff, so
+ * callers must only route idempotent requests through here.
+ * <p>
+ * Downstreams are named after their {@code <service>.service.url} prefix (user, post, feed, like,
+ * comment); {@code resilience.downstreams.<name>.*} overrides the bulkhead size, retry attempts and the
+ * breaker's slow-call threshold. Long-running calls such as streams use a guard of their own (e.g.
+ * {@code user-stream}) so their durations never count as slow calls against the regular downstream.
+ */
+@Component
+@Slf4j
+public class DownstreamCalls {
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final BulkheadRegistry bulkheads;
+    private final RetryRegistry retries;
+    private final CircuitBreakerConfig defaultCircuitBreakerConfig;
+    private final BulkheadConfig defaultBulkheadConfig;
+    private final RetryConfig defaultRetryConfig;
+    private final Map<String, Guard> guards = new ConcurrentHashMap<>();
+
+    public DownstreamCalls(Environment environment, MeterRegistry meterRegistry) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+
+        this.defaultCircuitBreakerConfig = CircuitBreakerConfig.custom()
+                .slidingWindowSize(property("resilience.circuit-breaker.sliding-window", 50))
+                .minimumNumberOfCalls(property("resilience.circuit-breaker.minimum-calls", 20))
+                .failureRateThreshold(property("resilience.circuit-breaker.failure-rate-threshold", 50))
+                .slowCallRateThreshold(property("resilience.circuit-breaker.slow-call-rate-threshold", 80))
+                .slowCallDurationThreshold(Duration.ofMillis(property("resilience.circuit-breaker.slow-call-duration", 1000)))
+                .waitDurationInOpenState(Duration.ofMillis(property("resilience.circuit-breaker.open-duration", 10000)))
+                .permittedNumberOfCallsInHalfOpenState(property("resilience.circuit-breaker.half-open-calls", 5))
+                // A 4xx means the downstream is healthy, and a full bulkhead is already counted separately
+                .ignoreExceptions(HttpClientErrorException.class, BulkheadFullException.class)
+                .build();
+        this.defaultBulkheadConfig = BulkheadConfig.custom()
+                .maxConcurrentCalls(property("resilience.bulkhead.max-concurrent-calls", 25))
+                .maxWaitDuration(Duration.ofMillis(property("resilience.bulkhead.max-wait", 0)))
+                .build();
+        this.defaultRetryConfig = RetryConfig.custom()
+                .maxAttempts(property("resilience.retry.max-attempts", 3))
+                .intervalFunction(IntervalFunction.ofExponentialRandomBackoff(
+                        Duration.ofMillis(property("resilience.retry.initial-backoff", 50)), 2.0, 0.5))
+                .retryExceptions(ResourceAccessException.class, HttpServerErrorException.class)
+                .build();
+
+        this.circuitBreakers = CircuitBreakerRegistry.of(defaultCircuitBreakerConfig);
+        this.bulkheads = BulkheadRegistry.of(defaultBulkheadConfig);
+        this.retries = RetryRegistry.of(defaultRetryConfig);
+
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakers).bindTo(meterRegistry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheads).bindTo(meterRegistry);
+        TaggedRetryMetrics.ofRetryRegistry(retries).bindTo(meterRegistry);
+    }
+
+    /**
+     * Runs the call under the downstream's guards. Failures, open breakers and full bulkheads propagate.
+     */
+    public <T> T call(String downstream, Supplier<T> call) {
+        return guard(downstream).decorate(call).get();
+    }
+
+    /**
+     * Runs the call under the downstream's guards, answering with the fallback when it cannot complete.
+     */
+    public <T> T call(String downstream, Supplier<T> call, Supplier<T> fallback) {
+        try {
+            return call(downstream, call);
+        } catch (Exception e) {
+            log.warn("Call to {} failed, using fallback: {}", downstream, e.getMessage());
+            return fallback.get();
+        }
+    }
+
+    public void run(String downstream, Runnable call) {
+        call(downstream, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    private Guard guard(String downstream) {
+        return guards.computeIfAbsent(downstream, this::createGuard);
+    }
+
+    private Guard createGuard(String downstream) {
+        String prefix = "resilience.downstreams." + downstream + ".";
+        CircuitBreaker circuitBreaker = circuitBreakers.circuitBreaker(downstream, CircuitBreakerConfig.from(defaultCircuitBreakerConfig)
+                .slowCallDurationThreshold(Duration.ofMillis(property(prefix + "slow-call-duration",
+                        (int) defaultCircuitBreakerConfig.getSlowCallDurationThreshold().toMillis())))
+                .build());
+        Bulkhead bulkhead = bulkheads.bulkhead(downstream, BulkheadConfig.from(defaultBulkheadConfig)
+                .maxConcurrentCalls(property(prefix + "max-concurrent-calls", defaultBulkheadConfig.getMaxConcurrentCalls()))
+                .build());
+        Retry retry = retries.retry(downstream, RetryConfig.from(defaultRetryConfig)
+                .maxAttempts(property(prefix + "max-attempts", defaultRetryConfig.getMaxAttempts()))
+                .build());
+
+        circuitBreaker.getEventPublisher().onStateTransition(event -> {
+            CircuitBreaker.StateTransition transition = event.getStateTransition();
+            log.warn("Circuit breaker for {} moved from {} to {}", downstream, transition.getFromState(), transition.getToState());
+            Counter.builder("resilience.circuitbreaker.transitions")
+                    .description("Circuit breaker state transitions")
+                    .tag("downstream", downstream)
+                    .tag("from", transition.getFromState().name())
+                    .tag("to", transition.getToState().name())
+                    .register(meterRegistry)
+                    .increment();
+        });
+
+        Counter bulkheadRejections = Counter.builder("resilience.bulkhead.rejected")
+                .description("Calls rejected because the downstream's bulkhead was full")
+                .tag("downstream", downstream)
+                .register(meterRegistry);
+        bulkhead.getEventPublisher().onCallRejected(event -> bulkheadRejections.increment());
+
+        return new Guard(circuitBreaker, bulkhead, retry);
+    }
+
+    private int property(String name, int defaultValue) {
+        return environment.getProperty(name, Integer.class, defaultValue);
+    }
+
+    private record Guard(CircuitBreaker circuitBreaker, Bulkhead bulkhead, Retry retry) {
+
+        <T> Supplier<T> decorate(Supplier<T> call) {
+            return Retry.decorateSupplier(retry,
+                    CircuitBreaker.decorateSupplier(circuitBreaker,
+                            Bulkhead.decorateSupplier(bulkhead, call)));
+        }
+    }
+}
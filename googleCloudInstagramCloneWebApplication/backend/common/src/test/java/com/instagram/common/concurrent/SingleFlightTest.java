@@ -0,0 +1,190 @@
+package com.instagram.common.concurrent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SingleFlight<Integer, String> singleFlight = new SingleFlight<>("test", meterRegistry);
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallersForOneKeyShareASingleCall() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        Future<String> owner = callers.submit(() -> singleFlight.execute(1, () -> {
+            calls.incrementAndGet();
+            await(release);
+            return "one";
+        }));
+        waitUntil(() -> calls.get() == 1);
+
+        List<Future<String>> joiners = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            joiners.add(callers.submit(() -> singleFlight.execute(1, () -> "duplicate call")));
+        }
+        waitUntil(() -> count("coalesced") == 4);
+        release.countDown();
+
+        assertThat(owner.get(5, TimeUnit.SECONDS)).isEqualTo("one");
+        for (Future<String> joiner : joiners) {
+            assertThat(joiner.get(5, TimeUnit.SECONDS)).isEqualTo("one");
+        }
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(count("executed")).isEqualTo(1);
+    }
+
+    @Test
+    void nothingIsCachedOnceACallCompletes() {
+        assertThat(singleFlight.execute(1, () -> "first")).isEqualTo("first");
+        assertThat(singleFlight.execute(1, () -> "second")).isEqualTo("second");
+
+        assertThat(count("executed")).isEqualTo(2);
+        assertThat(count("coalesced")).isZero();
+    }
+
+    @Test
+    void joinersSeeTheOwnersException() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> owner = callers.submit(() -> singleFlight.execute(1, () -> {
+            await(release);
+            throw new IllegalStateException("boom");
+        }));
+        waitUntil(() -> count("executed") == 1);
+        Future<String> joiner = callers.submit(() -> singleFlight.execute(1, () -> "duplicate call"));
+        waitUntil(() -> count("coalesced") == 1);
+        release.countDown();
+
+        assertThatThrownBy(() -> owner.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> joiner.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .cause().isInstanceOf(IllegalStateException.class).hasMessage("boom");
+        // The failed flight is gone, so the key can be loaded again
+        assertThat(singleFlight.execute(1, () -> "retry")).isEqualTo("retry");
+    }
+
+    @Test
+    void overlappingBatchLoadsItsOwnKeysBeforeJoiningAnothers() throws Exception {
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        List<List<Integer>> loaded = new ArrayList<>();
+        Future<Map<Integer, String>> first = callers.submit(() -> singleFlight.executeAll(List.of(1, 2), keys -> {
+            record(loaded, keys);
+            await(releaseFirst);
+            return Map.of(1, "one", 2, "two");
+        }));
+        waitUntil(() -> size(loaded) == 1);
+
+        // Owns 3 and joins 2; its own load must not wait for the first batch
+        CountDownLatch secondLoaded = new CountDownLatch(1);
+        Future<Map<Integer, String>> second = callers.submit(() -> singleFlight.executeAll(List.of(2, 3), keys -> {
+            record(loaded, keys);
+            secondLoaded.countDown();
+            return Map.of(3, "three");
+        }));
+        assertThat(secondLoaded.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(second.isDone()).isFalse();
+        releaseFirst.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(Map.of(1, "one", 2, "two"));
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(Map.of(2, "two", 3, "three"));
+        assertThat(loaded).containsExactly(List.of(1, 2), List.of(3));
+        assertThat(count("executed")).isEqualTo(3);
+        assertThat(count("coalesced")).isEqualTo(1);
+    }
+
+    @Test
+    void keysTheLoaderDoesNotReturnAreAbsentForOwnersAndJoiners() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Map<Integer, String>> owner = callers.submit(() -> singleFlight.executeAll(List.of(1, 2), keys -> {
+            await(release);
+            return Map.of(1, "one");
+        }));
+        waitUntil(() -> count("executed") == 2);
+        Future<Map<Integer, String>> joiner = callers.submit(() -> singleFlight.executeAll(List.of(2), keys -> Map.of(2, "duplicate call")));
+        waitUntil(() -> count("coalesced") == 1);
+        release.countDown();
+
+        assertThat(owner.get(5, TimeUnit.SECONDS)).isEqualTo(Map.of(1, "one"));
+        assertThat(joiner.get(5, TimeUnit.SECONDS)).isEmpty();
+    }
+
+    @Test
+    void failingLoaderFailsEveryOwnedKeyForItsJoiners() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Map<Integer, String>> owner = callers.submit(() -> singleFlight.executeAll(List.of(1, 2), keys -> {
+            await(release);
+            throw new IllegalStateException("loader failed");
+        }));
+        waitUntil(() -> count("executed") == 2);
+        Future<Map<Integer, String>> joiner = callers.submit(() -> singleFlight.executeAll(List.of(2, 1), keys -> Map.of()));
+        waitUntil(() -> count("coalesced") == 2);
+        release.countDown();
+
+        assertThatThrownBy(() -> owner.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> joiner.get(5, TimeUnit.SECONDS))
+                .cause().isInstanceOf(IllegalStateException.class).hasMessage("loader failed");
+        // Both flights were released, so the next batch loads them itself
+        assertThat(singleFlight.executeAll(List.of(1, 2), keys -> Map.of(1, "one", 2, "two")))
+                .isEqualTo(Map.of(1, "one", 2, "two"));
+        assertThat(count("executed")).isEqualTo(4);
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("singleflight.calls").tag("name", "test").tag("result", result).counter().count();
+    }
+
+    private static void record(List<List<Integer>> loaded, List<Integer> keys) {
+        synchronized (loaded) {
+            loaded.add(List.copyOf(keys));
+        }
+    }
+
+    private static int size(List<List<Integer>> loaded) {
+        synchronized (loaded) {
+            return loaded.size();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Test latch was never released");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Condition not reached within 5s");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.instagram.common.media;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Derivative generation throughput and memory, headless: {@code render} is one upload's variants on the
+ * calling thread, {@code pipeline} a burst of uploads through the worker queue into
+ * {@link LocalMediaStorage}. The GC profiler reports allocation per operation ({@code gc.alloc.rate.norm}).
+ * Run with {@code mvn -pl common test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.instagram.common.media.ImageDerivativesBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Xmx1g"})
+public class ImageDerivativesBenchmark {
+
+    private static final int PIPELINE_JOBS = 32;
+    // media.derivatives.quality and max-source-pixels defaults
+    private static final float QUALITY = 0.8f;
+    private static final long MAX_SOURCE_PIXELS = 50_000_000L;
+    private static final Set<ImageVariant> POST_VARIANTS = EnumSet.of(ImageVariant.THUMBNAIL, ImageVariant.FEED);
+
+    // A feed-sized upload and a 12 MP phone camera photo
+    @Param({"1080x1350", "4032x3024"})
+    private String sourceSize;
+
+    private byte[] source;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String[] dimensions = sourceSize.split("x");
+        source = SampleImages.jpeg(Integer.parseInt(dimensions[0]), Integer.parseInt(dimensions[1]));
+    }
+
+    /**
+     * Originals stored in a temporary {@link LocalMediaStorage} and a pipeline reading them back.
+     */
+    @State(Scope.Benchmark)
+    public static class PipelineState {
+
+        // Pipeline workers; post-service runs 2 and user-service 1 by default
+        @Param({"1", "2", "4"})
+        private int threads;
+
+        private Path mediaRoot;
+        private ImageDerivativePipeline pipeline;
+
+        @Setup(Level.Trial)
+        public void setUp(ImageDerivativesBenchmark benchmark) throws IOException {
+            mediaRoot = Files.createTempDirectory("derivatives-benchmark");
+            LocalMediaStorage storage = new LocalMediaStorage(mediaRoot.toString(), "http://localhost/media");
+            for (int i = 0; i < PIPELINE_JOBS; i++) {
+                storage.store(originalName(i), "image/jpeg", new ByteArrayInputStream(benchmark.source));
+            }
+            pipeline = new ImageDerivativePipeline("benchmark", storage, threads, PIPELINE_JOBS, QUALITY,
+                    MAX_SOURCE_PIXELS, new SimpleMeterRegistry());
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            pipeline.close();
+            try (var paths = Files.walk(mediaRoot)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    @Benchmark
+    public Map<ImageVariant, byte[]> render() throws IOException {
+        return ImageDerivatives.render(new ByteArrayInputStream(source), POST_VARIANTS, QUALITY, MAX_SOURCE_PIXELS);
+    }
+
+    @Benchmark
+    public Map<ImageVariant, byte[]> renderAvatar() throws IOException {
+        return ImageDerivatives.render(new ByteArrayInputStream(source), EnumSet.of(ImageVariant.AVATAR),
+                QUALITY, MAX_SOURCE_PIXELS);
+    }
+
+    // Rendering runs on the workers, so allocation shows in gc.alloc.rate rather than the per-operation norm
+    @Benchmark
+    @OperationsPerInvocation(PIPELINE_JOBS)
+    public void pipeline(PipelineState state) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(PIPELINE_JOBS);
+        for (int i = 0; i < PIPELINE_JOBS; i++) {
+            if (!state.pipeline.submit(originalName(i), POST_VARIANTS, urls -> done.countDown())) {
+                done.countDown();
+            }
+        }
+        if (!done.await(5, TimeUnit.MINUTES)) {
+            throw new IllegalStateException("Derivative jobs did not finish");
+        }
+    }
+
+    private static String originalName(int i) {
+        return "posts/benchmark/original-" + i + ".jpg";
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ImageDerivativesBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
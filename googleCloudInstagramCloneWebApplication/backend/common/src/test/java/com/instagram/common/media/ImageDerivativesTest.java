@@ -0,0 +1,96 @@
+package com.instagram.common.media;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ImageDerivativesTest {
+
+    @Test
+    void rendersSquareAndAspectPreservingVariants() throws IOException {
+        Map<ImageVariant, byte[]> rendered = ImageDerivatives.render(
+                new ByteArrayInputStream(SampleImages.jpeg(2400, 1600)), EnumSet.allOf(ImageVariant.class), 0.8f, 50_000_000L);
+
+        assertSize(rendered.get(ImageVariant.THUMBNAIL), 320, 320);
+        assertSize(rendered.get(ImageVariant.FEED), 1080, 720);
+        assertSize(rendered.get(ImageVariant.AVATAR), 160, 160);
+    }
+
+    @Test
+    void neverUpscalesSmallSources() throws IOException {
+        Map<ImageVariant, byte[]> rendered = ImageDerivatives.render(
+                new ByteArrayInputStream(SampleImages.jpeg(200, 100)), EnumSet.of(ImageVariant.THUMBNAIL, ImageVariant.FEED),
+                0.8f, 50_000_000L);
+
+        assertSize(rendered.get(ImageVariant.THUMBNAIL), 100, 100);
+        assertSize(rendered.get(ImageVariant.FEED), 200, 100);
+    }
+
+    @Test
+    void turnsSidewaysCameraImagesUprightFromTheExifOrientation() throws IOException {
+        // Stored landscape, tagged "rotate 90 clockwise": the upright image is portrait
+        Map<ImageVariant, byte[]> rendered = ImageDerivatives.render(
+                new ByteArrayInputStream(SampleImages.jpeg(2400, 1600, 6)), EnumSet.of(ImageVariant.FEED),
+                0.8f, 50_000_000L);
+
+        assertSize(rendered.get(ImageVariant.FEED), 1080, 1620);
+
+        // Green grows down the stored raster, so after a clockwise turn it grows right to left
+        BufferedImage feed = ImageIO.read(new ByteArrayInputStream(rendered.get(ImageVariant.FEED)));
+        int left = (feed.getRGB(feed.getWidth() / 4, feed.getHeight() / 2) >> 8) & 0xff;
+        int right = (feed.getRGB(feed.getWidth() * 3 / 4, feed.getHeight() / 2) >> 8) & 0xff;
+        assertThat(left - right).isGreaterThan(80);
+    }
+
+    @Test
+    void rejectsSourcesAboveThePixelLimitFromTheHeader()throws IOException {
+        byte[] source = SampleImages.jpeg(400, 300);
+
+        assertThatThrownBy(() -> ImageDerivatives.render(new ByteArrayInputStream(source),
+                EnumSet.of(ImageVariant.FEED), 0.8f, 400 * 300 - 1))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("too large");
+    }
+
+    @Test
+    void pipelineStoresVariantsBesideTheOriginal(@TempDir Path root) throws Exception {
+        LocalMediaStorage storage = new LocalMediaStorage(root.toString(), "http://localhost/media/");
+        storage.store("posts/u1/original.png", "image/jpeg", new ByteArrayInputStream(SampleImages.jpeg(1200, 900)));
+
+        CompletableFuture<Map<ImageVariant, String>> ready = new CompletableFuture<>();
+        try (ImageDerivativePipeline pipeline = new ImageDerivativePipeline("test", storage, 1, 4, 0.8f,
+                50_000_000L, new SimpleMeterRegistry())) {
+            assertThat(pipeline.submit("posts/u1/original.png", EnumSet.of(ImageVariant.THUMBNAIL, ImageVariant.FEED),
+                    ready::complete)).isTrue();
+
+            assertThat(ready.get(30, TimeUnit.SECONDS)).containsExactly(
+                    Map.entry(ImageVariant.THUMBNAIL, "http://localhost/media/posts/u1/original_thumbnail.jpg"),
+                    Map.entry(ImageVariant.FEED, "http://localhost/media/posts/u1/original_feed.jpg"));
+        }
+        assertThat(root.resolve("posts/u1/original_thumbnail.jpg")).exists();
+        try (InputStream feed = Files.newInputStream(root.resolve("posts/u1/original_feed.jpg"))) {
+            assertThat(ImageIO.read(feed).getWidth()).isEqualTo(1080);
+        }
+    }
+
+    private static void assertSize(byte[] jpeg, int width, int height) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(jpeg));
+        assertThat(image.getWidth()).isEqualTo(width);
+        assertThat(image.getHeight()).isEqualTo(height);
+    }
+}
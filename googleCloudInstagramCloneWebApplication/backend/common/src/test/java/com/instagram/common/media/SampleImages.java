@@ -0,0 +1,61 @@
+package com.instagram.common.media;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * Photo-like JPEGs for tests and benchmarks: smooth gradients with per-pixel noise, so they compress
+ * and decode more like camera images than flat fills do.
+ */
+final class SampleImages {
+
+    private SampleImages() {
+    }
+
+    static byte[] jpeg(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(width * 31L + height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int noise = random.nextInt(24);
+                int r = (x * 255 / width + noise) & 0xff;
+                int g = (y * 255 / height + noise) & 0xff;
+                int b = ((x + y) * 127 / (width + height) + noise) & 0xff;
+                image.setRGB(x, y, (r << 16) | (g << 8) | b);
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", out);
+        return out.toByteArray();
+    }
+
+    /**
+     * A {@link #jpeg} stored sideways the way cameras do it: raster as captured, plus an EXIF APP1 segment
+     * whose Orientation tag says how to turn it upright.
+     */
+    static byte[] jpeg(int width, int height, int orientation) throws IOException {
+        byte[] jpeg = jpeg(width, height);
+
+        // "Exif\0\0", then a big-endian TIFF header with a single IFD0 entry: Orientation (SHORT, count 1)
+        ByteBuffer app1 = ByteBuffer.allocate(2 + 2 + 6 + 8 + 2 + 12 + 4);
+        app1.putShort((short) 0xFFE1).putShort((short) (app1.capacity() - 2));
+        app1.put(new byte[] {'E', 'x', 'i', 'f', 0, 0});
+        app1.put(new byte[] {'M', 'M'}).putShort((short) 42).putInt(8);
+        app1.putShort((short) 1);
+        app1.putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0);
+        app1.putInt(0);
+
+        // After SOI and the JFIF APP0 segment ImageIO writes
+        int insertAt = 4 + (((jpeg[4] & 0xff) << 8) | (jpeg[5] & 0xff));
+        ByteArrayOutputStream out = new ByteArrayOutputStream(jpeg.length + app1.capacity());
+        out.write(jpeg, 0, insertAt);
+        out.write(app1.array());
+        out.write(jpeg, insertAt, jpeg.length - insertAt);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,138 @@
+package com.instagram.feed.config;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.instagram.common.dto.PagedResponse;
+import com.instagram.common.dto.PostDto;
+import com.instagram.feed.service.CachedFeedPage;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Stores cached feed pages as Smile (binary JSON) bound to {@link CachedFeedPage}, so values carry no
+ * class metadata, and deflates them above a size threshold. Every value starts with a one-byte format
+ * marker; bare {@code PagedResponse<PostDto>} values (formats 1 and 2) and values without a marker, which
+ * are JSON written by the previous serializer, are still readable until they expire.
+ */
+public class CompactFeedPageSerializer implements RedisSerializer<Object> {
+
+    private static final byte FORMAT_SMILE = 1;
+    private static final byte FORMAT_SMILE_DEFLATE = 2;
+    private static final byte FORMAT_ENVELOPE = 3;
+    private static final byte FORMAT_ENVELOPE_DEFLATE = 4;
+
+    private final ObjectReader pageReader;
+    private final ObjectWriter pageWriter;
+    private final ObjectReader envelopeReader;
+    private final ObjectWriter envelopeWriter;
+    private final int compressionThreshold;
+    private final RedisSerializer<Object> legacySerializer = new GenericJackson2JsonRedisSerializer();
+    private final DistributionSummary valueSize;
+
+    public CompactFeedPageSerializer(int compressionThreshold, MeterRegistry meterRegistry) {
+        ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+        JavaType pageType = smileMapper.getTypeFactory()
+                .constructParametricType(PagedResponse.class, PostDto.class);
+        this.pageReader = smileMapper.readerFor(pageType);
+        this.pageWriter = smileMapper.writerFor(pageType);
+        this.envelopeReader = smileMapper.readerFor(CachedFeedPage.class);
+        this.envelopeWriter = smileMapper.writerFor(CachedFeedPage.class);
+        this.compressionThreshold = compressionThreshold;
+        this.valueSize = DistributionSummary.builder("feed.cache.value.size")
+                .description("Serialized size of cached feed pages")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+
+        try {
+            boolean envelope = value instanceof CachedFeedPage;
+            byte[] smile = envelope ? envelopeWriter.writeValueAsBytes(value) : pageWriter.writeValueAsBytes(value);
+            byte[] encoded = smile.length >= compressionThreshold
+                    ? withFormat(envelope ? FORMAT_ENVELOPE_DEFLATE : FORMAT_SMILE_DEFLATE, deflate(smile))
+                    : withFormat(envelope ? FORMAT_ENVELOPE : FORMAT_SMILE, smile);
+            valueSize.record(encoded.length);
+            return encoded;
+        } catch (IOException e) {
+            throw new SerializationException("Could not write feed page", e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+
+        try {
+            return switch (bytes[0]) {
+                case FORMAT_SMILE -> pageReader.readValue(bytes, 1, bytes.length - 1);
+                case FORMAT_SMILE_DEFLATE -> pageReader.readValue(inflate(bytes));
+                case FORMAT_ENVELOPE -> envelopeReader.readValue(bytes, 1, bytes.length - 1);
+                case FORMAT_ENVELOPE_DEFLATE -> envelopeReader.readValue(inflate(bytes));
+                default -> legacySerializer.deserialize(bytes);
+            };
+        } catch (IOException | DataFormatException e) {
+            throw new SerializationException("Could not read feed page", e);
+        }
+    }
+
+    private static byte[] withFormat(byte format, byte[] payload) {
+        byte[] encoded = new byte[payload.length + 1];
+        encoded[0] = format;
+        System.arraycopy(payload, 0, encoded, 1, payload.length);
+        return encoded;
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 2);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] encoded) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(encoded, 1, encoded.length - 1);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(encoded.length * 3);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int inflated = inflater.inflate(buffer);
+                if (inflated == 0 && inflater.needsInput()) {
+                    throw new DataFormatException("Truncated feed page");
+                }
+                out.write(buffer, 0, inflated);
+            }
+            return out.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+}
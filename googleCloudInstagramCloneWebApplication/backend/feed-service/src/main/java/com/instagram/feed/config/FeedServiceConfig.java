@@ -1,30 +1,87 @@
 package com.instagram.feed.config;
 
+import com.instagram.common.concurrent.SingleFlight;
+import com.instagram.feed.service.FeedService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Configuration
 public class FeedServiceConfig {
 
+    // Committed follow and unfollow edges, broadcast by user-service's follow-graph index
+    private static final String FOLLOW_EDGE_CHANNEL = "user:follow-graph:edges";
+
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public ThreadPoolTaskExecutor timelineFanoutExecutor(
+            @Value("${feed.timeline.fanout-threads:4}") int threads,
+            @Value("${feed.timeline.fanout-queue-capacity:10000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("timeline-fanout-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(destroyMethod = "close")
+    public ExecutorService feedAggregationExecutor() {
+        // Downstream calls are blocking HTTP, so one cheap virtual thread per call lets them overlap
+        return Executors.newVirtualThreadPerTaskExecutor();
     }
 
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
+    public SingleFlight<UUID, List<UUID>> followingLookups(MeterRegistry meterRegistry) {
+        // A hot user's feed requests arrive together and all start with the same following lookup
+        return new SingleFlight<>("following-lookups", meterRegistry);
+    }
+
+    @Bean
+    public RedisTemplate<String, Object> redisTemplate(
+            RedisConnectionFactory connectionFactory,
+            MeterRegistry meterRegistry,
+            @Value("${feed.cache.serializer:compact}") String serializer,
+            @Value("${feed.cache.compression-threshold:2048}") int compressionThreshold) {
+        // "compact" still reads JSON entries, so switching over needs no cache flush
+        RedisSerializer<Object> valueSerializer = "json".equals(serializer)
+                ? new GenericJackson2JsonRedisSerializer()
+                : new CompactFeedPageSerializer(compressionThreshold, meterRegistry);
+
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
         template.setKeySerializer(new StringRedisSerializer());
         template.setHashKeySerializer(new StringRedisSerializer());
-        template.setValueSerializer(new GenericJackson2JsonRedisSerializer());
-        template.setHashValueSerializer(new GenericJackson2JsonRedisSerializer());
+        template.setValueSerializer(valueSerializer);
+        template.setHashValueSerializer(valueSerializer);
         template.afterPropertiesSet();
         return template;
     }
+
+    @Bean
+    public RedisMessageListenerContainer followEdgeListener(RedisConnectionFactory connectionFactory,
+                                                            FeedService feedService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> feedService.onFollowEdgeMessage(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(FOLLOW_EDGE_CHANNEL));
+        return container;
+    }
 }
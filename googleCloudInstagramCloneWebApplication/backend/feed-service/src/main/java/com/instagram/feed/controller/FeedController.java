@@ -30,6 +30,34 @@ public class FeedController {
         return ResponseEntity.ok(feedService.getFeed(UUID.fromString(userId), page, size));
     }
 
+    @GetMapping("/cursor")
+    @Operation(summary = "Get user's feed using keyset pagination")
+    public ResponseEntity<PagedResponse<PostDto>> getFeedByCursor(
+            @RequestHeader("X-User-Id") String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(feedService.getFeedByCursor(UUID.fromString(userId), cursor, size));
+    }
+
+    @PostMapping("/timeline/posts")
+    @Operation(summary = "Fan out a new post to followers' timelines (internal use)")
+    public ResponseEntity<Void> fanOutPost(
+            @RequestParam UUID postId,
+            @RequestParam UUID authorId,
+            @RequestParam long timestamp) {
+        feedService.fanOutPost(authorId, postId, timestamp);
+        return ResponseEntity.accepted().build();
+    }
+
+    @DeleteMapping("/timeline/posts/{postId}")
+    @Operation(summary = "Remove a deleted post from followers' timelines (internal use)")
+    public ResponseEntity<Void> removePostFromTimelines(
+            @PathVariable UUID postId,
+            @RequestParam UUID authorId) {
+        feedService.removePostFromTimelines(authorId, postId);
+        return ResponseEntity.accepted().build();
+    }
+
     @PostMapping("/invalidate")
     @Operation(summary = "Invalidate feed cache for a user (internal use)")
     public ResponseEntity<Void> invalidateFeedCache(
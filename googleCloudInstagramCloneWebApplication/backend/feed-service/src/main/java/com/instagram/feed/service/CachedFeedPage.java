@@ -0,0 +1,32 @@
+package com.instagram.feed.service;
+
+import com.instagram.common.dto.PagedResponse;
+import com.instagram.common.dto.PostDto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A cached feed page and the time (epoch millis) after which it is served stale while being rebuilt.
+ * The Redis key's own TTL is the hard expiry.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CachedFeedPage {
+    private PagedResponse<PostDto> page;
+    private long refreshAt;
+
+    @SuppressWarnings("unchecked")
+    static CachedFeedPage from(Object cached) {
+        // Pages cached before the envelope existed are treated as due for refresh
+        if (cached instanceof PagedResponse<?> legacyPage) {
+            return new CachedFeedPage((PagedResponse<PostDto>) legacyPage, 0L);
+        }
+        return (CachedFeedPage) cached;
+    }
+
+    boolean isDueForRefresh(long nowMillis) {
+        return nowMillis >= refreshAt;
+    }
+}
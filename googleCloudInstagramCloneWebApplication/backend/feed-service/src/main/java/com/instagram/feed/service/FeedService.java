@@ -1,22 +1,51 @@
 package com.instagram.feed.service;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.instagram.common.concurrent.SingleFlight;
+import com.instagram.common.dto.LikeStatusBitmap;
+import com.instagram.common.dto.PageCursor;
 import com.instagram.common.dto.PagedResponse;
 import com.instagram.common.dto.PostDto;
+import com.instagram.common.dto.UserDto;
+import com.instagram.common.exception.BadRequestException;
+import com.instagram.common.resilience.DownstreamCalls;
+import com.instagram.feed.timeline.TimelineEntry;
+import com.instagram.feed.timeline.TimelineStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
@@ -24,7 +53,15 @@ import java.util.concurrent.TimeUnit;
 public class FeedService {
 
     private final RestTemplate restTemplate;
+    private final DownstreamCalls downstreamCalls;
     private final RedisTemplate<String, Object> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final TimelineStore timelineStore;
+    private final ThreadPoolTaskExecutor timelineFanoutExecutor;
+    private final ExecutorService feedAggregationExecutor;
+    private final MeterRegistry meterRegistry;
+    private final SingleFlight<UUID, List<UUID>> followingLookups;
+    private final ObjectMapper objectMapper;
 
     @Value("${user.service.url}")
     private String userServiceUrl;
@@ -38,149 +75,719 @@ public class FeedService {
     @Value("${feed.cache.ttl:300}")
     private long cacheTtlSeconds;
 
+    @Value("${feed.cache.soft-ttl:60}")
+    private long softTtlSeconds;
+
+    @Value("${feed.cache.stale-ttl:86400}")
+    private long staleTtlSeconds;
+
+    @Value("${feed.timeline.enabled:true}")
+    private boolean timelineEnabled;
+
+    @Value("${feed.timeline.max-size:800}")
+    private int timelineMaxSize;
+
+    @Value("${feed.timeline.fanout-threshold:10000}")
+    private long fanoutThreshold;
+
+    @Value("${feed.fanout.chunk-size:1000}")
+    private int fanoutChunkSize;
+
+    @Value("${feed.aggregation.request-budget:1500}")
+    private long requestBudgetMillis;
+
+    @Value("${feed.aggregation.call-timeout:800}")
+    private long callTimeoutMillis;
+
     private static final String FEED_CACHE_KEY = "feed:user:";
+    private static final String FEED_GENERATION_KEY = "feed:gen:";
+    private static final String STALE_FEED_KEY = "feed:stale:";
+    private static final String REFRESH_LOCK_KEY = "feed:refresh:";
+    private static final TypeReference<List<UUID>> ID_CHUNK = new TypeReference<>() {};
+    private static final int INVALIDATION_BATCH_SIZE = 1000;
+    // Largest page post-service's keyset endpoint serves; backfills and hybrid pulls walk it in these steps
+    private static final int POST_PAGE_SIZE = 100;
+    // Hybrid pages pull one post past the page size, which must stay within post-service's own limit
+    private static final int MAX_PAGE_SIZE = 50;
+
+    private static final Comparator<TimelineEntry> NEWEST_FIRST = Comparator
+            .comparingLong(TimelineEntry::timestamp).reversed()
+            .thenComparing(entry -> entry.postId().toString(), Comparator.reverseOrder());
+
+    // Cache keys with a background refresh running on this instance
+    private final Set<String> refreshesInFlight = ConcurrentHashMap.newKeySet();
+    // Users whose timeline is being backfilled by this instance
+    private final Set<UUID> backfillsInFlight = ConcurrentHashMap.newKeySet();
 
-    @SuppressWarnings("unchecked")
     public PagedResponse<PostDto> getFeed(UUID userId, int page, int size) {
-        String cacheKey = FEED_CACHE_KEY + userId + ":" + page + ":" + size;
+        String cacheKey = null;
 
         // Try cache first
         try {
-            Object cached = redisTemplate.opsForValue().get(cacheKey);
+            cacheKey = feedCacheKey(userId, page, size);
+            CachedFeedPage cached = CachedFeedPage.from(redisTemplate.opsForValue().get(cacheKey));
             if (cached != null) {
-                log.debug("Feed cache hit for user {}", userId);
-                return (PagedResponse<PostDto>) cached;
+                if (cached.isDueForRefresh(System.currentTimeMillis())) {
+                    // Past the soft TTL: answer from cache and rebuild once in the background
+                    meterRegistry.counter("feed.cache.stale.served", "reason", "soft-ttl").increment();
+                    refreshInBackground(userId, page, size, cacheKey);
+                } else {
+                    log.debug("Feed cache hit for user {}", userId);
+                }
+                return cached.getPage();
             }
         } catch (Exception e) {
             log.warn("Redis cache read failed: {}", e.getMessage());
         }
 
-        // Get following IDs
-        List<UUID> followingIds = getFollowingIds(userId);
-        
-        // Include user's own posts
-        followingIds = new ArrayList<>(followingIds);
-        followingIds.add(userId);
+        RequestBudget budget = newRequestBudget();
+        PagedResponse<PostDto> feed = buildFeed(userId, page, size, budget);
+
+        if (budget.isDegraded()) {
+            // A downstream failed or timed out: the last complete page beats a partial one
+            PagedResponse<PostDto> stale = readStaleFeed(userId, page, size);
+            return stale != null ? stale : feed;
+        }
 
-        // Fetch posts from post-service
-        PagedResponse<PostDto> feed = fetchFeedPosts(followingIds, page, size);
+        cacheFeed(userId, page, size, cacheKey, feed);
+        return feed;
+    }
 
-        // Enrich posts with like status
-        if (feed != null && feed.getContent() != null && !feed.getContent().isEmpty()) {
-            enrichPostsWithLikeStatus(feed.getContent(), userId);
+    public PagedResponse<PostDto> getFeedByCursor(UUID userId, String cursor, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BadRequestException("Page size must be between 1 and " + MAX_PAGE_SIZE);
         }
 
-        // Cache the result
+        RequestBudget budget = newRequestBudget();
+        return timelineEnabled
+                ? buildTimelineFeedByCursor(userId, PageCursor.decode(cursor), size, budget)
+                : buildPullFeedByCursor(userId, cursor, size, budget);
+    }
+
+    public void fanOutPost(UUID authorId, UUID postId, long timestamp) {
+        timelineFanoutExecutor.execute(() -> {
+            try {
+                // Authors always see their own posts
+                timelineStore.push(List.of(authorId), postId, timestamp);
+
+                if (isHighFanoutAuthor(authorId)) {
+                    if (timelineStore.markHighFanoutAuthor(authorId)) {
+                        // Followers' recorded sets predate the mark; they are derived again on their next read
+                        forEachFollowerChunk(authorId, timelineStore::forgetHighFanoutFollowing);
+                    }
+                    log.info("Skipped fan-out of post {} for high-fanout author {}", postId, authorId);
+                    return;
+                }
+
+                long pushed = forEachFollowerChunk(authorId, chunk -> timelineStore.push(chunk, postId, timestamp));
+                log.info("Fanned out post {} to {} timelines", postId, pushed);
+            } catch (Exception e) {
+                log.error("Failed to fan out post {}: {}", postId, e.getMessage());
+            }
+        });
+    }
+
+    public void removePostFromTimelines(UUID authorId, UUID postId) {
+        timelineFanoutExecutor.execute(() -> {
+            try {
+                timelineStore.remove(List.of(authorId), postId);
+                long removed = forEachFollowerChunk(authorId, chunk -> timelineStore.remove(chunk, postId));
+                log.info("Removed post {} from {} timelines", postId, removed + 1);
+            } catch (Exception e) {
+                log.error("Failed to remove post {} from timelines: {}", postId, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Keeps the follower's recorded high-fanout authors in step with a committed follow or unfollow.
+     * Every replica receives the broadcast and applies the same idempotent update.
+     */
+    public void onFollowEdgeMessage(String message) {
+        // "+<follower>:<following>" or "-<follower>:<following>", as published by user-service
+        int separator = message.indexOf(':');
+        UUID followerId = UUID.fromString(message.substring(1, separator));
+        UUID followingId = UUID.fromString(message.substring(separator + 1));
         try {
-            if (feed != null) {
-                redisTemplate.opsForValue().set(cacheKey, feed, cacheTtlSeconds, TimeUnit.SECONDS);
+            if (message.charAt(0) == '-') {
+                timelineStore.removeHighFanoutFollowing(followerId, followingId);
+            } else if (timelineStore.isHighFanoutAuthor(followingId)) {
+                timelineStore.forgetHighFanoutFollowing(List.of(followerId));
             }
         } catch (Exception e) {
-            log.warn("Redis cache write failed: {}", e.getMessage());
+            log.warn("Failed to apply follow edge {} -> {} to timelines: {}", followerId, followingId, e.getMessage());
         }
-
-        return feed;
     }
 
     public void invalidateFeedCache(UUID userId) {
+        invalidateFeedCaches(List.of(userId));
+        log.info("Invalidated feed cache for user {}", userId);
+    }
+
+    public void invalidateFeedCacheForFollowers(UUID userId) {
         try {
-            Set<String> keys = redisTemplate.keys(FEED_CACHE_KEY + userId + ":*");
-            if (keys != null && !keys.isEmpty()) {
-                redisTemplate.delete(keys);
-                log.info("Invalidated feed cache for user {}", userId);
+            long invalidated = forEachFollowerChunk(userId, this::invalidateFeedCaches);
+            log.info("Invalidated feed cache for {} followers of user {}", invalidated, userId);
+        } catch (Exception e) {
+            log.warn("Failed to invalidate feed cache for followers of user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    private String feedCacheKey(UUID userId, int page, int size) {
+        // Cached pages are keyed by the user's current generation, so bumping it orphans every page at once
+        String generation = stringRedisTemplate.opsForValue().get(FEED_GENERATION_KEY + userId);
+        return FEED_CACHE_KEY + userId + ":" + (generation != null ? generation : "0") + ":" + page + ":" + size;
+    }
+
+    private PagedResponse<PostDto> buildFeed(UUID userId, int page, int size, RequestBudget budget) {
+        return timelineEnabled
+                ? buildTimelineFeed(userId, page, size, budget)
+                : buildPullFeed(userId, page, size, budget);
+    }
+
+    private void cacheFeed(UUID userId, int page, int size, String cacheKey, PagedResponse<PostDto> feed) {
+        // Keep a longer-lived copy to fall back on; partial responses are never cached
+        try {
+            if (feed != null && cacheKey != null) {
+                CachedFeedPage entry = new CachedFeedPage(feed, System.currentTimeMillis() + softTtlSeconds * 1000);
+                redisTemplate.opsForValue().set(cacheKey, entry, cacheTtlSeconds, TimeUnit.SECONDS);
+                // Every page written under a generation pushes its expiry out, so the counter can only reset
+                // to 0 once all of its pages are gone and a later INCR cannot land on a live generation
+                stringRedisTemplate.expire(FEED_GENERATION_KEY + userId, generationTtlSeconds(), TimeUnit.SECONDS);
+                redisTemplate.opsForValue().set(staleFeedKey(userId, page, size), entry, staleTtlSeconds, TimeUnit.SECONDS);
             }
         } catch (Exception e) {
-            log.warn("Failed to invalidate feed cache: {}", e.getMessage());
+            log.warn("Redis cache write failed: {}", e.getMessage());
         }
     }
 
-    public void invalidateFeedCacheForFollowers(UUID userId) {
-        // Get all followers
-        List<UUID> followerIds = getFollowerIds(userId);
-        for (UUID followerId : followerIds) {
-            invalidateFeedCache(followerId);
+    private void refreshInBackground(UUID userId, int page, int size, String cacheKey) {
+        if (!refreshesInFlight.add(cacheKey)) {
+            return;
+        }
+
+        try {
+            feedAggregationExecutor.execute(() -> {
+                try {
+                    // Other replicas may be serving the same stale page; the first to take the lock rebuilds it
+                    Boolean locked = stringRedisTemplate.opsForValue().setIfAbsent(
+                            REFRESH_LOCK_KEY + cacheKey, "1", Duration.ofMillis(requestBudgetMillis * 2));
+                    if (!Boolean.TRUE.equals(locked)) {
+                        return;
+                    }
+
+                    Timer.Sample sample = Timer.start(meterRegistry);
+                    RequestBudget budget = newRequestBudget();
+                    PagedResponse<PostDto> feed = buildFeed(userId, page, size, budget);
+                    boolean complete = !budget.isDegraded();
+                    if (complete) {
+                        cacheFeed(userId, page, size, cacheKey, feed);
+                    }
+                    sample.stop(meterRegistry.timer("feed.cache.refresh", "outcome", complete ? "refreshed" : "degraded"));
+                } catch (Exception e) {
+                    log.warn("Background refresh of feed page {} for user {} failed: {}", page, userId, e.getMessage());
+                } finally {
+                    refreshesInFlight.remove(cacheKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshesInFlight.remove(cacheKey);
         }
     }
 
-    @SuppressWarnings("unchecked")
-    private List<UUID> getFollowingIds(UUID userId) {
+    private String staleFeedKey(UUID userId, int page, int size) {
+        // Not generation-scoped, so invalidation leaves it in place as a fallback
+        return STALE_FEED_KEY + userId + ":" + page + ":" + size;
+    }
+
+    private PagedResponse<PostDto> readStaleFeed(UUID userId, int page, int size) {
         try {
-            String url = userServiceUrl + "/api/users/" + userId + "/following/ids";
-            ResponseEntity<List<UUID>> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    null,
-                    new ParameterizedTypeReference<List<UUID>>() {}
-            );
-            return response.getBody() != null ? response.getBody() : Collections.emptyList();
+            CachedFeedPage stale = CachedFeedPage.from(redisTemplate.opsForValue().get(staleFeedKey(userId, page, size)));
+            if (stale == null) {
+                return null;
+            }
+            log.info("Serving stale feed page {} to user {}", page, userId);
+            meterRegistry.counter("feed.cache.stale.served", "reason", "degraded").increment();
+            return stale.getPage();
         } catch (Exception e) {
-            log.error("Failed to get following IDs for user {}: {}", userId, e.getMessage());
+            log.warn("Redis stale feed read failed: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void invalidateFeedCaches(List<UUID> userIds) {
+        long generationTtlSeconds = generationTtlSeconds();
+        for (int from = 0; from < userIds.size(); from += INVALIDATION_BATCH_SIZE) {
+            List<UUID> batch = userIds.subList(from, Math.min(from + INVALIDATION_BATCH_SIZE, userIds.size()));
+            try {
+                stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    StringRedisConnection redis = (StringRedisConnection) connection;
+                    for (UUID userId : batch) {
+                        String key = FEED_GENERATION_KEY + userId;
+                        redis.incr(key);
+                        redis.expire(key, generationTtlSeconds);
+                    }
+                    return null;
+                });
+            } catch (Exception e) {
+                log.warn("Failed to invalidate feed cache for {} users: {}", batch.size(), e.getMessage());
+            }
+        }
+    }
+
+    private long generationTtlSeconds() {
+        // Longer than any page written under the generation can live
+        return cacheTtlSeconds * 2;
+    }
+
+    private RequestBudget newRequestBudget() {
+        return new RequestBudget(feedAggregationExecutor, requestBudgetMillis, callTimeoutMillis);
+    }
+
+    private PagedResponse<PostDto> buildPullFeed(UUID userId, int page, int size, RequestBudget budget) {
+        // Each hop needs the previous hop's result, so the pull path stays sequential under the shared budget
+        List<UUID> followingIds = new ArrayList<>(budget.await(
+                budget.call(() -> requestFollowingIds(userId)), Collections.emptyList(), "following lookup"));
+
+        // Include user's own posts
+        followingIds.add(userId);
+
+        PagedResponse<PostDto> feed = budget.await(
+                budget.call(() -> requestFeedPosts(followingIds, page, size)),
+                PagedResponse.of(Collections.emptyList(), page, size, 0L),
+                "feed posts");
+
+        enrichWithLikeStatus(feed, userId, budget);
+        return feed;
+    }
+
+    private PagedResponse<PostDto> buildPullFeedByCursor(UUID userId, String cursor, int size, RequestBudget budget) {
+        List<UUID> followingIds = new ArrayList<>(budget.await(
+                budget.call(() -> requestFollowingIds(userId)), Collections.emptyList(), "following lookup"));
+        followingIds.add(userId);
+
+        PagedResponse<PostDto> feed = budget.await(
+                budget.call(() -> requestFeedPostsByCursor(followingIds, cursor, size)),
+                PagedResponse.ofCursor(Collections.emptyList(), size, null),
+                "feed posts");
+
+        enrichWithLikeStatus(feed, userId, budget);
+        return feed;
+    }
+
+    private PagedResponse<PostDto> buildTimelineFeed(UUID userId, int page, int size, RequestBudget budget) {
+        if (!timelineReady(userId, budget)) {
+            return buildPullFeed(userId, page, size, budget);
+        }
+
+        long offset = (long) page * size;
+        // The timeline read, its size and the high-fanout lookup are independent, so start them together.
+        // One entry past the page bounds which pulled posts can still reach it.
+        CompletableFuture<List<TimelineEntry>> pushed = budget.call(() -> timelineStore.range(userId, offset, size + 1));
+        CompletableFuture<Long> pushedTotal = budget.call(() -> timelineStore.size(userId));
+        CompletableFuture<Set<UUID>> highFanout = lookupHighFanoutFollowing(userId, budget);
+
+        List<TimelineEntry> window = budget.await(pushed, Collections.emptyList(), "timeline read");
+        Set<UUID> highFanoutFollowing = budget.await(highFanout, Collections.emptySet(), "high-fanout lookup");
+        long totalElements = budget.await(pushedTotal, 0L, "timeline size");
+
+        if (highFanoutFollowing.isEmpty()) {
+            List<TimelineEntry> entries = window.size() > size ? window.subList(0, size) : window;
+            return PagedResponse.of(hydrateTimelinePage(userId, entries, Collections.emptyMap(), budget), page, size, totalElements);
+        }
+        // Merged pages stop where a pushed-only timeline would, which also bounds the pull below
+        if (offset >= timelineMaxSize) {
+            return PagedResponse.of(Collections.emptyList(), page, size, Math.min(totalElements, timelineMaxSize));
+        }
+
+        // Hybrid mode: posts by high-fanout authors were never pushed, so how many of them sort above this
+        // page is only known by merging from the top. Rebuild the merged timeline down to one entry past it.
+        int end = (int) offset + size;
+        List<TimelineEntry> merged = new ArrayList<>(offset > 0
+                ? budget.await(budget.call(() -> timelineStore.range(userId, 0, (int) offset)), Collections.emptyList(), "timeline read")
+                : Collections.emptyList());
+        merged.addAll(window);
+        int pushedCount = merged.size();
+
+        // Pulled posts older than the first pushed entry past the page cannot reach it
+        TimelineEntry floor = merged.size() > end ? merged.get(end) : null;
+        Map<UUID, PostDto> pulledPosts = new HashMap<>();
+        for (PostDto post : pullHighFanoutPosts(highFanoutFollowing, null, end + 1, floor, budget)) {
+            TimelineEntry entry = toTimelineEntry(post);
+            if (pulledPosts.putIfAbsent(entry.postId(), post) == null) {
+                merged.add(entry);
+            }
+        }
+
+        List<TimelineEntry> ordered = newestFirstDistinct(merged);
+        // Every pushed entry is counted; pulled ones only as far as this walk saw them, which is enough to
+        // tell whether another page exists
+        totalElements = Math.min(totalElements + ordered.size() - pushedCount, timelineMaxSize);
+        int last = Math.min(Math.min(end, ordered.size()), timelineMaxSize);
+        List<TimelineEntry> entries = ordered.subList(Math.min((int) offset, last), last);
+
+        List<PostDto> posts = hydrateTimelinePage(userId, entries, pulledPosts, budget);
+        return PagedResponse.of(posts, page, size, totalElements);
+    }
+
+    private PagedResponse<PostDto> buildTimelineFeedByCursor(UUID userId, PageCursor after, int size, RequestBudget budget) {
+        if (!timelineReady(userId, budget)) {
+            return buildPullFeedByCursor(userId, after.encode(), size, budget);
+        }
+
+        long afterTimestamp = toEpochMillis(after.getCreatedAt());
+        TimelineEntry cursorEntry = new TimelineEntry(after.getId(), afterTimestamp);
+
+        // Read one extra entry to learn whether another page exists
+        CompletableFuture<List<TimelineEntry>> pushed = budget.call(
+                () -> timelineStore.rangeBefore(userId, afterTimestamp, after.getId(), size + 1));
+        CompletableFuture<Set<UUID>> highFanout = lookupHighFanoutFollowing(userId, budget);
+
+        Set<UUID> highFanoutFollowing = budget.await(highFanout, Collections.emptySet(), "high-fanout lookup");
+        List<PostDto> pulled = highFanoutFollowing.isEmpty()
+                ? Collections.emptyList()
+                : pullHighFanoutPosts(highFanoutFollowing, cursorEntry, size + 1, null, budget);
+
+        List<TimelineEntry> merged = new ArrayList<>(budget.await(pushed, Collections.emptyList(), "timeline read"));
+        Map<UUID, PostDto> pulledPosts = new HashMap<>();
+        for (PostDto post : pulled) {
+            TimelineEntry entry = toTimelineEntry(post);
+            if (NEWEST_FIRST.compare(entry, cursorEntry) > 0) {
+                pulledPosts.put(entry.postId(), post);
+                merged.add(entry);
+            }
+        }
+
+        List<TimelineEntry> entries = newestFirstDistinct(merged);
+        if (entries.size() > size + 1) {
+            entries = entries.subList(0, size + 1);
+        }
+
+        String nextCursor = null;
+        if (entries.size() > size) {
+            entries = entries.subList(0, size);
+            TimelineEntry last = entries.get(entries.size() - 1);
+            nextCursor = PageCursor.of(fromEpochMillis(last.timestamp()), last.postId()).encode();
+        }
+
+        List<PostDto> posts = hydrateTimelinePage(userId, entries, pulledPosts, budget);
+        return PagedResponse.ofCursor(posts, size, nextCursor);
+    }
+
+    private CompletableFuture<Set<UUID>> lookupHighFanoutFollowing(UUID userId, RequestBudget budget) {
+        if (fanoutThreshold <= 0) {
+            return CompletableFuture.completedFuture(Collections.emptySet());
+        }
+        // Only an expired or forgotten set costs a following lookup; it is recorded again for later reads
+        return budget.call(() -> timelineStore.highFanoutFollowing(userId).orElseGet(() -> {
+            Set<UUID> authors = timelineStore.highFanoutAuthorsAmong(requestFollowingIds(userId));
+            timelineStore.recordHighFanoutFollowing(userId, authors);
+            return authors;
+        }));
+    }
+
+    /**
+     * Pulls up to {@code count} posts by the given authors strictly older than {@code before}, or the newest
+     * ones when it is null, walking the keyset endpoint so no total is counted. Stops early once a page ends
+     * below {@code floor}, past which the caller has no use for more posts.
+     */
+    private List<PostDto> pullHighFanoutPosts(Set<UUID> authorIds, TimelineEntry before, int count,
+                                              TimelineEntry floor, RequestBudget budget) {
+        List<UUID> authors = new ArrayList<>(authorIds);
+        // Timeline scores are millisecond-truncated, so pull everything up to the end of the bound's
+        // millisecond and let the caller apply the exact (timestamp, id) bound
+        String cursor = before != null
+                ? PageCursor.of(fromEpochMillis(before.timestamp() + 1), PageCursor.MAX_ID).encode()
+                : null;
+
+        List<PostDto> pulled = new ArrayList<>();
+        do {
+            String pageCursor = cursor;
+            int pageSize = Math.min(POST_PAGE_SIZE, count - pulled.size());
+            PagedResponse<PostDto> page = budget.await(
+                    budget.call(() -> requestFeedPostsByCursor(authors, pageCursor, pageSize)),
+                    null, "high-fanout posts");
+            if (page == null || page.getContent() == null || page.getContent().isEmpty()) {
+                break;
+            }
+            pulled.addAll(page.getContent());
+            cursor = page.getNextCursor();
+            if (floor != null && NEWEST_FIRST.compare(toTimelineEntry(pulled.get(pulled.size() - 1)), floor) > 0) {
+                break;
+            }
+        } while (cursor != null && pulled.size() < count);
+        return pulled;
+    }
+
+    private static List<TimelineEntry> newestFirstDistinct(List<TimelineEntry> entries) {
+        Set<UUID> seen = new HashSet<>();
+        return entries.stream()
+                .sorted(NEWEST_FIRST)
+                .filter(entry -> seen.add(entry.postId()))
+                .toList();
+    }
+
+    private List<PostDto> hydrateTimelinePage(UUID userId, List<TimelineEntry> entries,
+                                              Map<UUID, PostDto> knownPosts, RequestBudget budget) {
+        if (entries.isEmpty()) {
             return Collections.emptyList();
         }
+
+        List<UUID> pageIds = entries.stream()
+                .map(TimelineEntry::postId)
+                .toList();
+        List<UUID> missingIds = pageIds.stream()
+                .filter(postId -> !knownPosts.containsKey(postId))
+                .toList();
+
+        // Hydration and like status only depend on the page's post IDs, so they overlap
+        CompletableFuture<List<PostDto>> hydrated = missingIds.isEmpty()
+                ? CompletableFuture.completedFuture(Collections.emptyList())
+                : budget.call(() -> requestPostsByIds(missingIds));
+        CompletableFuture<Set<String>> likeStatus = budget.call(
+                () -> requestLikeStatus(pageIds.stream().map(UUID::toString).toList(), userId));
+
+        Map<UUID, PostDto> postsById = new HashMap<>(knownPosts);
+        for (PostDto post : budget.await(hydrated, Collections.<PostDto>emptyList(), "post hydration")) {
+            postsById.put(UUID.fromString(post.getId()), post);
+        }
+
+        List<PostDto> posts = entries.stream()
+                .map(entry -> postsById.get(entry.postId()))
+                .filter(Objects::nonNull)
+                .toList();
+
+        applyLikeStatus(posts, budget.await(likeStatus, null, "like status"));
+        return posts;
     }
 
-    @SuppressWarnings("unchecked")
-    private List<UUID> getFollowerIds(UUID userId) {
+    /**
+     * Whether the user's timeline can serve this request. A cold timeline is backfilled in the background
+     * and the request is answered from the pull path meanwhile, since a backfill takes several downstream
+     * calls that the request budget has no room for.
+     */
+    private boolean timelineReady(UUID userId, RequestBudget budget) {
+        Boolean initialized = budget.await(
+                budget.call(() -> timelineStore.isInitialized(userId)), null, "timeline check");
+        if (Boolean.FALSE.equals(initialized)) {
+            backfillInBackground(userId);
+        }
+        return Boolean.TRUE.equals(initialized);
+    }
+
+    private void backfillInBackground(UUID userId) {
+        if (!backfillsInFlight.add(userId)) {
+            return;
+        }
+
         try {
-            String url = userServiceUrl + "/api/users/" + userId + "/followers/ids";
+            timelineFanoutExecutor.execute(() -> {
+                try {
+                    backfillTimeline(userId);
+                } finally {
+                    backfillsInFlight.remove(userId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            backfillsInFlight.remove(userId);
+        }
+    }
+
+    private void backfillTimeline(UUID userId) {
+        try {
+            List<UUID> followingIds = requestFollowingIds(userId);
+            Set<UUID> highFanoutFollowing = fanoutThreshold > 0
+                    ? timelineStore.highFanoutAuthorsAmong(followingIds)
+                    : Collections.emptySet();
+
+            List<UUID> authorIds = new ArrayList<>();
+            for (UUID followingId : followingIds) {
+                if (!highFanoutFollowing.contains(followingId)) {
+                    authorIds.add(followingId);
+                }
+            }
+            authorIds.add(userId);
+
+            // Walk the keyset endpoint a page at a time, which skips the count an offset page would run
+            List<TimelineEntry> entries = new ArrayList<>();
+            String cursor = null;
+            do {
+                PagedResponse<PostDto> recent = requestFeedPostsByCursor(
+                        authorIds, cursor, Math.min(POST_PAGE_SIZE, timelineMaxSize - entries.size()));
+                if (recent == null || recent.getContent() == null) {
+                    break;
+                }
+                for (PostDto post : recent.getContent()) {
+                    entries.add(toTimelineEntry(post));
+                }
+                cursor = recent.getNextCursor();
+            } while (cursor != null && entries.size() < timelineMaxSize);
+
+            timelineStore.initialize(userId, entries);
+            if (fanoutThreshold > 0) {
+                timelineStore.recordHighFanoutFollowing(userId, highFanoutFollowing);
+            }
+            log.info("Backfilled timeline for user {} with {} posts", userId, entries.size());
+        } catch (Exception e) {
+            log.warn("Failed to backfill timeline for user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    private boolean isHighFanoutAuthor(UUID authorId) {
+        if (fanoutThreshold <= 0) {
+            return false;
+        }
+        if (timelineStore.isHighFanoutAuthor(authorId)) {
+            return true;
+        }
+
+        return downstreamCalls.call("user", () -> {
+            UserDto author = restTemplate.getForObject(userServiceUrl + "/api/users/id/" + authorId, UserDto.class);
+            return author != null && author.getFollowersCount() != null
+                    && author.getFollowersCount() > fanoutThreshold;
+        }, () -> false);
+    }
+
+    private TimelineEntry toTimelineEntry(PostDto post) {
+        return new TimelineEntry(UUID.fromString(post.getId()), toEpochMillis(post.getCreatedAt()));
+    }
+
+    private long toEpochMillis(LocalDateTime createdAt) {
+        return createdAt != null ? createdAt.toInstant(ZoneOffset.UTC).toEpochMilli() : 0L;
+    }
+
+    private LocalDateTime fromEpochMillis(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+    }
+
+    private List<UUID> requestFollowingIds(UUID userId) {
+        String url = userServiceUrl + "/api/users/" + userId + "/following/ids";
+        return followingLookups.execute(userId, () -> downstreamCalls.call("user", () -> {
             ResponseEntity<List<UUID>> response = restTemplate.exchange(
                     url,
                     HttpMethod.GET,
                     null,
                     new ParameterizedTypeReference<List<UUID>>() {}
             );
-            return response.getBody() != null ? response.getBody() : Collections.emptyList();
-        } catch (Exception e) {
-            log.error("Failed to get follower IDs for user {}: {}", userId, e.getMessage());
-            return Collections.emptyList();
-        }
+            return response.getBody() != null ? response.getBody() : Collections.<UUID>emptyList();
+        }));
     }
 
-    @SuppressWarnings("unchecked")
-    private PagedResponse<PostDto> fetchFeedPosts(List<UUID> userIds, int page, int size) {
-        try {
-            String url = UriComponentsBuilder.fromHttpUrl(postServiceUrl)
-                    .path("/api/posts/feed")
-                    .queryParam("page", page)
-                    .queryParam("size", size)
-                    .toUriString();
+    /**
+     * Streams the user's followers from user-service and hands them to {@code consumer} one chunk at a
+     * time, so memory stays flat however many followers there are. Returns the number of followers seen.
+     * A retry after a mid-stream failure replays earlier chunks, so consumers must be idempotent.
+     */
+    private long forEachFollowerChunk(UUID userId, Consumer<List<UUID>> consumer) {
+        String url = userServiceUrl + "/api/users/" + userId + "/followers/stream?chunkSize=" + fanoutChunkSize;
+        // Its own guard: a stream runs for as long as the follower list takes, which the "user" breaker would
+        // count as a slow call, and a retry would re-deliver chunks already fanned out
+        return downstreamCalls.call("user-stream", () -> restTemplate.execute(
+                url,
+                HttpMethod.GET,
+                request -> request.getHeaders().setAccept(List.of(MediaType.APPLICATION_NDJSON)),
+                response -> {
+                    long seen = 0;
+                    try (BufferedReader reader = new BufferedReader(
+                            new InputStreamReader(response.getBody(), StandardCharsets.US_ASCII))) {
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            if (!line.isBlank()) {
+                                List<UUID> chunk = objectMapper.readValue(line, ID_CHUNK);
+                                consumer.accept(chunk);
+                                seen += chunk.size();
+                            }
+                        }
+                    }
+                    return seen;
+                }));
+    }
 
-            ResponseEntity<PagedResponse<PostDto>> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.POST,
-                    new HttpEntity<>(userIds),
-                    new ParameterizedTypeReference<PagedResponse<PostDto>>() {}
-            );
+    private PagedResponse<PostDto> requestFeedPosts(List<UUID> userIds, int page, int size) {
+        String url = UriComponentsBuilder.fromHttpUrl(postServiceUrl)
+                .path("/api/posts/feed")
+                .queryParam("page", page)
+                .queryParam("size", size)
+                .toUriString();
 
-            return response.getBody();
-        } catch (Exception e) {
-            log.error("Failed to fetch feed posts: {}", e.getMessage());
-            return PagedResponse.of(Collections.emptyList(), page, size, 0L);
-        }
+        return downstreamCalls.call("post", () -> restTemplate.exchange(
+                url,
+                HttpMethod.POST,
+                new HttpEntity<>(userIds),
+                new ParameterizedTypeReference<PagedResponse<PostDto>>() {}
+        ).getBody());
     }
 
-    private void enrichPostsWithLikeStatus(List<PostDto> posts, UUID userId) {
-        try {
-            List<String> postIds = posts.stream()
-                    .map(PostDto::getId)
-                    .toList();
+    private PagedResponse<PostDto> requestFeedPostsByCursor(List<UUID> userIds, String cursor, int size) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromHttpUrl(postServiceUrl)
+                .path("/api/posts/feed/cursor")
+                .queryParam("size", size);
+        if (cursor != null && !cursor.isBlank()) {
+            builder.queryParam("cursor", cursor);
+        }
+
+        String url = builder.toUriString();
+        return downstreamCalls.call("post", () -> restTemplate.exchange(
+                url,
+                HttpMethod.POST,
+                new HttpEntity<>(userIds),
+                new ParameterizedTypeReference<PagedResponse<PostDto>>() {}
+        ).getBody());
+    }
 
-            String url = likeServiceUrl + "/api/likes/posts/status";
-            ResponseEntity<Map<String, Boolean>> response = restTemplate.exchange(
-                    url + "?userId=" + userId,
+    private List<PostDto> requestPostsByIds(List<UUID> postIds) {
+        return downstreamCalls.call("post", () -> {
+            ResponseEntity<List<PostDto>> response = restTemplate.exchange(
+                    postServiceUrl + "/api/posts/batch",
                     HttpMethod.POST,
                     new HttpEntity<>(postIds),
-                    new ParameterizedTypeReference<Map<String, Boolean>>() {}
+                    new ParameterizedTypeReference<List<PostDto>>() {}
             );
+            return response.getBody() != null ? response.getBody() : Collections.<PostDto>emptyList();
+        });
+    }
 
-            Map<String, Boolean> likeStatusMap = response.getBody();
-            if (likeStatusMap != null) {
-                for (PostDto post : posts) {
-                    post.setIsLiked(likeStatusMap.getOrDefault(post.getId(), false));
-                }
+    private Set<String> requestLikeStatus(List<String> postIds, UUID userId) {
+        String url = likeServiceUrl + "/api/likes/posts/status/bitmap?userId=" + userId;
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        headers.setAccept(List.of(MediaType.APPLICATION_OCTET_STREAM));
+        byte[] body = LikeStatusBitmap.encodeIds(postIds.stream().map(UUID::fromString).toList());
+
+        byte[] bitmap = downstreamCalls.call("like", () -> restTemplate.exchange(
+                url,
+                HttpMethod.POST,
+                new HttpEntity<>(body, headers),
+                byte[].class
+        ).getBody());
+
+        Set<String> liked = new HashSet<>();
+        for (int i = 0; i < postIds.size(); i++) {
+            if (bitmap != null && LikeStatusBitmap.isSet(bitmap, i)) {
+                liked.add(postIds.get(i));
+            }
+        }
+        return liked;
+    }
+
+    private void enrichWithLikeStatus(PagedResponse<PostDto> feed, UUID userId, RequestBudget budget) {
+        if (feed == null || feed.getContent() == null || feed.getContent().isEmpty()) {
+            return;
+        }
+
+        List<String> postIds = feed.getContent().stream()
+                .map(PostDto::getId)
+                .toList();
+        applyLikeStatus(feed.getContent(), budget.await(
+                budget.call(() -> requestLikeStatus(postIds, userId)), null, "like status"));
+    }
+
+    private void applyLikeStatus(List<PostDto> posts, Set<String> likedPostIds) {
+        // A missing set means the like-service missed its deadline; leave isLiked unset rather than false
+        if (likedPostIds != null) {
+            for (PostDto post : posts) {
+                post.setIsLiked(likedPostIds.contains(post.getId()));
             }
-        } catch (Exception e) {
-            log.warn("Failed to enrich posts with like status: {}", e.getMessage());
         }
     }
 }
@@ -0,0 +1,55 @@
+package com.instagram.feed.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Deadline bookkeeping for one feed request: every downstream call gets its own timeout, all waits share
+ * the request's total budget, and any call that misses either marks the response as degraded.
+ */
+@Slf4j
+class RequestBudget {
+
+    private final Executor executor;
+    private final long deadlineNanos;
+    private final long callTimeoutMillis;
+    private volatile boolean degraded;
+
+    RequestBudget(Executor executor, long budgetMillis, long callTimeoutMillis) {
+        this.executor = executor;
+        this.deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        this.callTimeoutMillis = callTimeoutMillis;
+    }
+
+    <T> CompletableFuture<T> call(Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(supplier, executor)
+                .orTimeout(callTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    <T> T await(CompletableFuture<T> future, T fallback, String callName) {
+        long remainingNanos = Math.max(deadlineNanos - System.nanoTime(), 0L);
+        try {
+            return future.get(remainingNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Feed request budget exhausted waiting for {}", callName);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                log.warn("{} missed its {}ms deadline", callName, callTimeoutMillis);
+            } else {
+                log.warn("{} failed: {}", callName, e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        future.cancel(true);
+        degraded = true;
+        return fallback;
+    }
+
+    boolean isDegraded() {
+        return degraded;
+    }
+}
@@ -0,0 +1,152 @@
+package com.instagram.feed.timeline;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Heap-backed timeline store for tests and local runs without Redis.
+ */
+@Component
+@ConditionalOnProperty(name = "feed.timeline.store", havingValue = "memory")
+public class InMemoryTimelineStore implements TimelineStore {
+
+    private static final Comparator<TimelineEntry> NEWEST_FIRST = Comparator
+            .comparingLong(TimelineEntry::timestamp).reversed()
+            .thenComparing(entry -> entry.postId().toString(), Comparator.reverseOrder());
+
+    private final Map<UUID, NavigableSet<TimelineEntry>> timelines = new ConcurrentHashMap<>();
+    private final Set<UUID> initialized = ConcurrentHashMap.newKeySet();
+    private final Set<UUID> highFanoutAuthors = ConcurrentHashMap.newKeySet();
+    private final Map<UUID, Set<UUID>> highFanoutFollowing = new ConcurrentHashMap<>();
+
+    private final int maxSize;
+
+    public InMemoryTimelineStore(@Value("${feed.timeline.max-size:800}") int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public void push(Collection<UUID> userIds, UUID postId, long timestamp) {
+        TimelineEntry entry = new TimelineEntry(postId, timestamp);
+        for (UUID userId : userIds) {
+            NavigableSet<TimelineEntry> timeline = timelines.computeIfAbsent(
+                    userId, id -> new ConcurrentSkipListSet<>(NEWEST_FIRST));
+            timeline.add(entry);
+            while (timeline.size() > maxSize) {
+                timeline.pollLast();
+            }
+        }
+    }
+
+    @Override
+    public void remove(Collection<UUID> userIds, UUID postId) {
+        for (UUID userId : userIds) {
+            NavigableSet<TimelineEntry> timeline = timelines.get(userId);
+            if (timeline != null) {
+                timeline.removeIf(entry -> entry.postId().equals(postId));
+            }
+        }
+    }
+
+    @Override
+    public List<TimelineEntry> range(UUID userId, long offset, int count) {
+        NavigableSet<TimelineEntry> timeline = timelines.get(userId);
+        if (timeline == null) {
+            return Collections.emptyList();
+        }
+        return timeline.stream()
+                .skip(offset)
+                .limit(count)
+                .toList();
+    }
+
+    @Override
+    public List<TimelineEntry> rangeBefore(UUID userId, long timestamp, UUID postId, int count) {
+        NavigableSet<TimelineEntry> timeline = timelines.get(userId);
+        if (timeline == null) {
+            return Collections.emptyList();
+        }
+        return timeline.tailSet(new TimelineEntry(postId, timestamp), false).stream()
+                .limit(count)
+                .toList();
+    }
+
+    @Override
+    public long size(UUID userId) {
+        NavigableSet<TimelineEntry> timeline = timelines.get(userId);
+        return timeline != null ? timeline.size() : 0;
+    }
+
+    @Override
+    public boolean isInitialized(UUID userId) {
+        return initialized.contains(userId);
+    }
+
+    @Override
+    public void initialize(UUID userId, List<TimelineEntry> entries) {
+        NavigableSet<TimelineEntry> timeline = new ConcurrentSkipListSet<>(NEWEST_FIRST);
+        NavigableSet<TimelineEntry> existing = timelines.get(userId);
+        if (existing != null) {
+            // Keep anything fanned out while the backfill was running
+            timeline.addAll(existing);
+        }
+        timeline.addAll(entries);
+        while (timeline.size() > maxSize) {
+            timeline.pollLast();
+        }
+        timelines.put(userId, timeline);
+        initialized.add(userId);
+    }
+
+    @Override
+    public boolean markHighFanoutAuthor(UUID authorId) {
+        return highFanoutAuthors.add(authorId);
+    }
+
+    @Override
+    public boolean isHighFanoutAuthor(UUID authorId) {
+        return highFanoutAuthors.contains(authorId);
+    }
+
+    @Override
+    public Set<UUID> highFanoutAuthorsAmong(Collection<UUID> userIds) {
+        Set<UUID> result = new HashSet<>();
+        for (UUID userId : userIds) {
+            if (highFanoutAuthors.contains(userId)) {
+                result.add(userId);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Optional<Set<UUID>> highFanoutFollowing(UUID userId) {
+        Set<UUID> authors = highFanoutFollowing.get(userId);
+        return authors != null ? Optional.of(Set.copyOf(authors)) : Optional.empty();
+    }
+
+    @Override
+    public void recordHighFanoutFollowing(UUID userId, Set<UUID> authorIds) {
+        Set<UUID> authors = ConcurrentHashMap.newKeySet();
+        authors.addAll(authorIds);
+        highFanoutFollowing.put(userId, authors);
+    }
+
+    @Override
+    public void removeHighFanoutFollowing(UUID userId, UUID authorId) {
+        Set<UUID> authors = highFanoutFollowing.get(userId);
+        if (authors != null) {
+            authors.remove(authorId);
+        }
+    }
+
+    @Override
+    public void forgetHighFanoutFollowing(Collection<UUID> userIds) {
+        userIds.forEach(highFanoutFollowing::remove);
+    }
+}
@@ -0,0 +1,245 @@
+package com.instagram.feed.timeline;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Timeline store backed by one Redis sorted set per user (member = post ID, score = creation time).
+ * Fan-out writes are pipelined so a post reaches thousands of timelines in a handful of round-trips.
+ * Each user's followed high-fanout authors are kept in a short-lived set beside the timeline, so a read
+ * never needs the full following list.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "feed.timeline.store", havingValue = "redis", matchIfMissing = true)
+public class RedisTimelineStore implements TimelineStore {
+
+    private static final String TIMELINE_KEY = "timeline:user:";
+    private static final String INITIALIZED_KEY = "timeline:init:";
+    private static final String HIGH_FANOUT_AUTHORS_KEY = "timeline:high-fanout-authors";
+    private static final String HIGH_FANOUT_FOLLOWING_KEY = "timeline:high-fanout-following:";
+    // Keeps a recorded set present when the user follows no high-fanout authors, so a missing key only
+    // ever means "not recorded"
+    private static final String NO_AUTHORS_MEMBER = "none";
+    private static final int PIPELINE_BATCH_SIZE = 1000;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Value("${feed.timeline.max-size:800}")
+    private int maxSize;
+
+    @Value("${feed.timeline.ttl:172800}")
+    private long ttlSeconds;
+
+    @Value("${feed.timeline.high-fanout-following-ttl:1800}")
+    private long highFanoutFollowingTtlSeconds;
+
+    @Override
+    public void push(Collection<UUID> userIds, UUID postId, long timestamp) {
+        String member = postId.toString();
+        for (List<UUID> batch : partition(userIds)) {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                for (UUID userId : batch) {
+                    String key = TIMELINE_KEY + userId;
+                    redis.zAdd(key, timestamp, member);
+                    redis.zRemRange(key, 0, -(maxSize + 1L));
+                    redis.expire(key, ttlSeconds);
+                }
+                return null;
+            });
+        }
+    }
+
+    @Override
+    public void remove(Collection<UUID> userIds, UUID postId) {
+        String member = postId.toString();
+        for (List<UUID> batch : partition(userIds)) {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                for (UUID userId : batch) {
+                    redis.zRem(TIMELINE_KEY + userId, member);
+                }
+                return null;
+            });
+        }
+    }
+
+    @Override
+    public List<TimelineEntry> range(UUID userId, long offset, int count) {
+        Set<ZSetOperations.TypedTuple<String>> tuples = stringRedisTemplate.opsForZSet()
+                .reverseRangeWithScores(TIMELINE_KEY + userId, offset, offset + count - 1);
+        if (tuples == null || tuples.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<TimelineEntry> entries = new ArrayList<>(tuples.size());
+        for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+            if (tuple.getValue() != null && tuple.getScore() != null) {
+                entries.add(new TimelineEntry(UUID.fromString(tuple.getValue()), tuple.getScore().longValue()));
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public List<TimelineEntry> rangeBefore(UUID userId, long timestamp, UUID postId, int count) {
+        String key = TIMELINE_KEY + userId;
+        String cursorMember = postId.toString();
+        List<TimelineEntry> entries = new ArrayList<>(count);
+
+        // Members sharing the cursor's score come back in descending member order; keep those past the cursor
+        Set<ZSetOperations.TypedTuple<String>> ties = stringRedisTemplate.opsForZSet()
+                .reverseRangeByScoreWithScores(key, timestamp, timestamp);
+        if (ties != null) {
+            for (ZSetOperations.TypedTuple<String> tuple : ties) {
+                if (tuple.getValue() != null && tuple.getValue().compareTo(cursorMember) < 0 && entries.size() < count) {
+                    entries.add(new TimelineEntry(UUID.fromString(tuple.getValue()), timestamp));
+                }
+            }
+        }
+
+        if (entries.size() < count) {
+            Set<ZSetOperations.TypedTuple<String>> older = stringRedisTemplate.opsForZSet()
+                    .reverseRangeByScoreWithScores(key, Double.NEGATIVE_INFINITY, timestamp - 1, 0, count - entries.size());
+            if (older != null) {
+                for (ZSetOperations.TypedTuple<String> tuple : older) {
+                    if (tuple.getValue() != null && tuple.getScore() != null) {
+                        entries.add(new TimelineEntry(UUID.fromString(tuple.getValue()), tuple.getScore().longValue()));
+                    }
+                }
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public long size(UUID userId) {
+        Long size = stringRedisTemplate.opsForZSet().zCard(TIMELINE_KEY + userId);
+        return size != null ? size : 0;
+    }
+
+    @Override
+    public boolean isInitialized(UUID userId) {
+        return Boolean.TRUE.equals(stringRedisTemplate.hasKey(INITIALIZED_KEY + userId));
+    }
+
+    @Override
+    public void initialize(UUID userId, List<TimelineEntry> entries) {
+        String key = TIMELINE_KEY + userId;
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            for (TimelineEntry entry : entries) {
+                redis.zAdd(key, entry.timestamp(), entry.postId().toString());
+            }
+            redis.zRemRange(key, 0, -(maxSize + 1L));
+            redis.expire(key, ttlSeconds);
+            return null;
+        });
+        stringRedisTemplate.opsForValue().set(INITIALIZED_KEY + userId, "1", Duration.ofSeconds(ttlSeconds));
+    }
+
+    @Override
+    public boolean markHighFanoutAuthor(UUID authorId) {
+        Long added = stringRedisTemplate.opsForSet().add(HIGH_FANOUT_AUTHORS_KEY, authorId.toString());
+        return added != null && added > 0;
+    }
+
+    @Override
+    public boolean isHighFanoutAuthor(UUID authorId) {
+        return Boolean.TRUE.equals(stringRedisTemplate.opsForSet().isMember(HIGH_FANOUT_AUTHORS_KEY, authorId.toString()));
+    }
+
+    @Override
+    public Set<UUID> highFanoutAuthorsAmong(Collection<UUID> userIds) {
+        if (userIds.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        Object[] members = userIds.stream().map(UUID::toString).toArray();
+        Map<Object, Boolean> membership = stringRedisTemplate.opsForSet().isMember(HIGH_FANOUT_AUTHORS_KEY, members);
+        if (membership == null) {
+            return Collections.emptySet();
+        }
+
+        Set<UUID> result = new HashSet<>();
+        membership.forEach((member, isMember) -> {
+            if (Boolean.TRUE.equals(isMember)) {
+                result.add(UUID.fromString(member.toString()));
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public Optional<Set<UUID>> highFanoutFollowing(UUID userId) {
+        Set<String> members = stringRedisTemplate.opsForSet().members(HIGH_FANOUT_FOLLOWING_KEY + userId);
+        if (members == null || members.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Set<UUID> authors = new HashSet<>();
+        for (String member : members) {
+            if (!NO_AUTHORS_MEMBER.equals(member)) {
+                authors.add(UUID.fromString(member));
+            }
+        }
+        return Optional.of(authors);
+    }
+
+    @Override
+    public void recordHighFanoutFollowing(UUID userId, Set<UUID> authorIds) {
+        String key = HIGH_FANOUT_FOLLOWING_KEY + userId;
+        String[] members = new String[authorIds.size() + 1];
+        members[0] = NO_AUTHORS_MEMBER;
+        int i = 1;
+        for (UUID authorId : authorIds) {
+            members[i++] = authorId.toString();
+        }
+
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            redis.del(key);
+            redis.sAdd(key, members);
+            redis.expire(key, highFanoutFollowingTtlSeconds);
+            return null;
+        });
+    }
+
+    @Override
+    public void removeHighFanoutFollowing(UUID userId, UUID authorId) {
+        // SREM never creates the key, so an unrecorded set stays unrecorded
+        stringRedisTemplate.opsForSet().remove(HIGH_FANOUT_FOLLOWING_KEY + userId, authorId.toString());
+    }
+
+    @Override
+    public void forgetHighFanoutFollowing(Collection<UUID> userIds) {
+        for (List<UUID> batch : partition(userIds)) {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                for (UUID userId : batch) {
+                    redis.del(HIGH_FANOUT_FOLLOWING_KEY + userId);
+                }
+                return null;
+            });
+        }
+    }
+
+    private List<List<UUID>> partition(Collection<UUID> userIds) {
+        List<UUID> ids = new ArrayList<>(userIds);
+        List<List<UUID>> batches = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += PIPELINE_BATCH_SIZE) {
+            batches.add(ids.subList(i, Math.min(i + PIPELINE_BATCH_SIZE, ids.size())));
+        }
+        return batches;
+    }
+}
@@ -0,0 +1,9 @@
+package com.instagram.feed.timeline;
+
+import java.util.UUID;
+
+/**
+ * A single post reference on a home timeline, scored by the post's creation time (epoch millis, UTC).
+ */
+public record TimelineEntry(UUID postId, long timestamp) {
+}
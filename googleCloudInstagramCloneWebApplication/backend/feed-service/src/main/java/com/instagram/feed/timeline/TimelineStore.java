@@ -0,0 +1,78 @@
+package com.instagram.feed.timeline;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Precomputed per-user home timelines: a bounded, newest-first list of post IDs that is
+ * written on post creation (fan-out-on-write) and read as a single range.
+ */
+public interface TimelineStore {
+
+    /**
+     * Pushes a post onto each of the given users' timelines, trimming every timeline to its maximum size.
+     */
+    void push(Collection<UUID> userIds, UUID postId, long timestamp);
+
+    /**
+     * Removes a post from each of the given users' timelines.
+     */
+    void remove(Collection<UUID> userIds, UUID postId);
+
+    /**
+     * Returns up to {@code count} entries, newest first, starting at {@code offset}.
+     */
+    List<TimelineEntry> range(UUID userId, long offset, int count);
+
+    /**
+     * Returns up to {@code count} entries strictly older than the given position, newest first.
+     * Entries sharing a timestamp are ordered by post ID string, descending.
+     */
+    List<TimelineEntry> rangeBefore(UUID userId, long timestamp, UUID postId, int count);
+
+    long size(UUID userId);
+
+    /**
+     * Whether the user's timeline has been backfilled and can be served without a pull rebuild.
+     */
+    boolean isInitialized(UUID userId);
+
+    /**
+     * Merges backfilled entries into the user's timeline and marks it initialized.
+     */
+    void initialize(UUID userId, List<TimelineEntry> entries);
+
+    /**
+     * Records an author whose posts are merged in at read time instead of being fanned out.
+     * Returns whether the author was newly marked.
+     */
+    boolean markHighFanoutAuthor(UUID authorId);
+
+    boolean isHighFanoutAuthor(UUID authorId);
+
+    Set<UUID> highFanoutAuthorsAmong(Collection<UUID> userIds);
+
+    /**
+     * Returns the high-fanout authors the user follows, or empty if that set has not been recorded
+     * or has expired and must be derived again from the user's following list.
+     */
+    Optional<Set<UUID>> highFanoutFollowing(UUID userId);
+
+    /**
+     * Replaces the user's set of followed high-fanout authors.
+     */
+    void recordHighFanoutFollowing(UUID userId, Set<UUID> authorIds);
+
+    /**
+     * Drops an author from the user's recorded set, if one is recorded.
+     */
+    void removeHighFanoutFollowing(UUID userId, UUID authorId);
+
+    /**
+     * Discards the given users' recorded sets so the next read derives them again.
+     */
+    void forgetHighFanoutFollowing(Collection<UUID> userIds);
+}
@@ -0,0 +1,45 @@
+package com.instagram.feed.config;
+
+import com.instagram.common.dto.PagedResponse;
+import com.instagram.common.dto.PostDto;
+import com.instagram.feed.service.CachedFeedPage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactFeedPageSerializerTest {
+
+    @Test
+    void roundTripsPagesBelowAndAboveCompressionThreshold() {
+        for (int threshold : new int[]{Integer.MAX_VALUE, 1}) {
+            CompactFeedPageSerializer serializer = new CompactFeedPageSerializer(threshold, new SimpleMeterRegistry());
+            CachedFeedPage page = new CachedFeedPage(FeedPageSerializerBenchmark.samplePage(20), 1234L);
+
+            byte[] encoded = serializer.serialize(page);
+
+            assertThat(serializer.deserialize(encoded)).isEqualTo(page);
+        }
+    }
+
+    @Test
+    void isSmallerThanJsonSerializer() {
+        CachedFeedPage page = new CachedFeedPage(FeedPageSerializerBenchmark.samplePage(20), 1234L);
+
+        byte[] compact = new CompactFeedPageSerializer(2048, new SimpleMeterRegistry()).serialize(page);
+        byte[] json = new GenericJackson2JsonRedisSerializer().serialize(page);
+
+        assertThat(compact.length).isLessThan(json.length);
+    }
+
+    @Test
+    void readsValuesWrittenByJsonSerializer() {
+        PagedResponse<PostDto> page = FeedPageSerializerBenchmark.samplePage(3);
+        byte[] legacy = new GenericJackson2JsonRedisSerializer().serialize(page);
+
+        Object decoded = new CompactFeedPageSerializer(2048, new SimpleMeterRegistry()).deserialize(legacy);
+
+        assertThat(decoded).isEqualTo(page);
+    }
+}
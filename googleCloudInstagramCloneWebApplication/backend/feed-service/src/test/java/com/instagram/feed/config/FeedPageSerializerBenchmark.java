@@ -0,0 +1,123 @@
+package com.instagram.feed.config;
+
+import com.instagram.common.dto.PagedResponse;
+import com.instagram.common.dto.PostDto;
+import com.instagram.common.dto.UserDto;
+import com.instagram.feed.service.CachedFeedPage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode time of a cached feed page, compact serializer against the JSON one it replaced.
+ * Encoded bytes per page are printed once per trial. Run with
+ * {@code mvn -pl feed-service test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.instagram.feed.config.FeedPageSerializerBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FeedPageSerializerBenchmark {
+
+    @Param({"compact", "json"})
+    private String serializer;
+
+    // feed.page.size and a short tail page
+    @Param({"20", "5"})
+    private int postsPerPage;
+
+    private RedisSerializer<Object> redisSerializer;
+    private CachedFeedPage page;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        redisSerializer = "json".equals(serializer)
+                ? new GenericJackson2JsonRedisSerializer()
+                : new CompactFeedPageSerializer(2048, new SimpleMeterRegistry());
+        page = new CachedFeedPage(samplePage(postsPerPage), System.currentTimeMillis());
+        encoded = redisSerializer.serialize(page);
+        System.out.printf("%n%s, %d posts: %d bytes per page%n", serializer, postsPerPage, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return redisSerializer.serialize(page);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return redisSerializer.deserialize(encoded);
+    }
+
+    static PagedResponse<PostDto> samplePage(int posts) {
+        List<PostDto> content = new ArrayList<>(posts);
+        for (int i = 0; i < posts; i++) {
+            String userId = UUID.randomUUID().toString();
+            String postId = UUID.randomUUID().toString();
+            String imageBase = "https://storage.googleapis.com/instagram-media/posts/" + postId;
+            content.add(PostDto.builder()
+                    .id(postId)
+                    .userId(userId)
+                    .username("user_" + i)
+                    .userProfilePicture("https://storage.googleapis.com/instagram-media/avatars/" + userId + ".jpg")
+                    .user(UserDto.builder()
+                            .id(userId)
+                            .username("user_" + i)
+                            .fullName("Sample User " + i)
+                            .profilePictureUrl("https://storage.googleapis.com/instagram-media/avatars/" + userId + ".jpg")
+                            .followersCount(1200L + i)
+                            .followingCount(300L + i)
+                            .postsCount(85L)
+                            .isFollowing(true)
+                            .build())
+                    .imageUrl(imageBase + "/0.jpg")
+                    .imageUrls(list(imageBase + "/0.jpg", imageBase + "/1.jpg"))
+                    .thumbnailUrls(list(imageBase + "/0_thumb.jpg", imageBase + "/1_thumb.jpg"))
+                    .feedImageUrls(list(imageBase + "/0_feed.jpg", imageBase + "/1_feed.jpg"))
+                    .caption("Golden hour at the harbour with the whole crew #sunset #travel #friends")
+                    .location("Lisbon, Portugal")
+                    .hashtags(list("sunset", "travel", "friends"))
+                    .likesCount(4321L + i)
+                    .commentsCount(87L + i)
+                    .isLiked(i % 3 == 0)
+                    .isSaved(false)
+                    .build());
+        }
+        return PagedResponse.ofCursor(content, posts, UUID.randomUUID().toString());
+    }
+
+    // Mutable lists, as the JSON serializer's type metadata cannot name the immutable List.of classes
+    private static List<String> list(String... values) {
+        return new ArrayList<>(List.of(values));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FeedPageSerializerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
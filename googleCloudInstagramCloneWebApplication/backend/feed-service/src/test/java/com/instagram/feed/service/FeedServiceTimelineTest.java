@@ -0,0 +1,264 @@
+package com.instagram.feed.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.instagram.common.concurrent.SingleFlight;
+import com.instagram.common.dto.PageCursor;
+import com.instagram.common.dto.PagedResponse;
+import com.instagram.common.dto.PostDto;
+import com.instagram.common.resilience.DownstreamCalls;
+import com.instagram.feed.timeline.InMemoryTimelineStore;
+import com.instagram.feed.timeline.TimelineEntry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Timeline reads against an in-memory timeline and fake peer services. In the hybrid cases a followed
+ * regular author's posts are pushed, a followed high-fanout author's are pulled at read time, and every
+ * page must come out of the same newest-first merge.
+ */
+class FeedServiceTimelineTest {
+
+    private static final long BASE_MILLIS = 1_700_000_000_000L;
+    private static final int PAGE_SIZE = 4;
+
+    private final UUID user = UUID.randomUUID();
+    private final UUID friend = UUID.randomUUID();
+    private final UUID celebrity = UUID.randomUUID();
+    private final Map<UUID, PostDto> posts = new HashMap<>();
+    // When set, timeline backfills block on it
+    private volatile CountDownLatch backfillGate;
+
+    private InMemoryTimelineStore timelineStore;
+    private ThreadPoolTaskExecutor fanoutExecutor;
+    private ExecutorService aggregationExecutor;
+    private FeedService feedService;
+
+    @BeforeEach
+    void setUp() {
+        timelineStore = new InMemoryTimelineStore(800);
+        fanoutExecutor = new ThreadPoolTaskExecutor();
+        fanoutExecutor.setCorePoolSize(1);
+        fanoutExecutor.initialize();
+        aggregationExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        feedService = new FeedService(
+                mock(RestTemplate.class, this::postService),
+                new DownstreamCalls(new MockEnvironment(), meterRegistry),
+                mock(RedisTemplate.class, RETURNS_DEEP_STUBS),
+                mock(StringRedisTemplate.class, RETURNS_DEEP_STUBS),
+                timelineStore,
+                fanoutExecutor,
+                aggregationExecutor,
+                meterRegistry,
+                new SingleFlight<>("following-lookups", meterRegistry),
+                new ObjectMapper());
+        ReflectionTestUtils.setField(feedService, "userServiceUrl", "http://user");
+        ReflectionTestUtils.setField(feedService, "postServiceUrl", "http://post");
+        ReflectionTestUtils.setField(feedService, "likeServiceUrl", "http://like");
+        ReflectionTestUtils.setField(feedService, "timelineEnabled", true);
+        ReflectionTestUtils.setField(feedService, "timelineMaxSize", 800);
+        ReflectionTestUtils.setField(feedService, "fanoutThreshold", 10_000L);
+        ReflectionTestUtils.setField(feedService, "requestBudgetMillis", 5_000L);
+        ReflectionTestUtils.setField(feedService, "callTimeoutMillis", 5_000L);
+
+        // Pushed: the friend's posts. Pulled: a run of celebrity posts newer than all of them and longer than
+        // a page, some in between (one sharing a friend post's millisecond), and some older than the last one.
+        List<TimelineEntry> pushed = new ArrayList<>();
+        for (int minute : new int[]{100, 90, 80, 70, 60, 50, 40, 30}) {
+            pushed.add(post(friend, minute));
+        }
+        for (int minute : new int[]{120, 119, 118, 117, 116, 115, 114, 113, 112, 111, 85, 80, 75, 65, 20, 15, 10, 5, 1}) {
+            post(celebrity, minute);
+        }
+        timelineStore.initialize(user, pushed);
+        timelineStore.markHighFanoutAuthor(celebrity);
+        timelineStore.recordHighFanoutFollowing(user, Set.of(celebrity));
+    }
+
+    @AfterEach
+    void tearDown() {
+        fanoutExecutor.shutdown();
+        aggregationExecutor.shutdownNow();
+    }
+
+    @Test
+    void offsetPagesCoverTheMergedTimelineWithoutGapsOrOversizedPages() {
+        List<String> seen = new ArrayList<>();
+        PagedResponse<PostDto> page;
+        int pageNumber = 0;
+        do {
+            page = feedService.getFeed(user, pageNumber++, PAGE_SIZE);
+            assertThat(page.getContent()).hasSizeLessThanOrEqualTo(PAGE_SIZE);
+            page.getContent().forEach(post -> seen.add(post.getId()));
+        } while (page.isHasNext() && pageNumber < 50);
+
+        assertThat(seen).containsExactlyElementsOf(expectedOrder());
+        assertThat(page.getTotalElements()).isEqualTo(posts.size());
+    }
+
+    @Test
+    void offsetPagesPastTheLastPushedEntryKeepServingPulledPosts() {
+        // 27 posts: pages 0-5 are full, page 6 holds the three oldest celebrity posts
+        PagedResponse<PostDto> last = feedService.getFeed(user, 6, PAGE_SIZE);
+
+        assertThat(last.getContent()).extracting(PostDto::getId)
+                .containsExactlyElementsOf(expectedOrder().subList(24, 27));
+        assertThat(last.isHasNext()).isFalse();
+        assertThat(feedService.getFeed(user, 7, PAGE_SIZE).getContent()).isEmpty();
+    }
+
+    @Test
+    void cursorPagesCoverTheSameMergedTimeline() {
+        List<String> seen = new ArrayList<>();
+        PagedResponse<PostDto> page;
+        String cursor = null;
+        int pages = 0;
+        do {
+            page = feedService.getFeedByCursor(user, cursor, PAGE_SIZE);
+            assertThat(page.getContent()).hasSizeLessThanOrEqualTo(PAGE_SIZE);
+            page.getContent().forEach(post -> seen.add(post.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null && ++pages < 50);
+
+        assertThat(seen).containsExactlyElementsOf(expectedOrder());
+    }
+
+    @Test
+    @Timeout(30)
+    void coldTimelineIsServedFromThePullPathWhileItBackfillsInTheBackground() throws InterruptedException {
+        UUID newcomer = UUID.randomUUID();
+        backfillGate = new CountDownLatch(1);
+
+        // Answered while the backfill is still blocked, so the request never waits for it
+        PagedResponse<PostDto> page = feedService.getFeed(newcomer, 0, PAGE_SIZE);
+
+        assertThat(page.getContent()).hasSize(PAGE_SIZE);
+        assertThat(page.getContent()).extracting(PostDto::getUserId).containsOnly(friend.toString());
+        assertThat(timelineStore.isInitialized(newcomer)).isFalse();
+
+        backfillGate.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!timelineStore.isInitialized(newcomer) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(timelineStore.isInitialized(newcomer)).isTrue();
+        assertThat(timelineStore.size(newcomer)).isEqualTo(8);
+    }
+
+    private TimelineEntry post(UUID authorId, int minute) {
+        long millis = BASE_MILLIS + minute * 60_000L;
+        UUID postId = UUID.randomUUID();
+        posts.put(postId, PostDto.builder()
+                .id(postId.toString())
+                .userId(authorId.toString())
+                .createdAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC))
+                .build());
+        return new TimelineEntry(postId, millis);
+    }
+
+    private List<String> expectedOrder() {
+        return posts.values().stream()
+                .sorted(newestFirst())
+                .map(PostDto::getId)
+                .toList();
+    }
+
+    private static Comparator<PostDto> newestFirst() {
+        // post-service's keyset order: created_at, then id, both descending
+        return Comparator.comparing(PostDto::getCreatedAt).thenComparing(PostDto::getId).reversed();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object postService(InvocationOnMock invocation) {
+        if (!invocation.getMethod().getName().equals("exchange")) {
+            return null;
+        }
+
+        String url = invocation.getArgument(0);
+        HttpEntity<?> entity = invocation.getArgument(2);
+        Object body = entity != null ? entity.getBody() : null;
+        if (url.startsWith("http://user/") && url.endsWith("/following/ids")) {
+            return ResponseEntity.ok(List.of(friend));
+        }
+        if (url.startsWith("http://like/")) {
+            return ResponseEntity.ok(new byte[64]);
+        }
+        if (url.startsWith("http://post/api/posts/batch")) {
+            return ResponseEntity.ok(((List<UUID>) body).stream().map(posts::get).filter(Objects::nonNull).toList());
+        }
+        if (url.startsWith("http://post/api/posts/feed/cursor")) {
+            CountDownLatch gate = backfillGate;
+            if (gate != null && ((List<UUID>) body).contains(friend)) {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return ResponseEntity.ok(feedPostsByCursor((List<UUID>) body, url));
+        }
+        if (url.startsWith("http://post/api/posts/feed?")) {
+            return ResponseEntity.ok(feedPosts((List<UUID>) body, url));
+        }
+        throw new IllegalStateException("Unexpected call to " + url);
+    }
+
+    private PagedResponse<PostDto> feedPosts(List<UUID> authorIds, String url) {
+        MultiValueMap<String, String> query = UriComponentsBuilder.fromUriString(url).build().getQueryParams();
+        int page = Integer.parseInt(query.getFirst("page"));
+        int size = Integer.parseInt(query.getFirst("size"));
+
+        List<PostDto> matching = posts.values().stream()
+                .filter(post -> authorIds.contains(UUID.fromString(post.getUserId())))
+                .sorted(newestFirst())
+                .toList();
+        int from = Math.min(page * size, matching.size());
+        return PagedResponse.of(matching.subList(from, Math.min(from + size, matching.size())), page, size, matching.size());
+    }
+
+    private PagedResponse<PostDto> feedPostsByCursor(List<UUID> authorIds, String url) {
+        MultiValueMap<String, String> query = UriComponentsBuilder.fromUriString(url).build().getQueryParams();
+        int size = Integer.parseInt(query.getFirst("size"));
+        PageCursor after = PageCursor.decode(query.getFirst("cursor"));
+        PostDto position = PostDto.builder().createdAt(after.getCreatedAt()).id(after.getId().toString()).build();
+
+        List<PostDto> older = posts.values().stream()
+                .filter(post -> authorIds.contains(UUID.fromString(post.getUserId())))
+                .filter(post -> newestFirst().compare(post, position) > 0)
+                .sorted(newestFirst())
+                .toList();
+        List<PostDto> page = older.subList(0, Math.min(size, older.size()));
+        String nextCursor = older.size() > size
+                ? PageCursor.of(page.get(size - 1).getCreatedAt(), UUID.fromString(page.get(size - 1).getId())).encode()
+                : null;
+        return PagedResponse.ofCursor(page, size, nextCursor);
+    }
+}
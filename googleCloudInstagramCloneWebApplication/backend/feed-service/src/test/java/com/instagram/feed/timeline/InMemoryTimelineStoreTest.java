@@ -0,0 +1,96 @@
+package com.instagram.feed.timeline;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryTimelineStoreTest {
+
+    private static final UUID USER = UUID.randomUUID();
+
+    @Test
+    void pushKeepsTheNewestEntriesUpToCapacity() {
+        InMemoryTimelineStore store = new InMemoryTimelineStore(3);
+        UUID oldest = UUID.randomUUID();
+        store.push(List.of(USER), oldest, 1_000);
+        for (long timestamp = 2_000; timestamp <= 4_000; timestamp += 1_000) {
+            store.push(List.of(USER), UUID.randomUUID(), timestamp);
+        }
+
+        assertThat(store.size(USER)).isEqualTo(3);
+        assertThat(store.range(USER, 0, 10)).extracting(TimelineEntry::timestamp).containsExactly(4_000L, 3_000L, 2_000L);
+
+        // An entry older than a full timeline is trimmed straight away
+        store.push(List.of(USER), UUID.randomUUID(), 500);
+        assertThat(store.range(USER, 0, 10)).extracting(TimelineEntry::timestamp).containsExactly(4_000L, 3_000L, 2_000L);
+    }
+
+    @Test
+    void rangePagesNewestFirstByOffset() {
+        InMemoryTimelineStore store = new InMemoryTimelineStore(800);
+        for (long timestamp = 1; timestamp <= 5; timestamp++) {
+            store.push(List.of(USER), UUID.randomUUID(), timestamp);
+        }
+
+        assertThat(store.range(USER, 0, 2)).extracting(TimelineEntry::timestamp).containsExactly(5L, 4L);
+        assertThat(store.range(USER, 2, 2)).extracting(TimelineEntry::timestamp).containsExactly(3L, 2L);
+        assertThat(store.range(USER, 4, 2)).extracting(TimelineEntry::timestamp).containsExactly(1L);
+        assertThat(store.range(USER, 5, 2)).isEmpty();
+        assertThat(store.range(UUID.randomUUID(), 0, 2)).isEmpty();
+    }
+
+    @Test
+    void rangeBeforeBreaksTimestampTiesByDescendingPostId() {
+        InMemoryTimelineStore store = new InMemoryTimelineStore(800);
+        UUID low = UUID.fromString("10000000-0000-0000-0000-000000000000");
+        UUID middle = UUID.fromString("80000000-0000-0000-0000-000000000000");
+        UUID high = UUID.fromString("f0000000-0000-0000-0000-000000000000");
+        UUID older = UUID.randomUUID();
+        store.push(List.of(USER), middle, 100);
+        store.push(List.of(USER), older, 99);
+        store.push(List.of(USER), high, 100);
+        store.push(List.of(USER), low, 100);
+
+        assertThat(store.range(USER, 0, 10)).extracting(TimelineEntry::postId).containsExactly(high, middle, low, older);
+        assertThat(store.rangeBefore(USER, 100, high, 10)).extracting(TimelineEntry::postId).containsExactly(middle, low, older);
+        assertThat(store.rangeBefore(USER, 100, middle, 1)).extracting(TimelineEntry::postId).containsExactly(low);
+        assertThat(store.rangeBefore(USER, 100, low, 10)).extracting(TimelineEntry::postId).containsExactly(older);
+        // A cursor between stored IDs still splits the tie by ID
+        assertThat(store.rangeBefore(USER, 100, UUID.fromString("90000000-0000-0000-0000-000000000000"), 10))
+                .extracting(TimelineEntry::postId).containsExactly(middle, low, older);
+    }
+
+    @Test
+    void removeDropsThePostFromEveryGivenTimeline() {
+        InMemoryTimelineStore store = new InMemoryTimelineStore(800);
+        UUID other = UUID.randomUUID();
+        UUID postId = UUID.randomUUID();
+        store.push(List.of(USER, other), postId, 10);
+        store.push(List.of(USER, other), UUID.randomUUID(), 20);
+
+        store.remove(List.of(USER, other), postId);
+
+        assertThat(store.range(USER, 0, 10)).extracting(TimelineEntry::postId).doesNotContain(postId);
+        assertThat(store.size(other)).isEqualTo(1);
+    }
+
+    @Test
+    void initializeKeepsEntriesFannedOutDuringTheBackfill() {
+        InMemoryTimelineStore store = new InMemoryTimelineStore(3);
+        UUID fannedOut = UUID.randomUUID();
+        store.push(List.of(USER), fannedOut, 50);
+        assertThat(store.isInitialized(USER)).isFalse();
+
+        store.initialize(USER, List.of(
+                new TimelineEntry(UUID.randomUUID(), 40),
+                new TimelineEntry(UUID.randomUUID(), 30),
+                new TimelineEntry(UUID.randomUUID(), 20)));
+
+        assertThat(store.isInitialized(USER)).isTrue();
+        assertThat(store.range(USER, 0, 10)).extracting(TimelineEntry::timestamp).containsExactly(50L, 40L, 30L);
+        assertThat(store.range(USER, 0, 1)).extracting(TimelineEntry::postId).containsExactly(fannedOut);
+    }
+}
@@ -0,0 +1,25 @@
+package com.instagram.like.config;
+
+import com.instagram.like.index.LikedPostsIndex;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+
+@Configuration
+public class LikedPostsIndexConfig {
+
+    @Bean
+    public RedisMessageListenerContainer likedPostsListener(RedisConnectionFactory connectionFactory,
+                                                           LikedPostsIndex likedPostsIndex) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> likedPostsIndex.onLikeMessage(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(LikedPostsIndex.LIKE_CHANNEL));
+        return container;
+    }
+}
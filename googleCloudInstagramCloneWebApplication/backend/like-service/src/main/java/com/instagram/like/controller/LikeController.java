@@ -1,9 +1,15 @@
 package com.instagram.like.controller;
 
+import com.instagram.common.dto.LikeBatchRequest;
+import com.instagram.common.dto.LikeBatchResponse;
+import com.instagram.common.dto.LikeStatusBitmap;
+import com.instagram.common.dto.PagedResponse;
+import com.instagram.common.dto.UserDto;
 import com.instagram.like.service.LikeService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -21,6 +27,14 @@ public class LikeController {
 
     private final LikeService likeService;
 
+    @PostMapping("/batch")
+    @Operation(summary = "Apply queued like and unlike operations for posts and comments")
+    public ResponseEntity<LikeBatchResponse> applyBatch(
+            @Valid @RequestBody LikeBatchRequest request,
+            @RequestHeader("X-User-Id") String userId) {
+        return ResponseEntity.ok(likeService.applyBatch(UUID.fromString(userId), request));
+    }
+
     // Post likes
 
     @PostMapping("/posts/{postId}")
@@ -57,6 +71,23 @@ public class LikeController {
         return ResponseEntity.ok(likeService.getPostLikeStatus(postIds, userId));
     }
 
+    @PostMapping(value = "/posts/status/bitmap", consumes = LikeStatusBitmap.MEDIA_TYPE, produces = LikeStatusBitmap.MEDIA_TYPE)
+    @Operation(summary = "Get like status for multiple posts as a bitmap (internal use)")
+    public ResponseEntity<byte[]> getPostLikeBitmap(
+            @RequestBody byte[] postIds,
+            @RequestParam UUID userId) {
+        return ResponseEntity.ok(likeService.getPostLikeBitmap(LikeStatusBitmap.decodeIds(postIds), userId));
+    }
+
+    @GetMapping("/posts/{postId}/likers")
+    @Operation(summary = "Get users who liked a post, newest first, using keyset pagination")
+    public ResponseEntity<PagedResponse<UserDto>> getPostLikers(
+            @PathVariable UUID postId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(likeService.getPostLikers(postId, cursor, size));
+    }
+
     @GetMapping("/posts/{postId}/count")
     @Operation(summary = "Get post likes count")
     public ResponseEntity<Long> getPostLikesCount(@PathVariable UUID postId) {
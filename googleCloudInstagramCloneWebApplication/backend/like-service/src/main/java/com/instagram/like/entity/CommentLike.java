@@ -8,9 +8,8 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "comment_likes", uniqueConstraints = {
-    @UniqueConstraint(columnNames = {"comment_id", "user_id"})
-})
+@Table(name = "comment_likes")
+@IdClass(CommentLikeId.class)
 @Getter
 @Setter
 @Builder
@@ -19,12 +18,10 @@ import java.util.UUID;
 public class CommentLike {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
-    private UUID id;
-
     @Column(name = "comment_id", nullable = false)
     private UUID commentId;
 
+    @Id
     @Column(name = "user_id", nullable = false)
     private UUID userId;
 
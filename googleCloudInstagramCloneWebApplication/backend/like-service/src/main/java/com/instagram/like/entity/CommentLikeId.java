@@ -0,0 +1,16 @@
+package com.instagram.like.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CommentLikeId implements Serializable {
+    private UUID commentId;
+    private UUID userId;
+}
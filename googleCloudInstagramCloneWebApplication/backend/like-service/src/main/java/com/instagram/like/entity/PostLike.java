@@ -8,9 +8,8 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "post_likes", uniqueConstraints = {
-    @UniqueConstraint(columnNames = {"post_id", "user_id"})
-})
+@Table(name = "post_likes")
+@IdClass(PostLikeId.class)
 @Getter
 @Setter
 @Builder
@@ -19,12 +18,10 @@ import java.util.UUID;
 public class PostLike {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
-    private UUID id;
-
     @Column(name = "post_id", nullable = false)
     private UUID postId;
 
+    @Id
     @Column(name = "user_id", nullable = false)
     private UUID userId;
 
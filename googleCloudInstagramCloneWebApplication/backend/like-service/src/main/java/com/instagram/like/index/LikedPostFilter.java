@@ -0,0 +1,99 @@
+package com.instagram.like.index;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over the post IDs one user has liked. {@link #mightContain} never answers false for a post
+ * that was added, so a negative is a definite "not liked"; positives may be false and must be confirmed
+ * against the database. Bits are set atomically so lookups can run while likes are being added.
+ */
+public final class LikedPostFilter {
+
+    // About 1% false positives at the sized capacity
+    private static final int BITS_PER_ID = 10;
+    private static final int HASHES = 7;
+    private static final int MIN_CAPACITY = 64;
+
+    private static final LikedPostFilter SATURATED = new LikedPostFilter(0);
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int capacity;
+    private final AtomicInteger size = new AtomicInteger();
+
+    private LikedPostFilter(int capacity) {
+        this.capacity = capacity;
+        this.bitCount = (long) capacity * BITS_PER_ID;
+        this.words = new AtomicLongArray((int) ((bitCount + 63) / 64));
+    }
+
+    /**
+     * Returns an empty filter sized for {@code expectedIds} plus room for later likes.
+     */
+    public static LikedPostFilter withCapacity(int expectedIds) {
+        return new LikedPostFilter(Math.max(MIN_CAPACITY, expectedIds + expectedIds / 4));
+    }
+
+    /**
+     * A filter that answers every lookup with "maybe", for users with too many likes to index.
+     */
+    public static LikedPostFilter saturated() {
+        return SATURATED;
+    }
+
+    public void add(UUID postId) {
+        if (this == SATURATED) {
+            return;
+        }
+        long h1 = mix(postId.getMostSignificantBits() ^ Long.rotateLeft(postId.getLeastSignificantBits(), 32));
+        long h2 = mix(postId.getLeastSignificantBits()) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            if ((words.get(word) & mask) == 0) {
+                words.getAndAccumulate(word, mask, (current, m) -> current | m);
+            }
+        }
+        size.incrementAndGet();
+    }
+
+    public boolean mightContain(UUID postId) {
+        if (this == SATURATED) {
+            return true;
+        }
+        long h1 = mix(postId.getMostSignificantBits() ^ Long.rotateLeft(postId.getLeastSignificantBits(), 32));
+        long h2 = mix(postId.getLeastSignificantBits()) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether enough likes were added past the sized capacity that the false-positive rate has degraded
+     * and the filter should be rebuilt.
+     */
+    public boolean isOverfull() {
+        return this != SATURATED && size.get() > capacity * 2;
+    }
+
+    /**
+     * Approximate heap footprint in 8-byte words, used to weigh cache entries.
+     */
+    public int weight() {
+        return words.length() + 1;
+    }
+
+    private static long mix(long z) {
+        // SplitMix64 finalizer; random UUIDs are already well spread, but time-ordered ones are not
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
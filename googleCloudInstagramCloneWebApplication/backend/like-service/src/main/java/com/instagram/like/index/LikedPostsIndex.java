@@ -0,0 +1,221 @@
+package com.instagram.like.index;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-user {@link LikedPostFilter}s, loaded on first use and bounded by their total size. A like is added
+ * to the filter once it commits, and other instances add it from the {@link #LIKE_CHANNEL} broadcast.
+ * Unlikes are not removed (a Bloom filter cannot forget), so they only cost a confirming query until the
+ * TTL rebuilds the filter.
+ * <p>
+ * Each committed like also bumps a per-user version in Redis, and every filter remembers the version it
+ * reflects. A read compares the two and rebuilds a filter that is behind, so a missed or failed broadcast
+ * costs a reload instead of a wrong "not liked". When Redis cannot be read, lookups skip the filter.
+ */
+@Component
+@Slf4j
+public class LikedPostsIndex {
+
+    public static final String LIKE_CHANNEL = "like:post-likes:added";
+
+    private static final String LIKED_POSTS_SQL = "SELECT post_id FROM post_likes WHERE user_id = ? LIMIT ?";
+    private static final String VERSION_KEY_PREFIX = "like:index:version:";
+
+    private static final RedisScript<Long> BUMP_VERSION_SCRIPT = RedisScript.of("""
+            local version = redis.call('INCR', KEYS[1])
+            redis.call('EXPIRE', KEYS[1], ARGV[1])
+            return version
+            """, Long.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final Cache<UUID, VersionedFilter> filters;
+    private final int maxLikesPerUser;
+    private final String versionTtlSeconds;
+    // Users whose version bump failed; retried before the next read or bump so other instances still notice
+    private final Set<UUID> pendingBumps = ConcurrentHashMap.newKeySet();
+
+    private record VersionedFilter(LikedPostFilter filter, long version) {
+    }
+
+    public LikedPostsIndex(JdbcTemplate jdbcTemplate,
+                           StringRedisTemplate redisTemplate,
+                           MeterRegistry meterRegistry,
+                           @Value("${like.index.max-words:8000000}") long maxWords,
+                           @Value("${like.index.max-likes-per-user:100000}") int maxLikesPerUser,
+                           @Value("${like.index.ttl:1800}") long ttlSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.redisTemplate = redisTemplate;
+        this.maxLikesPerUser = maxLikesPerUser;
+        // A version key outlives every filter that could still hold its value, so a key that expired and
+        // restarted from zero can never match a live filter's stale version
+        this.versionTtlSeconds = String.valueOf(ttlSeconds * 2);
+        // Weighed in 8-byte words, so the default holds about 64 MB of filters
+        this.filters = Caffeine.newBuilder()
+                .maximumWeight(maxWords)
+                .weigher((UUID userId, VersionedFilter cached) -> cached.filter().weight())
+                .expireAfter(expireAfterLoad(Duration.ofSeconds(ttlSeconds)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, filters, "likedPosts");
+    }
+
+    public LikedPostFilter get(UUID userId) {
+        long version;
+        try {
+            retryPendingBumps();
+            version = currentVersion(userId);
+        } catch (Exception e) {
+            log.warn("Like index version for {} unavailable, checking likes in the database: {}", userId, e.getMessage());
+            return LikedPostFilter.saturated();
+        }
+
+        VersionedFilter cached = filters.get(userId, id -> load(id, version));
+        if (cached.version() != version) {
+            // Behind a like this instance never saw; replaced as a new entry so it gets a full TTL
+            cached = load(userId, version);
+            filters.invalidate(userId);
+            filters.put(userId, cached);
+        }
+        return cached.filter();
+    }
+
+    public void recordLike(UUID userId, UUID postId) {
+        // A like that rolls back must never reach the filter
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(userId, postId);
+                }
+            });
+        } else {
+            publish(userId, postId);
+        }
+    }
+
+    /**
+     * Adds a like broadcast by any instance, including this one, as the user's {@code version}. Only filters
+     * already in memory are patched; a filter still loading picks the like up from the committed rows or
+     * from this update, which waits for the load to finish.
+     */
+    public void applyLike(UUID userId, UUID postId, long version) {
+        filters.asMap().computeIfPresent(userId, (id, cached) -> {
+            cached.filter().add(postId);
+            // Dropped rather than patched once overfull, so the next read rebuilds it at the right size
+            if (cached.filter().isOverfull()) {
+                return null;
+            }
+            // Only an unbroken run of versions shows no like was missed in between
+            return version == cached.version() + 1 ? new VersionedFilter(cached.filter(), version) : cached;
+        });
+    }
+
+    public void onLikeMessage(String message) {
+        // "<user>:<post>:<version>"
+        String[] parts = message.split(":");
+        if (parts.length < 3) {
+            // Unversioned, from an instance still on the old format: rebuild rather than guess
+            filters.invalidate(UUID.fromString(parts[0]));
+            return;
+        }
+        applyLike(UUID.fromString(parts[0]), UUID.fromString(parts[1]), Long.parseLong(parts[2]));
+    }
+
+    private void publish(UUID userId, UUID postId) {
+        long version;
+        try {
+            retryPendingBumps();
+            version = bumpVersion(userId);
+        } catch (Exception e) {
+            // Other instances notice once the retried bump lands; this one stops trusting its copy right away
+            log.warn("Failed to bump like index version for {}: {}", userId, e.getMessage());
+            pendingBumps.add(userId);
+            filters.invalidate(userId);
+            return;
+        }
+
+        applyLike(userId, postId, version);
+        try {
+            redisTemplate.convertAndSend(LIKE_CHANNEL, userId + ":" + postId + ":" + version);
+        } catch (Exception e) {
+            // Other instances see the new version on their next read and reload
+            log.warn("Failed to broadcast like of post {} by {}: {}", postId, userId, e.getMessage());
+        }
+    }
+
+    private long currentVersion(UUID userId) {
+        String version = redisTemplate.opsForValue().get(VERSION_KEY_PREFIX + userId);
+        return version != null ? Long.parseLong(version) : 0L;
+    }
+
+    private long bumpVersion(UUID userId) {
+        Long version = redisTemplate.execute(BUMP_VERSION_SCRIPT, List.of(VERSION_KEY_PREFIX + userId), versionTtlSeconds);
+        if (version == null) {
+            throw new IllegalStateException("No version returned");
+        }
+        return version;
+    }
+
+    private void retryPendingBumps() {
+        for (UUID userId : pendingBumps) {
+            bumpVersion(userId);
+            pendingBumps.remove(userId);
+        }
+    }
+
+    private static Expiry<UUID, VersionedFilter> expireAfterLoad(Duration ttl) {
+        // Patching a filter does not extend its life, so version keys only have to outlive one TTL
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(UUID userId, VersionedFilter cached, long currentTime) {
+                return ttl.toNanos();
+            }
+
+            @Override
+            public long expireAfterUpdate(UUID userId, VersionedFilter cached, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+
+            @Override
+            public long expireAfterRead(UUID userId, VersionedFilter cached, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+
+    private VersionedFilter load(UUID userId, long version) {
+        List<UUID> postIds = new ArrayList<>();
+        jdbcTemplate.query(LIKED_POSTS_SQL, rs -> {
+            postIds.add(rs.getObject(1, UUID.class));
+        }, userId, maxLikesPerUser + 1);
+
+        if (postIds.size() > maxLikesPerUser) {
+            // Too large to be worth holding; every lookup for this user goes to the database
+            return new VersionedFilter(LikedPostFilter.saturated(), version);
+        }
+
+        LikedPostFilter filter = LikedPostFilter.withCapacity(postIds.size());
+        postIds.forEach(filter::add);
+        return new VersionedFilter(filter, version);
+    }
+}
@@ -0,0 +1,251 @@
+package com.instagram.like.index;
+
+import com.instagram.common.dto.PageCursor;
+import com.instagram.like.entity.PostLike;
+import com.instagram.like.repository.PostLikeRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * The newest likers of each post, held in Redis as a sorted set scored by like time and capped at
+ * {@code like.recent-likers.capacity}, so the "liked by" preview and the first pages of the likers list
+ * never touch post_likes. Pages past the cap continue from Postgres with the same keyset order.
+ * <p>
+ * A ring is seeded from the database on first read and then patched after each committed like or unlike.
+ * Two marker members sort above every liker: {@code #seeded} tells a seeded ring from one that only holds
+ * likes recorded before any read, and {@code #complete} says the ring holds every liker of the post, so a
+ * short page is the last one.
+ * <p>
+ * A seed writes a database snapshot that may predate likes and unlikes committed while it ran. Seeded
+ * members never overwrite ones already in the ring, and each unlike leaves a short-lived tombstone that
+ * the seed skips, so a liker removed mid-seed is not written back.
+ */
+@Component
+@Slf4j
+public class RecentLikersCache {
+
+    private static final String KEY_PREFIX = "likes:recent:";
+    private static final String TOMBSTONES_SUFFIX = ":unliked";
+    // Far longer than a seed query takes
+    private static final String TOMBSTONE_TTL_SECONDS = "60";
+    private static final String SEEDED = "#seeded";
+    private static final String COMPLETE = "#complete";
+
+    // Same order as the likers query: newest first, user ID as tiebreak. UUID strings compare like
+    // Postgres uuids (unsigned bytes); UUID.compareTo does not.
+    private static final Comparator<Liker> NEWEST_FIRST = Comparator
+            .comparing(Liker::likedAt)
+            .thenComparing(liker -> liker.userId().toString())
+            .reversed();
+
+    // KEYS: ring, tombstones. ARGV: capacity, ttl, like score, user ID. Trimming keeps the capacity plus
+    // both markers, so a ring that loses its oldest liker is no longer complete.
+    private static final RedisScript<Long> ADD_SCRIPT = RedisScript.of("""
+            redis.call('SREM', KEYS[2], ARGV[4])
+            redis.call('ZADD', KEYS[1], ARGV[3], ARGV[4])
+            local trimmed = redis.call('ZREMRANGEBYRANK', KEYS[1], 0, -(tonumber(ARGV[1]) + 3))
+            if trimmed > 0 then redis.call('ZREM', KEYS[1], '#complete') end
+            redis.call('EXPIRE', KEYS[1], ARGV[2])
+            return trimmed
+            """, Long.class);
+
+    // KEYS: ring, tombstones. ARGV: user ID, tombstone ttl.
+    private static final RedisScript<Long> REMOVE_SCRIPT = RedisScript.of("""
+            redis.call('SADD', KEYS[2], ARGV[1])
+            redis.call('EXPIRE', KEYS[2], ARGV[2])
+            return redis.call('ZREM', KEYS[1], ARGV[1])
+            """, Long.class);
+
+    // KEYS: ring, tombstones. ARGV: capacity, ttl, complete flag, then score and user ID pairs. Likes recorded
+    // while the seed query ran are kept (NX) and trimmed together with the seeded ones.
+    private static final RedisScript<Long> SEED_SCRIPT = RedisScript.of("""
+            for i = 4, #ARGV, 2 do
+                if redis.call('SISMEMBER', KEYS[2], ARGV[i + 1]) == 0 then
+                    redis.call('ZADD', KEYS[1], 'NX', ARGV[i], ARGV[i + 1])
+                end
+            end
+            redis.call('ZADD', KEYS[1], '+inf', '#seeded')
+            if ARGV[3] == '1' then redis.call('ZADD', KEYS[1], '+inf', '#complete') end
+            local trimmed = redis.call('ZREMRANGEBYRANK', KEYS[1], 0, -(tonumber(ARGV[1]) + 3))
+            if trimmed > 0 then redis.call('ZREM', KEYS[1], '#complete') end
+            redis.call('EXPIRE', KEYS[1], ARGV[2])
+            return trimmed
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final PostLikeRepository postLikeRepository;
+    private final MeterRegistry meterRegistry;
+    private final int capacity;
+    private final String ttlSeconds;
+
+    public record Liker(UUID userId, LocalDateTime likedAt) {
+    }
+
+    private record Ring(List<Liker> likers, boolean complete) {
+    }
+
+    public RecentLikersCache(StringRedisTemplate redisTemplate,
+                             PostLikeRepository postLikeRepository,
+                             MeterRegistry meterRegistry,
+                             @Value("${like.recent-likers.capacity:100}") int capacity,
+                             @Value("${like.recent-likers.ttl:86400}") long ttlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.postLikeRepository = postLikeRepository;
+        this.meterRegistry = meterRegistry;
+        this.capacity = capacity;
+        this.ttlSeconds = String.valueOf(ttlSeconds);
+    }
+
+    /**
+     * Up to {@code limit} likers of the post strictly after the cursor, newest first.
+     */
+    public List<Liker> findLikers(UUID postId, PageCursor after, int limit) {
+        Ring ring;
+        try {
+            ring = readRing(postId);
+        } catch (Exception e) {
+            log.warn("Recent likers of post {} unavailable, reading from database: {}", postId, e.getMessage());
+            meterRegistry.counter("likes.recent_likers.requests", "result", "error").increment();
+            return findInDatabase(postId, after.getCreatedAt(), after.getId(), limit);
+        }
+
+        List<Liker> likers = new ArrayList<>(limit);
+        for (Liker liker : ring.likers()) {
+            if (likers.size() == limit) {
+                break;
+            }
+            if (isAfter(liker, after)) {
+                likers.add(liker);
+            }
+        }
+
+        if (likers.size() == limit || ring.complete()) {
+            meterRegistry.counter("likes.recent_likers.requests", "result", "hit").increment();
+            return likers;
+        }
+
+        // Past the capped ring: continue from its last liker (or the cursor) in Postgres
+        meterRegistry.counter("likes.recent_likers.requests", "result", "fallback").increment();
+        Liker last = likers.isEmpty() ? null : likers.get(likers.size() - 1);
+        likers.addAll(findInDatabase(postId,
+                last != null ? last.likedAt() : after.getCreatedAt(),
+                last != null ? last.userId() : after.getId(),
+                limit - likers.size()));
+        return likers;
+    }
+
+    public void recordLike(UUID postId, UUID userId, LocalDateTime likedAt) {
+        afterCommit(() -> redisTemplate.execute(ADD_SCRIPT, keys(postId),
+                String.valueOf(capacity), ttlSeconds, String.valueOf(score(likedAt)), userId.toString()));
+    }
+
+    public void recordUnlike(UUID postId, UUID userId) {
+        afterCommit(() -> redisTemplate.execute(REMOVE_SCRIPT, keys(postId), userId.toString(), TOMBSTONE_TTL_SECONDS));
+    }
+
+    private Ring readRing(UUID postId) {
+        Set<ZSetOperations.TypedTuple<String>> entries = redisTemplate.opsForZSet().reverseRangeWithScores(key(postId), 0, -1);
+        if (entries == null || entries.stream().noneMatch(entry -> SEEDED.equals(entry.getValue()))) {
+            meterRegistry.counter("likes.recent_likers.seeds").increment();
+            seed(postId);
+            entries = redisTemplate.opsForZSet().reverseRangeWithScores(key(postId), 0, -1);
+        }
+
+        List<Liker> likers = new ArrayList<>();
+        boolean complete = false;
+        for (ZSetOperations.TypedTuple<String> entry : entries) {
+            String member = entry.getValue();
+            if (COMPLETE.equals(member)) {
+                complete = true;
+            } else if (member != null && !member.startsWith("#") && entry.getScore() != null) {
+                likers.add(new Liker(UUID.fromString(member), likedAt(entry.getScore().longValue())));
+            }
+        }
+        likers.sort(NEWEST_FIRST);
+        return new Ring(likers, complete);
+    }
+
+    private void seed(UUID postId) {
+        PageCursor first = PageCursor.first();
+        List<Liker> newest = findInDatabase(postId, first.getCreatedAt(), first.getId(), capacity);
+
+        List<String> args = new ArrayList<>(3 + newest.size() * 2);
+        args.add(String.valueOf(capacity));
+        args.add(ttlSeconds);
+        args.add(newest.size() < capacity ? "1" : "0");
+        for (Liker liker : newest) {
+            args.add(String.valueOf(score(liker.likedAt())));
+            args.add(liker.userId().toString());
+        }
+        redisTemplate.execute(SEED_SCRIPT, keys(postId), args.toArray());
+    }
+
+    private List<Liker> findInDatabase(UUID postId, LocalDateTime createdAt, UUID userId, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        List<PostLike> rows = postLikeRepository.findLikersBefore(postId, createdAt, userId, PageRequest.of(0, limit));
+        return rows.stream().map(row -> new Liker(row.getUserId(), row.getCreatedAt())).toList();
+    }
+
+    private static boolean isAfter(Liker liker, PageCursor cursor) {
+        int byTime = liker.likedAt().compareTo(cursor.getCreatedAt());
+        return byTime < 0 || (byTime == 0 && liker.userId().toString().compareTo(cursor.getId().toString()) < 0);
+    }
+
+    private static void afterCommit(Runnable update) {
+        Runnable guarded = () -> {
+            try {
+                update.run();
+            } catch (Exception e) {
+                // The ring TTL bounds how long a missed update shows
+                log.warn("Failed to update recent likers: {}", e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    guarded.run();
+                }
+            });
+        } else {
+            guarded.run();
+        }
+    }
+
+    private static String key(UUID postId) {
+        // Hash-tagged so the ring and its tombstones share a cluster slot
+        return KEY_PREFIX + "{" + postId + "}";
+    }
+
+    private static List<String> keys(UUID postId) {
+        return List.of(key(postId), key(postId) + TOMBSTONES_SUFFIX);
+    }
+
+    // Epoch microseconds, the precision of created_at, which a double score holds exactly
+    private static long score(LocalDateTime likedAt) {
+        return likedAt.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + likedAt.getNano() / 1_000;
+    }
+
+    private static LocalDateTime likedAt(long score) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(score, 1_000_000L),
+                (int) Math.floorMod(score, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+}
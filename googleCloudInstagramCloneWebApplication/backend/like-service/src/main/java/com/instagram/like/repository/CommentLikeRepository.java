@@ -1,9 +1,11 @@
 package com.instagram.like.repository;
 
 import com.instagram.like.entity.CommentLike;
+import com.instagram.like.entity.CommentLikeId;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -13,13 +15,20 @@ import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface CommentLikeRepository extends JpaRepository<CommentLike, UUID> {
+public interface CommentLikeRepository extends JpaRepository<CommentLike, CommentLikeId> {
 
     Optional<CommentLike> findByCommentIdAndUserId(UUID commentId, UUID userId);
 
     boolean existsByCommentIdAndUserId(UUID commentId, UUID userId);
 
-    void deleteByCommentIdAndUserId(UUID commentId, UUID userId);
+    @Modifying
+    @Query(value = "INSERT INTO comment_likes (comment_id, user_id) VALUES (:commentId, :userId) ON CONFLICT ON CONSTRAINT uk_comment_likes_comment_user DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("commentId") UUID commentId, @Param("userId") UUID userId);
+
+    @Modifying
+    @Query(value = "DELETE FROM comment_likes WHERE comment_id = :commentId AND user_id = :userId", nativeQuery = true)
+    int deleteIfPresent(@Param("commentId") UUID commentId, @Param("userId") UUID userId);
 
     @Query("SELECT cl.userId FROM CommentLike cl WHERE cl.commentId = :commentId ORDER BY cl.createdAt DESC")
     Page<UUID> findUserIdsByCommentId(@Param("commentId") UUID commentId, Pageable pageable);
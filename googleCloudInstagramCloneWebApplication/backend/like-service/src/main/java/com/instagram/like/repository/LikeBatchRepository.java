@@ -0,0 +1,71 @@
+package com.instagram.like.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Bulk like writes for one user, kept with plain JDBC so each kind of change goes to Postgres as a single
+ * JDBC batch. Every method returns the targets whose row actually changed, read from the per-row update
+ * counts; this relies on the driver not rewriting batches ({@code reWriteBatchedInserts}), which reports
+ * no per-row counts.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LikeBatchRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<UUID> insertPostLikes(UUID userId, List<UUID> postIds, LocalDateTime likedAt) {
+        return apply("INSERT INTO post_likes (post_id, user_id, created_at) VALUES (?, ?, ?) " +
+                     "ON CONFLICT ON CONSTRAINT uk_post_likes_post_user DO NOTHING", userId, postIds, likedAt);
+    }
+
+    public List<UUID> deletePostLikes(UUID userId, List<UUID> postIds) {
+        return apply("DELETE FROM post_likes WHERE post_id = ? AND user_id = ?", userId, postIds);
+    }
+
+    public List<UUID> insertCommentLikes(UUID userId, List<UUID> commentIds) {
+        return apply("INSERT INTO comment_likes (comment_id, user_id) VALUES (?, ?) " +
+                     "ON CONFLICT ON CONSTRAINT uk_comment_likes_comment_user DO NOTHING", userId, commentIds);
+    }
+
+    public List<UUID> deleteCommentLikes(UUID userId, List<UUID> commentIds) {
+        return apply("DELETE FROM comment_likes WHERE comment_id = ? AND user_id = ?", userId, commentIds);
+    }
+
+    private List<UUID> apply(String sql, UUID userId, List<UUID> targetIds) {
+        return apply(sql, userId, targetIds, null);
+    }
+
+    private List<UUID> apply(String sql, UUID userId, List<UUID> targetIds, LocalDateTime likedAt) {
+        if (targetIds.isEmpty()) {
+            return List.of();
+        }
+
+        int[][] counts = jdbcTemplate.batchUpdate(sql, targetIds, targetIds.size(), (ps, targetId) -> {
+            ps.setObject(1, targetId);
+            ps.setObject(2, userId);
+            if (likedAt != null) {
+                ps.setObject(3, likedAt);
+            }
+        });
+
+        List<UUID> changed = new ArrayList<>();
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count > 0) {
+                    changed.add(targetIds.get(index));
+                }
+                index++;
+            }
+        }
+        return changed;
+    }
+}
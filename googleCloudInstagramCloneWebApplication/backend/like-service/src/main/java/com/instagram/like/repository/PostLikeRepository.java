@@ -1,28 +1,45 @@
 package com.instagram.like.repository;
 
 import com.instagram.like.entity.PostLike;
-import org.springframework.data.domain.Page;
+import com.instagram.like.entity.PostLikeId;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface PostLikeRepository extends JpaRepository<PostLike, UUID> {
+public interface PostLikeRepository extends JpaRepository<PostLike, PostLikeId> {
 
     Optional<PostLike> findByPostIdAndUserId(UUID postId, UUID userId);
 
     boolean existsByPostIdAndUserId(UUID postId, UUID userId);
 
-    void deleteByPostIdAndUserId(UUID postId, UUID userId);
-
-    @Query("SELECT pl.userId FROM PostLike pl WHERE pl.postId = :postId ORDER BY pl.createdAt DESC")
-    Page<UUID> findUserIdsByPostId(@Param("postId") UUID postId, Pageable pageable);
+    // Single statements whose row count says whether anything changed, so a repeated tap is a no-op
+    // instead of a unique-constraint violation
+    @Modifying
+    @Query(value = "INSERT INTO post_likes (post_id, user_id, created_at) VALUES (:postId, :userId, :createdAt) ON CONFLICT ON CONSTRAINT uk_post_likes_post_user DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("postId") UUID postId, @Param("userId") UUID userId, @Param("createdAt") LocalDateTime createdAt);
+
+    @Modifying
+    @Query(value = "DELETE FROM post_likes WHERE post_id = :postId AND user_id = :userId", nativeQuery = true)
+    int deleteIfPresent(@Param("postId") UUID postId, @Param("userId") UUID userId);
+
+    // The bare bound on created_at is what lets the keyset index seek; the OR only settles ties
+    @Query("SELECT pl FROM PostLike pl WHERE pl.postId = :postId AND pl.createdAt <= :createdAt " +
+           "AND (pl.createdAt < :createdAt OR (pl.createdAt = :createdAt AND pl.userId < :userId)) " +
+           "ORDER BY pl.createdAt DESC, pl.userId DESC")
+    List<PostLike> findLikersBefore(@Param("postId") UUID postId,
+                                    @Param("createdAt") LocalDateTime createdAt,
+                                    @Param("userId") UUID userId,
+                                    Pageable pageable);
 
     long countByPostId(UUID postId);
 
@@ -1,17 +1,30 @@
 package com.instagram.like.service;
 
+import com.instagram.common.client.UserServiceClient;
+import com.instagram.common.counter.CounterOutbox;
+import com.instagram.common.counter.CounterType;
+import com.instagram.common.dto.LikeBatchRequest;
+import com.instagram.common.dto.LikeBatchResponse;
+import com.instagram.common.dto.LikeStatusBitmap;
+import com.instagram.common.dto.PageCursor;
+import com.instagram.common.dto.PagedResponse;
+import com.instagram.common.dto.UserDto;
 import com.instagram.common.exception.BadRequestException;
-import com.instagram.like.entity.CommentLike;
-import com.instagram.like.entity.PostLike;
+import com.instagram.like.index.LikedPostFilter;
+import com.instagram.like.index.LikedPostsIndex;
+import com.instagram.like.index.RecentLikersCache;
 import com.instagram.like.repository.CommentLikeRepository;
+import com.instagram.like.repository.LikeBatchRepository;
 import com.instagram.like.repository.PostLikeRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -21,72 +34,59 @@ import java.util.stream.Collectors;
 @Transactional
 public class LikeService {
 
+    private static final int MAX_STATUS_BATCH_SIZE = 1000;
+    private static final int MAX_LIKERS_PAGE_SIZE = 100;
+
     private final PostLikeRepository postLikeRepository;
     private final CommentLikeRepository commentLikeRepository;
-    private final RestTemplate restTemplate;
-
-    @Value("${post.service.url}")
-    private String postServiceUrl;
-
-    @Value("${comment.service.url}")
-    private String commentServiceUrl;
-
+    private final LikeBatchRepository likeBatchRepository;
+    private final CounterOutbox counterOutbox;
+    private final LikedPostsIndex likedPostsIndex;
+    private final RecentLikersCache recentLikersCache;
+    private final UserServiceClient userServiceClient;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Likes the post. Idempotent: liking an already-liked post changes nothing and records no count delta.
+     */
     public void likePost(UUID postId, UUID userId) {
-        if (postLikeRepository.existsByPostIdAndUserId(postId, userId)) {
-            throw new BadRequestException("Post already liked");
+        LocalDateTime likedAt = likedAt();
+        if (postLikeRepository.insertIfAbsent(postId, userId, likedAt) == 0) {
+            log.debug("User {} already liked post {}", userId, postId);
+            return;
         }
 
-        PostLike like = PostLike.builder()
-                .postId(postId)
-                .userId(userId)
-                .build();
+        likedPostsIndex.recordLike(userId, postId);
+        recentLikersCache.recordLike(postId, userId, likedAt);
 
-        postLikeRepository.save(like);
-
-        // Update post likes count
-        try {
-            restTemplate.postForEntity(
-                    postServiceUrl + "/api/posts/" + postId + "/likes/increment",
-                    null,
-                    Void.class
-            );
-        } catch (Exception e) {
-            log.warn("Failed to increment likes count for post {}: {}", postId, e.getMessage());
-        }
+        // Likes count is applied by the owning service once the outbox relay delivers it
+        counterOutbox.record(CounterType.POST_LIKES, postId, 1);
 
         log.info("User {} liked post {}", userId, postId);
     }
 
     public void unlikePost(UUID postId, UUID userId) {
-        if (!postLikeRepository.existsByPostIdAndUserId(postId, userId)) {
-            throw new BadRequestException("Post not liked");
+        if (postLikeRepository.deleteIfPresent(postId, userId) == 0) {
+            log.debug("User {} had not liked post {}", userId, postId);
+            return;
         }
 
-        postLikeRepository.deleteByPostIdAndUserId(postId, userId);
-
-        // Update post likes count
-        try {
-            restTemplate.postForEntity(
-                    postServiceUrl + "/api/posts/" + postId + "/likes/decrement",
-                    null,
-                    Void.class
-            );
-        } catch (Exception e) {
-            log.warn("Failed to decrement likes count for post {}: {}", postId, e.getMessage());
-        }
+        recentLikersCache.recordUnlike(postId, userId);
+
+        counterOutbox.record(CounterType.POST_LIKES, postId, -1);
 
         log.info("User {} unliked post {}", userId, postId);
     }
 
     @Transactional(readOnly = true)
     public boolean isPostLiked(UUID postId, UUID userId) {
+        // One primary-key probe; loading the user's whole filter would cost more than it saves
         return postLikeRepository.existsByPostIdAndUserId(postId, userId);
     }
 
     @Transactional(readOnly = true)
     public Map<String, Boolean> getPostLikeStatus(List<UUID> postIds, UUID userId) {
-        List<UUID> likedPostIds = postLikeRepository.findLikedPostIds(postIds, userId);
-        Set<UUID> likedSet = new HashSet<>(likedPostIds);
+        Set<UUID> likedSet = findLikedPostIds(postIds, userId);
 
         return postIds.stream()
                 .collect(Collectors.toMap(
@@ -95,54 +95,79 @@ public class LikeService {
                 ));
     }
 
+    /**
+     * Like status for the posts as a {@link LikeStatusBitmap}, one bit per post in request order.
+     */
+    @Transactional(readOnly = true)
+    public byte[] getPostLikeBitmap(List<UUID> postIds, UUID userId) {
+        if (postIds.size() > MAX_STATUS_BATCH_SIZE) {
+            throw new BadRequestException("At most " + MAX_STATUS_BATCH_SIZE + " post IDs per request");
+        }
+
+        Set<UUID> likedSet = findLikedPostIds(postIds, userId);
+        byte[] bitmap = LikeStatusBitmap.newBitmap(postIds.size());
+        for (int i = 0; i < postIds.size(); i++) {
+            if (likedSet.contains(postIds.get(i))) {
+                LikeStatusBitmap.set(bitmap, i);
+            }
+        }
+        return bitmap;
+    }
+
     @Transactional(readOnly = true)
     public long getPostLikesCount(UUID postId) {
         return postLikeRepository.countByPostId(postId);
     }
 
-    public void likeComment(UUID commentId, UUID userId) {
-        if (commentLikeRepository.existsByCommentIdAndUserId(commentId, userId)) {
-            throw new BadRequestException("Comment already liked");
+    /**
+     * Users who liked the post, newest like first, with keyset pagination; the "liked by" preview is the
+     * first page with a small size.
+     */
+    // No surrounding transaction: the likers come from Redis or short queries of their own, and no
+    // connection should be held across the user-service call that hydrates them
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public PagedResponse<UserDto> getPostLikers(UUID postId, String cursor, int size) {
+        if (size < 1 || size > MAX_LIKERS_PAGE_SIZE) {
+            throw new BadRequestException("Page size must be between 1 and " + MAX_LIKERS_PAGE_SIZE);
         }
 
-        CommentLike like = CommentLike.builder()
-                .commentId(commentId)
-                .userId(userId)
-                .build();
+        // One extra liker tells whether another page follows
+        List<RecentLikersCache.Liker> likers = recentLikersCache.findLikers(postId, PageCursor.decode(cursor), size + 1);
+        boolean hasNext = likers.size() > size;
+        List<RecentLikersCache.Liker> page = hasNext ? likers.subList(0, size) : likers;
+
+        Map<UUID, UserDto> users = userServiceClient.getUsers(page.stream().map(RecentLikersCache.Liker::userId).toList());
+        List<UserDto> content = page.stream()
+                .map(liker -> users.get(liker.userId()))
+                .filter(Objects::nonNull)
+                .toList();
+
+        String nextCursor = null;
+        if (hasNext) {
+            RecentLikersCache.Liker last = page.get(page.size() - 1);
+            nextCursor = PageCursor.of(last.likedAt(), last.userId()).encode();
+        }
+        return PagedResponse.ofCursor(content, size, nextCursor);
+    }
 
-        commentLikeRepository.save(like);
-
-        // Update comment likes count
-        try {
-            restTemplate.postForEntity(
-                    commentServiceUrl + "/api/comments/" + commentId + "/likes/increment",
-                    null,
-                    Void.class
-            );
-        } catch (Exception e) {
-            log.warn("Failed to increment likes count for comment {}: {}", commentId, e.getMessage());
+    public void likeComment(UUID commentId, UUID userId) {
+        if (commentLikeRepository.insertIfAbsent(commentId, userId) == 0) {
+            log.debug("User {} already liked comment {}", userId, commentId);
+            return;
         }
 
+        counterOutbox.record(CounterType.COMMENT_LIKES, commentId, 1);
+
         log.info("User {} liked comment {}", userId, commentId);
     }
 
     public void unlikeComment(UUID commentId, UUID userId) {
-        if (!commentLikeRepository.existsByCommentIdAndUserId(commentId, userId)) {
-            throw new BadRequestException("Comment not liked");
+        if (commentLikeRepository.deleteIfPresent(commentId, userId) == 0) {
+            log.debug("User {} had not liked comment {}", userId, commentId);
+            return;
         }
 
-        commentLikeRepository.deleteByCommentIdAndUserId(commentId, userId);
-
-        // Update comment likes count
-        try {
-            restTemplate.postForEntity(
-                    commentServiceUrl + "/api/comments/" + commentId + "/likes/decrement",
-                    null,
-                    Void.class
-            );
-        } catch (Exception e) {
-            log.warn("Failed to decrement likes count for comment {}: {}", commentId, e.getMessage());
-        }
+        counterOutbox.record(CounterType.COMMENT_LIKES, commentId, -1);
 
         log.info("User {} unliked comment {}", userId, commentId);
     }
@@ -168,4 +193,87 @@ public class LikeService {
     public long getCommentLikesCount(UUID commentId) {
         return commentLikeRepository.countByCommentId(commentId);
     }
+
+    /**
+     * Applies a user's queued like and unlike taps in one transaction, with one JDBC batch per kind of change
+     * and one counter delta per target whose state changed.
+     */
+    public LikeBatchResponse applyBatch(UUID userId, LikeBatchRequest request) {
+        // Both actions are idempotent, so replaying the taps in order ends in each target's last action;
+        // a like followed by an unlike of the same target collapses to the unlike
+        Map<LikeBatchRequest.TargetType, Map<UUID, LikeBatchRequest.Action>> lastActions =
+                new EnumMap<>(LikeBatchRequest.TargetType.class);
+        for (LikeBatchRequest.Operation operation : request.getOperations()) {
+            // Sorted so concurrent batches touch rows in the same order
+            lastActions.computeIfAbsent(operation.getTargetType(), type -> new TreeMap<>())
+                    .put(operation.getTargetId(), operation.getAction());
+        }
+
+        Map<UUID, LikeBatchRequest.Action> posts = lastActions.getOrDefault(LikeBatchRequest.TargetType.POST, Map.of());
+        Map<UUID, LikeBatchRequest.Action> comments = lastActions.getOrDefault(LikeBatchRequest.TargetType.COMMENT, Map.of());
+
+        LocalDateTime likedAt = likedAt();
+        List<UUID> likedPosts = likeBatchRepository.insertPostLikes(userId, targetsWith(posts, LikeBatchRequest.Action.LIKE), likedAt);
+        List<UUID> unlikedPosts = likeBatchRepository.deletePostLikes(userId, targetsWith(posts, LikeBatchRequest.Action.UNLIKE));
+        List<UUID> likedComments = likeBatchRepository.insertCommentLikes(userId, targetsWith(comments, LikeBatchRequest.Action.LIKE));
+        List<UUID> unlikedComments = likeBatchRepository.deleteCommentLikes(userId, targetsWith(comments, LikeBatchRequest.Action.UNLIKE));
+
+        likedPosts.forEach(postId -> {
+            likedPostsIndex.recordLike(userId, postId);
+            recentLikersCache.recordLike(postId, userId, likedAt);
+        });
+        unlikedPosts.forEach(postId -> recentLikersCache.recordUnlike(postId, userId));
+        counterOutbox.recordAll(CounterType.POST_LIKES, deltas(likedPosts, unlikedPosts));
+        counterOutbox.recordAll(CounterType.COMMENT_LIKES, deltas(likedComments, unlikedComments));
+
+        int changed = likedPosts.size() + unlikedPosts.size() + likedComments.size() + unlikedComments.size();
+        log.info("User {} applied {} like operations: {} targets, {} changed",
+                userId, request.getOperations().size(), posts.size() + comments.size(), changed);
+        return LikeBatchResponse.builder()
+                .operations(request.getOperations().size())
+                .targets(posts.size() + comments.size())
+                .changed(changed)
+                .build();
+    }
+
+    // Set here rather than by the column default so the recent-likers ring scores each like with the exact
+    // created_at its row holds; truncated to the column's microsecond precision
+    private static LocalDateTime likedAt() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    private static List<UUID> targetsWith(Map<UUID, LikeBatchRequest.Action> lastActions, LikeBatchRequest.Action action) {
+        List<UUID> targets = new ArrayList<>();
+        lastActions.forEach((targetId, lastAction) -> {
+            if (lastAction == action) {
+                targets.add(targetId);
+            }
+        });
+        return targets;
+    }
+
+    private static Map<UUID, Integer> deltas(List<UUID> liked, List<UUID> unliked) {
+        Map<UUID, Integer> deltas = new LinkedHashMap<>();
+        liked.forEach(targetId -> deltas.put(targetId, 1));
+        unliked.forEach(targetId -> deltas.put(targetId, -1));
+        return deltas;
+    }
+
+    private Set<UUID> findLikedPostIds(List<UUID> postIds, UUID userId) {
+        // The filter answers "not liked" outright; only its positives, mostly real likes, are confirmed in Postgres
+        LikedPostFilter filter = likedPostsIndex.get(userId);
+        List<UUID> candidates = new ArrayList<>();
+        for (UUID postId : postIds) {
+            if (filter.mightContain(postId)) {
+                candidates.add(postId);
+            }
+        }
+
+        meterRegistry.counter("likes.status.lookups", "result", "filtered").increment(postIds.size() - candidates.size());
+        if (candidates.isEmpty()) {
+            return Collections.emptySet();
+        }
+        meterRegistry.counter("likes.status.lookups", "result", "checked").increment(candidates.size());
+        return new HashSet<>(postLikeRepository.findLikedPostIds(candidates, userId));
+    }
 }
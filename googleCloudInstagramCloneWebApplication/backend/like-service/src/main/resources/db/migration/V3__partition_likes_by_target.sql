@@ -0,0 +1,56 @@
+-- Hash-partition likes by the liked post or comment. The surrogate id and the separate post_id/comment_id
+-- indexes go away: the (target, user) primary key serves uniqueness, per-target lookups and counts, so a
+-- like writes two B-trees instead of four (V4 adds a third for post likes), each in a partition 1/16th
+-- the size of the old table.
+-- Range partitioning by created_at was not used: Postgres requires unique constraints on a partitioned
+-- table to include the partition key, which would make (target, user) uniqueness per-partition only.
+
+ALTER TABLE post_likes RENAME TO post_likes_unpartitioned;
+ALTER TABLE post_likes_unpartitioned RENAME CONSTRAINT uk_post_likes_post_user TO uk_post_likes_unpartitioned_post_user;
+
+CREATE TABLE post_likes (
+    post_id UUID NOT NULL,
+    user_id UUID NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_post_likes_post_user PRIMARY KEY (post_id, user_id)
+) PARTITION BY HASH (post_id);
+
+DO $$
+BEGIN
+    FOR i IN 0..15 LOOP
+        EXECUTE format('CREATE TABLE post_likes_p%s PARTITION OF post_likes FOR VALUES WITH (MODULUS 16, REMAINDER %s)', i, i);
+    END LOOP;
+END $$;
+
+INSERT INTO post_likes (post_id, user_id, created_at)
+SELECT post_id, user_id, created_at FROM post_likes_unpartitioned;
+
+DROP TABLE post_likes_unpartitioned;
+
+-- Covers the per-user liked-post scan that builds the like-status filters
+CREATE INDEX idx_post_likes_user_post ON post_likes (user_id, post_id);
+
+
+ALTER TABLE comment_likes RENAME TO comment_likes_unpartitioned;
+ALTER TABLE comment_likes_unpartitioned RENAME CONSTRAINT uk_comment_likes_comment_user TO uk_comment_likes_unpartitioned_comment_user;
+
+CREATE TABLE comment_likes (
+    comment_id UUID NOT NULL,
+    user_id UUID NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_comment_likes_comment_user PRIMARY KEY (comment_id, user_id)
+) PARTITION BY HASH (comment_id);
+
+DO $$
+BEGIN
+    FOR i IN 0..15 LOOP
+        EXECUTE format('CREATE TABLE comment_likes_p%s PARTITION OF comment_likes FOR VALUES WITH (MODULUS 16, REMAINDER %s)', i, i);
+    END LOOP;
+END $$;
+
+INSERT INTO comment_likes (comment_id, user_id, created_at)
+SELECT comment_id, user_id, created_at FROM comment_likes_unpartitioned;
+
+DROP TABLE comment_likes_unpartitioned;
+
+CREATE INDEX idx_comment_likes_user_comment ON comment_likes (user_id, comment_id);
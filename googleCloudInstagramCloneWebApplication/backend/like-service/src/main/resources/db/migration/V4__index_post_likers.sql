@@ -0,0 +1,5 @@
+-- Likers of a post, newest first, for the keyset pages past the recent-likers cache.
+-- This is a third B-tree write per post like, after the (post_id, user_id) primary key and
+-- idx_post_likes_user_post; it cannot fold into either, since the key must stay (post_id, user_id) for the
+-- ON CONFLICT inserts and the user index leads with user_id. Comment likes keep two B-trees.
+CREATE INDEX idx_post_likes_post_created_user ON post_likes (post_id, created_at DESC, user_id DESC);
@@ -0,0 +1,190 @@
+package com.instagram.like.controller;
+
+import com.instagram.common.counter.CounterOutboxRelay;
+import com.instagram.common.dto.LikeBatchRequest;
+import com.instagram.common.security.JwtTokenProvider;
+import com.instagram.like.TestcontainersConfiguration;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Offline tap queues replayed over HTTP, one request per tap against one {@code POST /api/likes/batch}
+ * per queue. Each round, eight clients replay the same seeded queues through both paths
+ * concurrently, as different users; the median operations per second over the rounds is printed along
+ * with the outbox rows each path wrote, and both paths must leave the same number of likes behind.
+ * Run with {@code mvn test -P benchmarks -pl like-service}.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class LikeBatchThroughputBenchmarkTest {
+
+    private static final int CLIENTS = 8;
+    private static final int TAPS_PER_QUEUE = 200;
+    private static final int POSTS = 100;
+    private static final int WARMUP_ROUNDS = 1;
+    private static final int MEASURED_ROUNDS = 5;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Keeps the outbox intact so the rows each path wrote can be counted
+    @MockBean
+    private CounterOutboxRelay counterOutboxRelay;
+
+    @Test
+    void batchReplayAgainstPerRequestReplay() throws Exception {
+        List<UUID> posts = new ArrayList<>();
+        for (int i = 0; i < POSTS; i++) {
+            posts.add(UUID.randomUUID());
+        }
+
+        double[] perRequest = new double[MEASURED_ROUNDS];
+        double[] batched = new double[MEASURED_ROUNDS];
+        long perRequestOutboxRows = 0;
+        long batchedOutboxRows = 0;
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+            List<List<LikeBatchRequest.Operation>> queues = new ArrayList<>();
+            for (int client = 0; client < CLIENTS; client++) {
+                queues.add(tapQueue(posts, new Random(round * 1000L + client)));
+            }
+
+            long outboxBefore = outboxRows();
+            Replay single = replay(queues, this::sendEachTap);
+            long outboxBetween = outboxRows();
+            Replay batch = replay(queues, this::sendBatch);
+            long outboxAfter = outboxRows();
+
+            assertThat(likesOf(batch.users())).isEqualTo(likesOf(single.users()));
+            if (round >= WARMUP_ROUNDS) {
+                perRequest[round - WARMUP_ROUNDS] = single.opsPerSecond();
+                batched[round - WARMUP_ROUNDS] = batch.opsPerSecond();
+                perRequestOutboxRows += outboxBetween - outboxBefore;
+                batchedOutboxRows += outboxAfter - outboxBetween;
+            }
+        }
+
+        System.out.printf("%nLike replay, %d clients x %d taps, median of %d rounds%n",
+                CLIENTS, TAPS_PER_QUEUE, MEASURED_ROUNDS);
+        System.out.printf("%-12s %14s %14s%n", "path", "taps/s", "outbox rows");
+        System.out.printf("%-12s %14.0f %14d%n", "per-request", median(perRequest), perRequestOutboxRows);
+        System.out.printf("%-12s %14.0f %14d%n", "batch", median(batched), batchedOutboxRows);
+    }
+
+    // Mostly likes over a small set of posts, so some targets are liked then unliked within the queue
+    private static List<LikeBatchRequest.Operation> tapQueue(List<UUID> posts, Random random) {
+        List<LikeBatchRequest.Operation> taps = new ArrayList<>(TAPS_PER_QUEUE);
+        for (int i = 0; i < TAPS_PER_QUEUE; i++) {
+            taps.add(LikeBatchRequest.Operation.builder()
+                    .action(random.nextInt(10) < 7 ? LikeBatchRequest.Action.LIKE : LikeBatchRequest.Action.UNLIKE)
+                    .targetType(LikeBatchRequest.TargetType.POST)
+                    .targetId(posts.get(random.nextInt(posts.size())))
+                    .build());
+        }
+        return taps;
+    }
+
+    private Replay replay(List<List<LikeBatchRequest.Operation>> queues,
+                          BiConsumer<UUID, List<LikeBatchRequest.Operation>> send) throws Exception {
+        List<UUID> users = new ArrayList<>();
+        for (int i = 0; i < queues.size(); i++) {
+            users.add(UUID.randomUUID());
+        }
+
+        ExecutorService clients = Executors.newFixedThreadPool(queues.size());
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> replays = new ArrayList<>();
+            for (int i = 0; i < queues.size(); i++) {
+                UUID userId = users.get(i);
+                List<LikeBatchRequest.Operation> queue = queues.get(i);
+                replays.add(clients.submit(() -> send.accept(userId, queue)));
+            }
+            for (Future<?> replay : replays) {
+                replay.get();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            return new Replay(users, queues.size() * TAPS_PER_QUEUE / seconds);
+        } finally {
+            clients.shutdown();
+        }
+    }
+
+    private void sendEachTap(UUID userId, List<LikeBatchRequest.Operation> taps) {
+        HttpEntity<Void> request = new HttpEntity<>(headers(userId));
+        for (LikeBatchRequest.Operation tap : taps) {
+            HttpMethod method = tap.getAction() == LikeBatchRequest.Action.LIKE ? HttpMethod.POST : HttpMethod.DELETE;
+            ResponseEntity<Void> response = restTemplate.exchange(
+                    "/api/likes/posts/{postId}", method, request, Void.class, tap.getTargetId());
+            assertThat(response.getStatusCode().is2xxSuccessful()).isTrue();
+        }
+    }
+
+    private void sendBatch(UUID userId, List<LikeBatchRequest.Operation> taps) {
+        HttpEntity<LikeBatchRequest> request = new HttpEntity<>(
+                LikeBatchRequest.builder().operations(taps).build(), headers(userId));
+        ResponseEntity<String> response = restTemplate.exchange(
+                "/api/likes/batch", HttpMethod.POST, request, String.class);
+        assertThat(response.getStatusCode().is2xxSuccessful()).isTrue();
+    }
+
+    private HttpHeaders headers(UUID userId) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(jwtTokenProvider.generateToken(userId.toString(), "user-" + userId));
+        headers.set("X-User-Id", userId.toString());
+        return headers;
+    }
+
+    private List<Long> likesOf(List<UUID> users) {
+        List<Long> likes = new ArrayList<>();
+        for (UUID userId : users) {
+            likes.add(jdbcTemplate.queryForObject("SELECT count(*) FROM post_likes WHERE user_id = ?", Long.class, userId));
+        }
+        return likes;
+    }
+
+    private long outboxRows() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM counter_outbox", Long.class);
+    }
+
+    private static double median(double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private record Replay(List<UUID> users, double opsPerSecond) {
+    }
+}
@@ -0,0 +1,148 @@
+package com.instagram.like.index;
+
+import com.instagram.common.dto.LikeStatusBitmap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups per second against one user's liked-post filter, with a HashSet of the same IDs as the exact
+ * in-memory baseline, and the cost of answering a feed page in the binary bitmap format against the
+ * string-keyed map it replaced. Run with {@code mvn -pl like-service test-compile exec:java
+ * -Dexec.classpathScope=test -Dexec.mainClass=com.instagram.like.index.LikedPostFilterBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LikedPostFilterBenchmark {
+
+    private static final int PROBES = 1024;
+    private static final int PAGE_SIZE = 20;
+
+    // Likes held by one user: a casual user, an active one, and like.index.max-likes-per-user
+    @Param({"100", "10000", "100000"})
+    private int likes;
+
+    private LikedPostFilter filter;
+    private Set<UUID> exact;
+    private UUID[] liked;
+    private UUID[] notLiked;
+    private List<UUID> page;
+    private byte[] pageBody;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        filter = LikedPostFilter.withCapacity(likes);
+        exact = new HashSet<>();
+        List<UUID> likedIds = new ArrayList<>(likes);
+        for (int i = 0; i < likes; i++) {
+            UUID postId = UUID.randomUUID();
+            filter.add(postId);
+            exact.add(postId);
+            likedIds.add(postId);
+        }
+
+        liked = new UUID[PROBES];
+        notLiked = new UUID[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            liked[i] = likedIds.get(i % likes);
+            notLiked[i] = UUID.randomUUID();
+        }
+
+        // A feed page where a few posts are liked, as most are not
+        page = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            page.add(i % 5 == 0 ? liked[i] : notLiked[i]);
+        }
+        pageBody = LikeStatusBitmap.encodeIds(page);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public void filterNotLiked(Blackhole blackhole) {
+        for (UUID postId : notLiked) {
+            blackhole.consume(filter.mightContain(postId));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public void filterLiked(Blackhole blackhole) {
+        for (UUID postId : liked) {
+            blackhole.consume(filter.mightContain(postId));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    @Threads(8)
+    public void filterNotLikedConcurrent(Blackhole blackhole) {
+        for (UUID postId : notLiked) {
+            blackhole.consume(filter.mightContain(postId));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public void hashSetNotLiked(Blackhole blackhole) {
+        for (UUID postId : notLiked) {
+            blackhole.consume(exact.contains(postId));
+        }
+    }
+
+    // Decode, filter and encode of one binary status request; database confirmation excluded
+    @Benchmark
+    public byte[] pageStatusBitmap() {
+        List<UUID> ids = LikeStatusBitmap.decodeIds(pageBody);
+        byte[] bitmap = LikeStatusBitmap.newBitmap(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            if (filter.mightContain(ids.get(i))) {
+                LikeStatusBitmap.set(bitmap, i);
+            }
+        }
+        return bitmap;
+    }
+
+    // The same page answered as the JSON endpoint's map of UUID strings
+    @Benchmark
+    public Map<String, Boolean> pageStatusMap() {
+        Map<String, Boolean> status = new HashMap<>();
+        for (UUID postId : page) {
+            status.put(postId.toString(), filter.mightContain(postId));
+        }
+        return status;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LikedPostFilterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
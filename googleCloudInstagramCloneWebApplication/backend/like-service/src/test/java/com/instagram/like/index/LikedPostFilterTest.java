@@ -0,0 +1,66 @@
+package com.instagram.like.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LikedPostFilterTest {
+
+    @Test
+    void neverReportsAnAddedPostAsNotLiked() {
+        LikedPostFilter filter = LikedPostFilter.withCapacity(10_000);
+        List<UUID> liked = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            UUID postId = UUID.randomUUID();
+            filter.add(postId);
+            liked.add(postId);
+        }
+
+        assertThat(liked).allMatch(filter::mightContain);
+    }
+
+    @Test
+    void keepsFalsePositivesNearOnePercentAtCapacity() {
+        LikedPostFilter filter = LikedPostFilter.withCapacity(10_000);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add(UUID.randomUUID());
+        }
+
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain(UUID.randomUUID())) {
+                falsePositives++;
+            }
+        }
+
+        assertThat((double) falsePositives / probes).isLessThan(0.02);
+    }
+
+    @Test
+    void reportsOverfullWellPastCapacity() {
+        LikedPostFilter filter = LikedPostFilter.withCapacity(100);
+        for (int i = 0; i < 250; i++) {
+            filter.add(UUID.randomUUID());
+        }
+        assertThat(filter.isOverfull()).isFalse();
+
+        for (int i = 0; i < 100; i++) {
+            filter.add(UUID.randomUUID());
+        }
+        assertThat(filter.isOverfull()).isTrue();
+    }
+
+    @Test
+    void saturatedFilterAnswersMaybe() {
+        LikedPostFilter saturated = LikedPostFilter.saturated();
+        saturated.add(UUID.randomUUID());
+
+        assertThat(saturated.mightContain(UUID.randomUUID())).isTrue();
+        assertThat(saturated.isOverfull()).isFalse();
+    }
+}
@@ -0,0 +1,223 @@
+package com.instagram.like.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Like load on the original post_likes table (schema at V2) against the hash-partitioned one (latest),
+ * each in its own database preloaded with the same likes: concurrent single-row like transactions as
+ * PostLikeRepository.insertIfAbsent issues them, then per-post reads. Prints inserts per second, median
+ * read latencies and on-disk size, and asserts that per-post lookups prune to one partition.
+ * Run with {@code mvn test -P benchmarks -pl like-service}.
+ */
+@Tag("benchmark")
+@Testcontainers(disabledWithoutDocker = true)
+class PostLikePartitioningBenchmarkTest {
+
+    private static final int PRELOADED_LIKES = 2_000_000;
+    private static final int POSTS = 20_000;
+    private static final int WRITERS = 8;
+    private static final int LIKES_PER_WRITER = 10_000;
+    private static final int READS = 500;
+
+    private static final String INSERT =
+            "INSERT INTO post_likes (post_id, user_id, created_at) VALUES (?, ?, ?) " +
+            "ON CONFLICT ON CONSTRAINT uk_post_likes_post_user DO NOTHING";
+    private static final String COUNT = "SELECT count(*) FROM post_likes WHERE post_id = ?";
+    private static final String EXISTS = "SELECT 1 FROM post_likes WHERE post_id = ? AND user_id = ?";
+    private static final String LIKERS =
+            "SELECT user_id, created_at FROM post_likes WHERE post_id = ? " +
+            "ORDER BY created_at DESC, user_id DESC LIMIT 20";
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withCommand("postgres", "-c", "shared_buffers=512MB", "-c", "max_wal_size=4GB", "-c", "max_connections=50");
+
+    @Test
+    void partitionedTableAgainstOriginal() throws Exception {
+        createDatabase("likes_original");
+        createDatabase("likes_partitioned");
+        String original = migrate("likes_original", "2");
+        String partitioned = migrate("likes_partitioned", null);
+
+        Result before = load(original, "pg_total_relation_size('post_likes')");
+        Result after = load(partitioned,
+                "(SELECT sum(pg_total_relation_size(inhrelid)) FROM pg_inherits WHERE inhparent = 'post_likes'::regclass)");
+
+        System.out.printf("%nPost likes: %,d preloaded, %d writers x %,d likes, median of %d reads%n",
+                PRELOADED_LIKES, WRITERS, LIKES_PER_WRITER, READS);
+        System.out.printf("%-12s %12s %10s %10s %10s %10s%n", "table", "inserts/s", "count ms", "exists ms", "likers ms", "size MB");
+        print("original", before);
+        print("partitioned", after);
+
+        try (Connection connection = connect(partitioned)) {
+            UUID postId = postId(42);
+            assertThat(partitionsScanned(connection, "EXPLAIN SELECT count(*) FROM post_likes WHERE post_id = '" + postId + "'"))
+                    .isEqualTo(1);
+            assertThat(partitionsScanned(connection, "EXPLAIN SELECT 1 FROM post_likes WHERE post_id = '" + postId +
+                    "' AND user_id = '" + UUID.randomUUID() + "'"))
+                    .isEqualTo(1);
+        }
+    }
+
+    private static Result load(String url, String sizeExpression) throws Exception {
+        try (Connection connection = connect(url); Statement statement = connection.createStatement()) {
+            // The same posts in both databases; likes are spread evenly across them
+            statement.execute("""
+                    INSERT INTO post_likes (post_id, user_id, created_at)
+                    SELECT md5('post' || (i %% %d))::uuid, gen_random_uuid(), now() - make_interval(secs => i)
+                    FROM generate_series(1, %d) AS i
+                    """.formatted(POSTS, PRELOADED_LIKES));
+            statement.execute("ANALYZE post_likes");
+        }
+
+        ExecutorService writers = Executors.newFixedThreadPool(WRITERS);
+        long start = System.nanoTime();
+        List<Future<?>> results = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            results.add(writers.submit(() -> {
+                try (Connection connection = connect(url); PreparedStatement insert = connection.prepareStatement(INSERT)) {
+                    // One transaction per like, as in the service
+                    connection.setAutoCommit(true);
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < LIKES_PER_WRITER; i++) {
+                        insert.setObject(1, postId(random.nextInt(POSTS)));
+                        insert.setObject(2, UUID.randomUUID());
+                        insert.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
+                        insert.executeUpdate();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        double insertsPerSecond = WRITERS * LIKES_PER_WRITER / ((System.nanoTime() - start) / 1e9);
+        writers.shutdown();
+
+        try (Connection connection = connect(url)) {
+            double count = medianMillis(connection, COUNT, false);
+            double exists = medianMillis(connection, EXISTS, true);
+            double likers = medianMillis(connection, LIKERS, false);
+            long bytes;
+            try (Statement statement = connection.createStatement();
+                 ResultSet size = statement.executeQuery("SELECT " + sizeExpression)) {
+                size.next();
+                bytes = size.getLong(1);
+            }
+            return new Result(insertsPerSecond, count, exists, likers, bytes / (1024.0 * 1024.0));
+        }
+    }
+
+    private static double medianMillis(Connection connection, String sql, boolean withUser) throws SQLException {
+        long[] nanos = new long[READS];
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < READS; i++) {
+                statement.setObject(1, postId(random.nextInt(POSTS)));
+                if (withUser) {
+                    statement.setObject(2, UUID.randomUUID());
+                }
+                long start = System.nanoTime();
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        rows.getObject(1);
+                    }
+                }
+                nanos[i] = System.nanoTime() - start;
+            }
+        }
+        Arrays.sort(nanos);
+        return nanos[READS / 2] / 1_000_000.0;
+    }
+
+    private static int partitionsScanned(Connection connection, String explain) throws SQLException {
+        Pattern partition = Pattern.compile("on post_likes_p\\d+");
+        int scanned = 0;
+        try (Statement statement = connection.createStatement(); ResultSet plan = statement.executeQuery(explain)) {
+            while (plan.next()) {
+                Matcher matcher = partition.matcher(plan.getString(1));
+                while (matcher.find()) {
+                    scanned++;
+                }
+            }
+        }
+        return scanned;
+    }
+
+    // Matches md5('post' || n)::uuid in the preload
+    private static UUID postId(int n) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(("post" + n).getBytes(StandardCharsets.UTF_8));
+            long most = 0;
+            long least = 0;
+            for (int i = 0; i < 8; i++) {
+                most = (most << 8) | (digest[i] & 0xff);
+                least = (least << 8) | (digest[i + 8] & 0xff);
+            }
+            return new UUID(most, least);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void createDatabase(String name) throws SQLException {
+        try (Connection connection = connect(POSTGRES.getJdbcUrl()); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE DATABASE " + name);
+        }
+    }
+
+    private static String migrate(String database, String target) {
+        String url = POSTGRES.getJdbcUrl().replace("/" + POSTGRES.getDatabaseName(), "/" + database);
+        var configuration = Flyway.configure()
+                .dataSource(url, POSTGRES.getUsername(), POSTGRES.getPassword())
+                .locations("classpath:db/migration");
+        if (target != null) {
+            configuration.target(target);
+        }
+        configuration.load().migrate();
+        return url;
+    }
+
+    private static Connection connect(String url) throws SQLException {
+        return DriverManager.getConnection(url, POSTGRES.getUsername(), POSTGRES.getPassword());
+    }
+
+    private static void print(String table, Result result) {
+        System.out.printf("%-12s %12.0f %10.2f %10.2f %10.2f %10.1f%n", table, result.insertsPerSecond(),
+                result.countMillis(), result.existsMillis(), result.likersMillis(), result.sizeMegabytes());
+    }
+
+    private record Result(double insertsPerSecond, double countMillis, double existsMillis, double likersMillis,
+                          double sizeMegabytes) {
+    }
+}
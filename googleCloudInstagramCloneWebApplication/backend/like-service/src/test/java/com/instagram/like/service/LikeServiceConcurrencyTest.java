@@ -0,0 +1,109 @@
+package com.instagram.like.service;
+
+import com.instagram.common.counter.CounterOutboxRelay;
+import com.instagram.common.dto.LikeBatchRequest;
+import com.instagram.like.TestcontainersConfiguration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Many threads like and unlike one post through both the single and the batch path, racing on the same
+ * (post, user) rows; afterwards the counter deltas recorded in the outbox must add up to the rows left.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class LikeServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int OPERATIONS_PER_THREAD = 500;
+    // Few enough users that threads keep colliding on the same rows
+    private static final int USERS = 40;
+
+    @Autowired
+    private LikeService likeService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Keeps the relay from draining the outbox while the test sums it
+    @MockBean
+    private CounterOutboxRelay counterOutboxRelay;
+
+    @Test
+    void concurrentLikesAndUnlikesKeepCounterInStepWithRows() throws Exception {
+        UUID postId = UUID.randomUUID();
+        List<UUID> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(UUID.randomUUID());
+        }
+
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    UUID userId = users.get(random.nextInt(USERS));
+                    try {
+                        apply(postId, userId, random.nextBoolean(), random.nextInt(4) == 0);
+                    } catch (Exception e) {
+                        failures.add(e);
+                    }
+                }
+                return null;
+            });
+        }
+
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.MINUTES)).isTrue();
+        assertThat(failures).isEmpty();
+
+        long rows = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM post_likes WHERE post_id = ?", Long.class, postId);
+        long counter = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(delta), 0) FROM counter_outbox WHERE counter_type = 'POST_LIKES' AND target_id = ?",
+                Long.class, postId);
+
+        assertThat(rows).isBetween(0L, (long) USERS);
+        assertThat(counter).isEqualTo(rows);
+        assertThat(likeService.getPostLikesCount(postId)).isEqualTo(rows);
+    }
+
+    private void apply(UUID postId, UUID userId, boolean like, boolean batched) {
+        if (batched) {
+            LikeBatchRequest.Operation operation = LikeBatchRequest.Operation.builder()
+                    .action(like ? LikeBatchRequest.Action.LIKE : LikeBatchRequest.Action.UNLIKE)
+                    .targetType(LikeBatchRequest.TargetType.POST)
+                    .targetId(postId)
+                    .build();
+            likeService.applyBatch(userId, LikeBatchRequest.builder().operations(List.of(operation)).build());
+        } else if (like) {
+            likeService.likePost(postId, userId);
+        } else {
+            likeService.unlikePost(postId, userId);
+        }
+    }
+}
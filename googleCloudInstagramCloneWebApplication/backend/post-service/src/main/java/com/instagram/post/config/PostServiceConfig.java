@@ -2,20 +2,79 @@ package com.instagram.post.config;
 
 import com.google.cloud.storage.Storage;
 import com.google.cloud.storage.StorageOptions;
+import com.instagram.common.counter.CounterColumnWriter;
+import com.instagram.common.media.GcsMediaStorage;
+import com.instagram.common.media.ImageDerivativePipeline;
+import com.instagram.common.media.LocalMediaStorage;
+import com.instagram.common.media.MediaStorage;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
+@EnableScheduling
 public class PostServiceConfig {
 
     @Bean
+    @ConditionalOnProperty(name = "media.storage", havingValue = "gcs", matchIfMissing = true)
     public Storage storage() {
         return StorageOptions.getDefaultInstance().getService();
     }
 
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    @ConditionalOnProperty(name = "media.storage", havingValue = "gcs", matchIfMissing = true)
+    public MediaStorage gcsMediaStorage(Storage storage,
+                                        @Value("${gcs.bucket-name}") String bucketName,
+                                        @Value("${media.upload.chunk-size:1048576}") int chunkSize) {
+        return new GcsMediaStorage(storage, bucketName, chunkSize);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "media.storage", havingValue = "local")
+    public MediaStorage localMediaStorage(@Value("${media.local.root:${java.io.tmpdir}/instagram-media}") String root,
+                                          @Value("${media.local.base-url:http://localhost:8080/media}") String baseUrl) {
+        return new LocalMediaStorage(root, baseUrl);
+    }
+
+    @Bean(destroyMethod = "close")
+    public ImageDerivativePipeline postImageDerivatives(MediaStorage mediaStorage, MeterRegistry meterRegistry,
+                                                        @Value("${media.derivatives.threads:2}") int threads,
+                                                        @Value("${media.derivatives.queue-capacity:500}") int queueCapacity,
+                                                        @Value("${media.derivatives.quality:0.8}") float quality,
+                                                        @Value("${media.derivatives.max-source-pixels:50000000}") long maxSourcePixels) {
+        return new ImageDerivativePipeline("post-images", mediaStorage, threads, queueCapacity, quality, maxSourcePixels, meterRegistry);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor mediaUploadExecutor(
+            @Value("${media.upload.threads:16}") int threads,
+            @Value("${media.upload.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("media-upload-");
+        // Once the queue is full the request thread uploads its own images, which throttles new posts
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean
+    public CounterColumnWriter postLikesCounterWriter(JdbcTemplate jdbcTemplate) {
+        return new CounterColumnWriter(jdbcTemplate, "posts", "likes_count");
+    }
+
+    @Bean
+    public CounterColumnWriter postCommentsCounterWriter(JdbcTemplate jdbcTemplate) {
+        return new CounterColumnWriter(jdbcTemplate, "posts", "comments_count");
     }
 }
@@ -2,8 +2,10 @@ package com.instagram.post.controller;
 
 import com.instagram.common.dto.PagedResponse;
 import com.instagram.common.dto.PostDto;
+import com.instagram.post.hashtag.TrendingHashtag;
 import com.instagram.post.service.PostService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
@@ -86,6 +88,32 @@ public class PostController {
         return ResponseEntity.ok(postService.getUserPosts(userId, page, size, currentId));
     }
 
+    @GetMapping("/user/{userId}/cursor")
+    @Operation(summary = "Get posts by user using keyset pagination")
+    public ResponseEntity<PagedResponse<PostDto>> getUserPostsByCursor(
+            @PathVariable UUID userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "12") int size) {
+        return ResponseEntity.ok(postService.getUserPostsByCursor(userId, cursor, size));
+    }
+
+    @PostMapping("/feed/cursor")
+    @Operation(summary = "Get feed posts by user IDs using keyset pagination (internal use)")
+    public ResponseEntity<PagedResponse<PostDto>> getFeedPostsByCursor(
+            @RequestBody List<UUID> userIds,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(postService.getFeedPostsByCursor(userIds, cursor, size));
+    }
+
+    @GetMapping("/explore/cursor")
+    @Operation(summary = "Get explore/popular posts using keyset pagination")
+    public ResponseEntity<PagedResponse<PostDto>> getExplorePostsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(postService.getExplorePostsByCursor(cursor, size));
+    }
+
     @PostMapping("/feed")
     @Operation(summary = "Get feed posts by user IDs (internal use)")
     public ResponseEntity<PagedResponse<PostDto>> getFeedPosts(
@@ -95,40 +123,44 @@ public class PostController {
         return ResponseEntity.ok(postService.getFeedPosts(userIds, page, size));
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "Get posts by IDs, preserving request order (internal use)")
+    public ResponseEntity<List<PostDto>> getPostsByIds(@RequestBody List<UUID> postIds) {
+        return ResponseEntity.ok(postService.getPostsByIds(postIds));
+    }
+
     @GetMapping("/explore")
-    @Operation(summary = "Get explore/popular posts")
+    @Operation(summary = "Get explore posts ranked by recency-decayed engagement")
     public ResponseEntity<PagedResponse<PostDto>> getExplorePosts(
+            @Parameter(description = "Ranking window: day, week or month") @RequestParam(defaultValue = "week") String window,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
-        return ResponseEntity.ok(postService.getExplorePosts(page, size));
-    }
-
-    @PostMapping("/{postId}/likes/increment")
-    @Operation(summary = "Increment post likes count (internal use)")
-    public ResponseEntity<Void> incrementLikesCount(@PathVariable UUID postId) {
-        postService.incrementLikesCount(postId);
-        return ResponseEntity.ok().build();
+        return ResponseEntity.ok(postService.getExplorePosts(window, page, size));
     }
 
-    @PostMapping("/{postId}/likes/decrement")
-    @Operation(summary = "Decrement post likes count (internal use)")
-    public ResponseEntity<Void> decrementLikesCount(@PathVariable UUID postId) {
-        postService.decrementLikesCount(postId);
-        return ResponseEntity.ok().build();
+    @GetMapping("/hashtag/{hashtag}")
+    @Operation(summary = "Get the newest posts tagged with a hashtag")
+    public ResponseEntity<PagedResponse<PostDto>> getPostsByHashtag(
+            @PathVariable String hashtag,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(postService.getPostsByHashtag(hashtag, page, size));
     }
 
-    @PostMapping("/{postId}/comments/increment")
-    @Operation(summary = "Increment post comments count (internal use)")
-    public ResponseEntity<Void> incrementCommentsCount(@PathVariable UUID postId) {
-        postService.incrementCommentsCount(postId);
-        return ResponseEntity.ok().build();
+    @GetMapping("/hashtag/{hashtag}/cursor")
+    @Operation(summary = "Get the newest posts tagged with a hashtag using keyset pagination")
+    public ResponseEntity<PagedResponse<PostDto>> getPostsByHashtagByCursor(
+            @PathVariable String hashtag,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(postService.getPostsByHashtagByCursor(hashtag, cursor, size));
     }
 
-    @PostMapping("/{postId}/comments/decrement")
-    @Operation(summary = "Decrement post comments count (internal use)")
-    public ResponseEntity<Void> decrementCommentsCount(@PathVariable UUID postId) {
-        postService.decrementCommentsCount(postId);
-        return ResponseEntity.ok().build();
+    @GetMapping("/hashtags/trending")
+    @Operation(summary = "Get trending hashtags with approximate counts over the trending window")
+    public ResponseEntity<List<TrendingHashtag>> getTrendingHashtags(
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(postService.getTrendingHashtags(limit));
     }
 
     @GetMapping("/{postId}/owner")
@@ -27,6 +27,12 @@ public class PostImage {
     @Column(name = "image_url", nullable = false, length = 500)
     private String imageUrl;
 
+    @Column(name = "thumbnail_url", length = 500)
+    private String thumbnailUrl;
+
+    @Column(name = "feed_url", length = 500)
+    private String feedUrl;
+
     @Column(name = "display_order")
     @Builder.Default
     private Integer displayOrder = 0;
@@ -0,0 +1,75 @@
+package com.instagram.post.explore;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Ranked post IDs per {@link ExploreWindow}, kept as one Redis list per window so every instance serves
+ * the same ranking and a page is a single {@code LRANGE}. Lists are rebuilt off to the side and swapped
+ * in with {@code RENAME}, so readers never see a half-written ranking.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExploreIndex {
+
+    private static final String KEY_PREFIX = "explore:index:";
+
+    private final StringRedisTemplate redisTemplate;
+
+    public record Slice(List<UUID> postIds, long total) {
+        static final Slice EMPTY = new Slice(Collections.emptyList(), 0L);
+    }
+
+    /**
+     * Returns up to {@code size} ranked post IDs starting at {@code offset}, with the window's index size.
+     * An empty slice with a zero total means the index is not available.
+     */
+    @SuppressWarnings("unchecked")
+    public Slice slice(ExploreWindow window, long offset, int size) {
+        String key = key(window);
+        try {
+            List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                redis.lRange(key, offset, offset + size - 1);
+                redis.lLen(key);
+                return null;
+            });
+
+            List<String> ids = (List<String>) results.get(0);
+            Long total = (Long) results.get(1);
+            if (ids == null || total == null) {
+                return Slice.EMPTY;
+            }
+            return new Slice(ids.stream().map(UUID::fromString).toList(), total);
+        } catch (Exception e) {
+            log.warn("Failed to read {} explore index: {}", window.tag(), e.getMessage());
+            return Slice.EMPTY;
+        }
+    }
+
+    public void replace(ExploreWindow window, List<UUID> postIds) {
+        String key = key(window);
+        if (postIds.isEmpty()) {
+            redisTemplate.delete(key);
+            return;
+        }
+
+        String stagingKey = key + ":next";
+        redisTemplate.delete(stagingKey);
+        redisTemplate.opsForList().rightPushAll(stagingKey, postIds.stream().map(UUID::toString).toList());
+        redisTemplate.rename(stagingKey, key);
+    }
+
+    private static String key(ExploreWindow window) {
+        return KEY_PREFIX + window.tag();
+    }
+}
@@ -0,0 +1,107 @@
+package com.instagram.post.explore;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Periodically re-ranks recent posts into the {@link ExploreIndex}. A post's score is its engagement
+ * decayed by age, {@code (likes + commentWeight * comments + 1) / (ageHours + 2) ^ gravity}, so fresh
+ * posts can outrank older ones with more likes. Each window's candidates are a range scan on the
+ * creation-time index; one instance per interval does the work.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExploreIndexJob {
+
+    private static final String LOCK_KEY = "explore:index:lock";
+
+    private static final String RANKING_SQL = """
+            SELECT id FROM posts
+            WHERE is_active = true AND created_at >= ?
+            ORDER BY (likes_count + CAST(? AS double precision) * comments_count + 1)
+                     / POWER(GREATEST(EXTRACT(EPOCH FROM (CAST(? AS timestamp) - created_at)), 0) / 3600.0 + 2,
+                             CAST(? AS double precision)) DESC,
+                     created_at DESC, id DESC
+            LIMIT ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final ExploreIndex exploreIndex;
+    private final MeterRegistry meterRegistry;
+    private final Map<ExploreWindow, AtomicInteger> indexSizes = new EnumMap<>(ExploreWindow.class);
+
+    @Value("${explore.index.size:1000}")
+    private int indexSize;
+
+    @Value("${explore.score.comment-weight:2.0}")
+    private double commentWeight;
+
+    @Value("${explore.score.gravity:1.5}")
+    private double gravity;
+
+    @Value("${explore.refresh-interval:60000}")
+    private long refreshIntervalMillis;
+
+    @Scheduled(fixedDelayString = "${explore.refresh-interval:60000}", initialDelayString = "${explore.initial-delay:5000}")
+    public void refresh() {
+        if (!acquireLock()) {
+            return;
+        }
+
+        for (ExploreWindow window : ExploreWindow.values()) {
+            try {
+                rebuild(window);
+            } catch (Exception e) {
+                log.warn("Failed to rebuild {} explore index: {}", window.tag(), e.getMessage());
+            }
+        }
+    }
+
+    private void rebuild(ExploreWindow window) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        LocalDateTime now = LocalDateTime.now();
+        List<UUID> postIds = jdbcTemplate.queryForList(RANKING_SQL, UUID.class,
+                now.minus(window.getLength()), commentWeight, now, gravity, indexSize);
+        exploreIndex.replace(window, postIds);
+        sample.stop(meterRegistry.timer("explore.index.refresh", "window", window.tag()));
+
+        indexSizeGauge(window).set(postIds.size());
+        log.debug("Rebuilt {} explore index with {} posts", window.tag(), postIds.size());
+    }
+
+    private boolean acquireLock() {
+        // Held for just under an interval so exactly one instance rebuilds per tick, even if it dies mid-run
+        Duration hold = Duration.ofMillis(Math.max(refreshIntervalMillis - 1000, 1000));
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(LOCK_KEY, "1", hold));
+        } catch (Exception e) {
+            log.warn("Failed to acquire explore index lock: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private AtomicInteger indexSizeGauge(ExploreWindow window) {
+        synchronized (indexSizes) {
+            return indexSizes.computeIfAbsent(window, w ->
+                    meterRegistry.gauge("explore.index.size", Tags.of("window", w.tag()), new AtomicInteger()));
+        }
+    }
+}
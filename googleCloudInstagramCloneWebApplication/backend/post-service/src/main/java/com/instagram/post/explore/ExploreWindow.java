@@ -0,0 +1,35 @@
+package com.instagram.post.explore;
+
+import com.instagram.common.exception.BadRequestException;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Recency windows the explore index is materialized for. Only posts created inside a window compete
+ * for its ranking.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ExploreWindow {
+
+    DAY(Duration.ofDays(1)),
+    WEEK(Duration.ofDays(7)),
+    MONTH(Duration.ofDays(30));
+
+    private final Duration length;
+
+    public static ExploreWindow fromParam(String value) {
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Unknown explore window: " + value);
+        }
+    }
+
+    public String tag() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,68 @@
+package com.instagram.post.hashtag;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-Min Sketch over strings: {@code depth} rows of {@code width} counters, each row indexed by its
+ * own hash. An estimate is the minimum across rows, so it never undercounts and overcounts by at most
+ * {@code e * total / width} with probability {@code 1 - e^-depth}. Updates are lock-free.
+ */
+final class CountMinSketch {
+
+    private final int depth;
+    private final int width;
+    private final AtomicLongArray counters;
+
+    CountMinSketch(int depth, int width) {
+        this.depth = depth;
+        this.width = width;
+        this.counters = new AtomicLongArray(depth * width);
+    }
+
+    void add(String item, long count) {
+        long hash = hash(item);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int row = 0; row < depth; row++) {
+            counters.addAndGet(row * width + index(h1, h2, row), count);
+        }
+    }
+
+    long estimate(String item) {
+        long hash = hash(item);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counters.get(row * width + index(h1, h2, row)));
+        }
+        return min;
+    }
+
+    void clear() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0L);
+        }
+    }
+
+    private int index(int h1, int h2, int row) {
+        // Kirsch-Mitzenmacher: row hashes derived from two base hashes
+        return Math.floorMod(h1 + row * h2, width);
+    }
+
+    private static long hash(String item) {
+        // FNV-1a over UTF-8 bytes, then a 64-bit finalizer so both halves are well mixed
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : item.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,59 @@
+package com.instagram.post.hashtag;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses hashtags out of captions: {@code #} followed by letters, digits or underscores, containing at
+ * least one letter and not glued to a preceding word (so {@code a#b} and URL fragments are skipped).
+ * Tags are lowercased and returned once each, in order of first appearance.
+ */
+public final class HashtagExtractor {
+
+    public static final int MAX_HASHTAG_LENGTH = 100;
+    public static final int MAX_HASHTAGS_PER_POST = 30;
+
+    private static final Pattern HASHTAG = Pattern.compile("(?<![\\p{L}\\p{N}_&/])#([\\p{L}\\p{N}_]+)");
+
+    private HashtagExtractor() {
+    }
+
+    public static List<String> extract(String caption) {
+        if (caption == null || caption.indexOf('#') < 0) {
+            return Collections.emptyList();
+        }
+
+        Set<String> hashtags = new LinkedHashSet<>();
+        Matcher matcher = HASHTAG.matcher(caption);
+        while (matcher.find() && hashtags.size() < MAX_HASHTAGS_PER_POST) {
+            String tag = matcher.group(1);
+            if (tag.length() <= MAX_HASHTAG_LENGTH && containsLetter(tag)) {
+                hashtags.add(tag.toLowerCase(Locale.ROOT));
+            }
+        }
+        return new ArrayList<>(hashtags);
+    }
+
+    /**
+     * Normalizes a tag taken from a request path, with or without its leading {@code #}.
+     */
+    public static String normalize(String hashtag) {
+        String tag = hashtag.startsWith("#") ? hashtag.substring(1) : hashtag;
+        return tag.toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean containsLetter(String tag) {
+        for (int i = 0; i < tag.length(); i++) {
+            if (Character.isLetter(tag.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,134 @@
+package com.instagram.post.hashtag;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Approximate heavy hitters among hashtags used on this instance over a sliding window. The window is
+ * a ring of Count-Min Sketches, one per time bucket; the oldest bucket is cleared as the ring advances,
+ * and a tag's count is the sum of its per-bucket estimates. Tags seen recently are tracked as top-K
+ * candidates, and a periodic snapshot ranks them with a bounded min-heap so reads are a field access.
+ * <p>
+ * Requests are spread evenly across instances, so each instance's ranking tracks the global one even
+ * though its counts cover only its share of traffic.
+ */
+@Component
+@Slf4j
+public class HashtagTrends {
+
+    private final CountMinSketch[] buckets;
+    private final long bucketMillis;
+    private final int topK;
+    private final int maxCandidates;
+    private final Set<String> candidates = ConcurrentHashMap.newKeySet();
+    private volatile int currentBucket;
+    private volatile long currentBucketStart;
+    private volatile List<TrendingHashtag> snapshot = Collections.emptyList();
+
+    public HashtagTrends(MeterRegistry meterRegistry,
+                         @Value("${hashtags.trending.window:3600}") long windowSeconds,
+                         @Value("${hashtags.trending.buckets:12}") int bucketCount,
+                         @Value("${hashtags.trending.top-k:20}") int topK,
+                         @Value("${hashtags.trending.sketch-depth:4}") int sketchDepth,
+                         @Value("${hashtags.trending.sketch-width:4096}") int sketchWidth) {
+        this.buckets = new CountMinSketch[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new CountMinSketch(sketchDepth, sketchWidth);
+        }
+        this.bucketMillis = windowSeconds * 1000 / bucketCount;
+        this.topK = topK;
+        this.maxCandidates = topK * 10;
+        this.currentBucketStart = System.currentTimeMillis();
+
+        meterRegistry.gauge("hashtags.trending.candidates", candidates, Set::size);
+    }
+
+    public void record(Collection<String> hashtags) {
+        if (hashtags.isEmpty()) {
+            return;
+        }
+
+        // Counted once the post commits, so rolled-back posts never reach the trends
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    count(hashtags);
+                }
+            });
+        } else {
+            count(hashtags);
+        }
+    }
+
+    private void count(Collection<String> hashtags) {
+        CountMinSketch bucket = buckets[currentBucket];
+        for (String hashtag : hashtags) {
+            bucket.add(hashtag, 1);
+            // Bounded between snapshots only loosely; the snapshot trims back to maxCandidates
+            if (candidates.size() < maxCandidates * 2) {
+                candidates.add(hashtag);
+            }
+        }
+    }
+
+    public List<TrendingHashtag> getTrending(int limit) {
+        List<TrendingHashtag> trending = snapshot;
+        return trending.size() <= limit ? trending : trending.subList(0, limit);
+    }
+
+    @Scheduled(fixedDelayString = "${hashtags.trending.snapshot-interval:10000}")
+    public void takeSnapshot() {
+        advanceBuckets(System.currentTimeMillis());
+
+        // Min-heap of the best maxCandidates tags: the head is always the weakest one kept
+        PriorityQueue<TrendingHashtag> heap = new PriorityQueue<>(Comparator.comparingLong(TrendingHashtag::count));
+        for (String hashtag : candidates) {
+            long count = windowEstimate(hashtag);
+            if (count == 0) {
+                candidates.remove(hashtag);
+            } else if (heap.size() < maxCandidates) {
+                heap.add(new TrendingHashtag(hashtag, count));
+            } else if (count > heap.peek().count()) {
+                candidates.remove(heap.poll().hashtag());
+                heap.add(new TrendingHashtag(hashtag, count));
+            } else {
+                candidates.remove(hashtag);
+            }
+        }
+
+        List<TrendingHashtag> ranked = new ArrayList<>(heap);
+        ranked.sort(Comparator.comparingLong(TrendingHashtag::count).reversed()
+                .thenComparing(TrendingHashtag::hashtag));
+        snapshot = List.copyOf(ranked.subList(0, Math.min(topK, ranked.size())));
+    }
+
+    private long windowEstimate(String hashtag) {
+        long total = 0;
+        for (CountMinSketch bucket : buckets) {
+            total += bucket.estimate(hashtag);
+        }
+        return total;
+    }
+
+    private void advanceBuckets(long now) {
+        // Only the snapshot thread moves the ring; a bucket is cleared just before it becomes current again
+        int steps = (int) Math.min((now - currentBucketStart) / bucketMillis, buckets.length);
+        for (int i = 0; i < steps; i++) {
+            int next = (currentBucket + 1) % buckets.length;
+            buckets[next].clear();
+            currentBucket = next;
+        }
+        if (steps > 0) {
+            currentBucketStart = now - (now - currentBucketStart) % bucketMillis;
+        }
+    }
+}
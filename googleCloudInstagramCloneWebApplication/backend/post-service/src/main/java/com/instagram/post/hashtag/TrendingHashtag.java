@@ -0,0 +1,7 @@
+package com.instagram.post.hashtag;
+
+/**
+ * A hashtag and its approximate use count over the trending window.
+ */
+public record TrendingHashtag(String hashtag, long count) {
+}
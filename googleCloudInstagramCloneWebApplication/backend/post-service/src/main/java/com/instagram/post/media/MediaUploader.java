@@ -0,0 +1,109 @@
+package com.instagram.post.media;
+
+import com.instagram.common.media.MediaObjectNames;
+import com.instagram.common.media.MediaStorage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Uploads a post's images in parallel on a bounded executor, streaming each one from the multipart
+ * input into {@link MediaStorage}. If any upload fails, every object the batch wrote is deleted again,
+ * including ones that only finish after the caller has given up on them.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MediaUploader {
+
+    private final MediaStorage mediaStorage;
+    private final ThreadPoolTaskExecutor mediaUploadExecutor;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${media.upload.timeout:60000}")
+    private long timeoutMillis;
+
+    /**
+     * Uploads the files under {@code posts/<userId>/} and returns them in the order given.
+     */
+    public List<StoredMedia> uploadAll(UUID userId, List<MultipartFile> files) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<CompletableFuture<StoredMedia>> uploads = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            String objectName = MediaObjectNames.forUpload("posts/" + userId, file.getOriginalFilename());
+            uploads.add(CompletableFuture.supplyAsync(() -> upload(objectName, file), mediaUploadExecutor));
+        }
+
+        String result = "failure";
+        try {
+            CompletableFuture.allOf(uploads.toArray(CompletableFuture[]::new)).get(timeoutMillis, TimeUnit.MILLISECONDS);
+            result = "success";
+            return uploads.stream().map(CompletableFuture::join).toList();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while uploading media");
+        } catch (TimeoutException e) {
+            result = "timeout";
+            throw new IOException("Media upload did not finish within " + timeoutMillis + " ms");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("Media upload failed", e.getCause());
+        } finally {
+            sample.stop(meterRegistry.timer("post.media.upload", "result", result));
+            if (!"success".equals(result)) {
+                // Uploads still running delete their object once they complete
+                uploads.forEach(upload -> upload.thenAccept(media -> delete(media.objectName())));
+            }
+        }
+    }
+
+    /**
+     * Deletes media written for a post that was never saved.
+     */
+    public void deleteAll(List<StoredMedia> media) {
+        media.forEach(stored -> delete(stored.objectName()));
+    }
+
+    private StoredMedia upload(String objectName, MultipartFile file) {
+        try (InputStream content = file.getInputStream()) {
+            return new StoredMedia(objectName, mediaStorage.store(objectName, file.getContentType(), content));
+        } catch (IOException e) {
+            // An upload session closed mid-stream can leave a truncated object behind
+            delete(objectName);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            delete(objectName);
+            throw e;
+        }
+    }
+
+    private void delete(String objectName) {
+        try {
+            mediaStorage.delete(objectName);
+        } catch (RuntimeException e) {
+            log.warn("Failed to delete orphaned media {}: {}", objectName, e.getMessage());
+        }
+    }
+}
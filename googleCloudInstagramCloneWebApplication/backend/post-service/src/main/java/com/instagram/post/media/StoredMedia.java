@@ -0,0 +1,7 @@
+package com.instagram.post.media;
+
+/**
+ * A media object that has been written to storage.
+ */
+public record StoredMedia(String objectName, String url) {
+}
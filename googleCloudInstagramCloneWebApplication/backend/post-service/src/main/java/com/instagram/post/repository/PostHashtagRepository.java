@@ -0,0 +1,67 @@
+package com.instagram.post.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The post_hashtags index, kept with plain JDBC: rows are never read back as entities, only as keyset
+ * pages of post IDs that {@code PostService} then hydrates.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PostHashtagRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record TaggedPost(UUID postId, LocalDateTime createdAt) {
+    }
+
+    public void replaceHashtags(UUID postId, LocalDateTime createdAt, List<String> hashtags) {
+        jdbcTemplate.update("DELETE FROM post_hashtags WHERE post_id = ?", postId);
+        if (hashtags.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO post_hashtags (hashtag, post_id, created_at) VALUES (?, ?, ?)",
+                hashtags,
+                hashtags.size(),
+                (ps, hashtag) -> {
+                    ps.setString(1, hashtag);
+                    ps.setObject(2, postId);
+                    ps.setObject(3, createdAt);
+                });
+    }
+
+    public void deleteByPostId(UUID postId) {
+        jdbcTemplate.update("DELETE FROM post_hashtags WHERE post_id = ?", postId);
+    }
+
+    public List<TaggedPost> findNewest(String hashtag, long offset, int limit) {
+        return jdbcTemplate.query(
+                "SELECT post_id, created_at FROM post_hashtags WHERE hashtag = ? " +
+                "ORDER BY created_at DESC, post_id DESC LIMIT ? OFFSET ?",
+                (rs, rowNum) -> new TaggedPost(rs.getObject(1, UUID.class), rs.getObject(2, LocalDateTime.class)),
+                hashtag, limit, offset);
+    }
+
+    public List<TaggedPost> findNewestBefore(String hashtag, LocalDateTime createdAt, UUID postId, int limit) {
+        return jdbcTemplate.query(
+                "SELECT post_id, created_at FROM post_hashtags WHERE hashtag = ? " +
+                "AND (created_at, post_id) < (?, ?) " +
+                "ORDER BY created_at DESC, post_id DESC LIMIT ?",
+                (rs, rowNum) -> new TaggedPost(rs.getObject(1, UUID.class), rs.getObject(2, LocalDateTime.class)),
+                hashtag, createdAt, postId, limit);
+    }
+
+    public long countByHashtag(String hashtag) {
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM post_hashtags WHERE hashtag = ?", Long.class, hashtag);
+        return count != null ? count : 0L;
+    }
+}
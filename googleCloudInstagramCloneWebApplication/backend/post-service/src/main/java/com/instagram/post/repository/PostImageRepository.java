@@ -0,0 +1,23 @@
+package com.instagram.post.repository;
+
+import com.instagram.post.entity.PostImage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+@Repository
+public interface PostImageRepository extends JpaRepository<PostImage, UUID> {
+
+    // Called from derivative worker threads, outside any service transaction
+    @Transactional
+    @Modifying
+    @Query("UPDATE PostImage i SET i.thumbnailUrl = :thumbnailUrl, i.feedUrl = :feedUrl WHERE i.id = :imageId")
+    int updateVariantUrls(@Param("imageId") UUID imageId,
+                          @Param("thumbnailUrl") String thumbnailUrl,
+                          @Param("feedUrl") String feedUrl);
+}
@@ -3,12 +3,14 @@ package com.instagram.post.repository;
 import com.instagram.post.entity.Post;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -28,25 +30,42 @@ public interface PostRepository extends JpaRepository<Post, UUID> {
     @Query("SELECT p FROM Post p WHERE p.isActive = true ORDER BY p.likesCount DESC, p.createdAt DESC")
     Page<Post> findPopularPosts(Pageable pageable);
 
-    Optional<Post> findByIdAndIsActiveTrue(UUID id);
+    // The bare upper bound on the leading sort column is what lets Postgres seek the keyset index; the
+    // OR-expanded tiebreak alone is not sargable and would scan from the top of the index
+    @Query("SELECT p FROM Post p WHERE p.userId = :userId AND p.isActive = true " +
+           "AND p.createdAt <= :createdAt " +
+           "AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    Slice<Post> findUserPostsBefore(@Param("userId") UUID userId,
+                                    @Param("createdAt") LocalDateTime createdAt,
+                                    @Param("id") UUID id,
+                                    Pageable pageable);
 
-    long countByUserIdAndIsActiveTrue(UUID userId);
+    @Query("SELECT p FROM Post p WHERE p.userId IN :userIds AND p.isActive = true " +
+           "AND p.createdAt <= :createdAt " +
+           "AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    Slice<Post> findFeedPostsBefore(@Param("userIds") List<UUID> userIds,
+                                    @Param("createdAt") LocalDateTime createdAt,
+                                    @Param("id") UUID id,
+                                    Pageable pageable);
 
-    @Modifying
-    @Query("UPDATE Post p SET p.likesCount = p.likesCount + 1 WHERE p.id = :postId")
-    void incrementLikesCount(@Param("postId") UUID postId);
+    @Query("SELECT p FROM Post p WHERE p.isActive = true " +
+           "AND p.likesCount <= :likesCount " +
+           "AND (p.likesCount < :likesCount " +
+           "OR (p.likesCount = :likesCount AND p.createdAt < :createdAt) " +
+           "OR (p.likesCount = :likesCount AND p.createdAt = :createdAt AND p.id < :id)) " +
+           "ORDER BY p.likesCount DESC, p.createdAt DESC, p.id DESC")
+    Slice<Post> findPopularPostsBefore(@Param("likesCount") long likesCount,
+                                       @Param("createdAt") LocalDateTime createdAt,
+                                       @Param("id") UUID id,
+                                       Pageable pageable);
 
-    @Modifying
-    @Query("UPDATE Post p SET p.likesCount = CASE WHEN p.likesCount > 0 THEN p.likesCount - 1 ELSE 0 END WHERE p.id = :postId")
-    void decrementLikesCount(@Param("postId") UUID postId);
+    Optional<Post> findByIdAndIsActiveTrue(UUID id);
 
-    @Modifying
-    @Query("UPDATE Post p SET p.commentsCount = p.commentsCount + 1 WHERE p.id = :postId")
-    void incrementCommentsCount(@Param("postId") UUID postId);
+    List<Post> findByIdInAndIsActiveTrue(Collection<UUID> ids);
 
-    @Modifying
-    @Query("UPDATE Post p SET p.commentsCount = CASE WHEN p.commentsCount > 0 THEN p.commentsCount - 1 ELSE 0 END WHERE p.id = :postId")
-    void decrementCommentsCount(@Param("postId") UUID postId);
+    long countByUserIdAndIsActiveTrue(UUID userId);
 
     @Query("SELECT p.userId FROM Post p WHERE p.id = :postId")
     Optional<UUID> findUserIdByPostId(@Param("postId") UUID postId);
@@ -0,0 +1,34 @@
+package com.instagram.post.service;
+
+import com.instagram.common.counter.CounterColumnWriter;
+import com.instagram.common.counter.CounterDeltaHandler;
+import com.instagram.common.counter.CounterType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+@Component
+@RequiredArgsConstructor
+public class PostCounterHandler implements CounterDeltaHandler {
+
+    private final CounterColumnWriter postLikesCounterWriter;
+    private final CounterColumnWriter postCommentsCounterWriter;
+
+    @Override
+    public Set<CounterType> supportedTypes() {
+        return EnumSet.of(CounterType.POST_LIKES, CounterType.POST_COMMENTS);
+    }
+
+    @Override
+    public void apply(CounterType type, Map<UUID, Long> deltas) {
+        switch (type) {
+            case POST_LIKES -> postLikesCounterWriter.apply(deltas);
+            case POST_COMMENTS -> postCommentsCounterWriter.apply(deltas);
+            default -> throw new IllegalArgumentException("Unsupported counter type: " + type);
+        }
+    }
+}
@@ -1,16 +1,29 @@
 package com.instagram.post.service;
 
-import com.google.cloud.storage.BlobId;
-import com.google.cloud.storage.BlobInfo;
-import com.google.cloud.storage.Storage;
+import com.instagram.common.client.UserServiceClient;
+import com.instagram.common.counter.CounterOutbox;
+import com.instagram.common.counter.CounterType;
+import com.instagram.common.dto.PageCursor;
 import com.instagram.common.dto.PagedResponse;
 import com.instagram.common.dto.PostDto;
 import com.instagram.common.dto.UserDto;
 import com.instagram.common.exception.BadRequestException;
 import com.instagram.common.exception.ResourceNotFoundException;
 import com.instagram.common.exception.UnauthorizedException;
+import com.instagram.common.media.ImageDerivativePipeline;
+import com.instagram.common.media.ImageVariant;
+import com.instagram.common.resilience.DownstreamCalls;
 import com.instagram.post.entity.Post;
 import com.instagram.post.entity.PostImage;
+import com.instagram.post.explore.ExploreIndex;
+import com.instagram.post.explore.ExploreWindow;
+import com.instagram.post.hashtag.HashtagExtractor;
+import com.instagram.post.hashtag.HashtagTrends;
+import com.instagram.post.hashtag.TrendingHashtag;
+import com.instagram.post.media.MediaUploader;
+import com.instagram.post.media.StoredMedia;
+import com.instagram.post.repository.PostHashtagRepository;
+import com.instagram.post.repository.PostImageRepository;
 import com.instagram.post.repository.PostRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -18,13 +31,18 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import java.io.IOException;
+import java.time.ZoneOffset;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -35,15 +53,25 @@ import java.util.stream.Collectors;
 public class PostService {
 
     private final PostRepository postRepository;
-    private final Storage storage;
+    private final MediaUploader mediaUploader;
+    private final ImageDerivativePipeline postImageDerivatives;
+    private final PostImageRepository postImageRepository;
+    private final TransactionTemplate transactionTemplate;
     private final RestTemplate restTemplate;
+    private final DownstreamCalls downstreamCalls;
+    private final CounterOutbox counterOutbox;
+    private final UserServiceClient userServiceClient;
+    private final ExploreIndex exploreIndex;
+    private final PostHashtagRepository postHashtagRepository;
+    private final HashtagTrends hashtagTrends;
 
-    @Value("${gcs.bucket-name}")
-    private String bucketName;
+    private static final int MAX_PAGE_SIZE = 100;
 
-    @Value("${user.service.url}")
-    private String userServiceUrl;
+    @Value("${feed.service.url}")
+    private String feedServiceUrl;
 
+    // Uploads run before the transaction opens so no connection is held while images stream to storage
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public PostDto createPost(UUID userId, String caption, String location, List<MultipartFile> images) throws IOException {
         if (images == null || images.isEmpty()) {
             throw new BadRequestException("At least one image is required");
@@ -53,38 +81,34 @@ public class PostService {
             throw new BadRequestException("Maximum 10 images allowed per post");
         }
 
-        Post post = Post.builder()
-                .userId(userId)
-                .caption(caption)
-                .location(location)
-                .build();
-
-        int order = 0;
         for (MultipartFile image : images) {
             String contentType = image.getContentType();
             if (contentType == null || !contentType.startsWith("image/")) {
                 throw new BadRequestException("All files must be images");
             }
-
-            String imageUrl = uploadImage(userId, image);
-            PostImage postImage = PostImage.builder()
-                    .imageUrl(imageUrl)
-                    .displayOrder(order++)
-                    .build();
-            post.addImage(postImage);
         }
 
-        post = postRepository.save(post);
+        List<StoredMedia> media = mediaUploader.uploadAll(userId, images);
+        Post post;
+        try {
+            post = transactionTemplate.execute(status -> savePost(userId, caption, location, media));
+        } catch (RuntimeException e) {
+            mediaUploader.deleteAll(media);
+            throw e;
+        }
+        queueDerivatives(post, media);
 
-        // Notify user-service to increment post count
+        // Push the post onto followers' home timelines
         try {
-            restTemplate.postForEntity(
-                    userServiceUrl + "/api/users/" + userId + "/posts/increment",
-                    null,
-                    Void.class
-            );
+            String url = UriComponentsBuilder.fromHttpUrl(feedServiceUrl)
+                    .path("/api/feed/timeline/posts")
+                    .queryParam("postId", post.getId())
+                    .queryParam("authorId", userId)
+                    .queryParam("timestamp", post.getCreatedAt().toInstant(ZoneOffset.UTC).toEpochMilli())
+                    .toUriString();
+            downstreamCalls.run("feed", () -> restTemplate.postForEntity(url, null, Void.class));
         } catch (Exception e) {
-            log.warn("Failed to increment post count for user {}: {}", userId, e.getMessage());
+            log.warn("Failed to fan out post {} to timelines: {}", post.getId(), e.getMessage());
         }
 
         log.info("Created post {} for user {}", post.getId(), userId);
@@ -109,6 +133,13 @@ public class PostService {
         }
 
         if (caption != null) {
+            List<String> previousHashtags = HashtagExtractor.extract(post.getCaption());
+            List<String> hashtags = HashtagExtractor.extract(caption);
+            if (!hashtags.equals(previousHashtags)) {
+                postHashtagRepository.replaceHashtags(postId, post.getCreatedAt(), hashtags);
+                // Only newly added tags count towards trending
+                hashtagTrends.record(hashtags.stream().filter(tag -> !previousHashtags.contains(tag)).toList());
+            }
             post.setCaption(caption);
         }
         if (location != null) {
@@ -120,26 +151,17 @@ public class PostService {
         return mapToDto(post, null, null, null);
     }
 
+    // The timeline trim runs after the soft-delete commits so no connection or row lock is held across its retries
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void deletePost(UUID postId, UUID userId) {
-        Post post = postRepository.findByIdAndIsActiveTrue(postId)
-                .orElseThrow(() -> new ResourceNotFoundException("Post", "id", postId.toString()));
-
-        if (!post.getUserId().equals(userId)) {
-            throw new UnauthorizedException("You can only delete your own posts");
-        }
+        transactionTemplate.executeWithoutResult(status -> softDeletePost(postId, userId));
 
-        post.setIsActive(false);
-        postRepository.save(post);
-
-        // Notify user-service to decrement post count
+        // Trim the post from followers' home timelines
         try {
-            restTemplate.postForEntity(
-                    userServiceUrl + "/api/users/" + userId + "/posts/decrement",
-                    null,
-                    Void.class
-            );
+            downstreamCalls.run("feed", () -> restTemplate.delete(
+                    feedServiceUrl + "/api/feed/timeline/posts/" + postId + "?authorId=" + userId));
         } catch (Exception e) {
-            log.warn("Failed to decrement post count for user {}: {}", userId, e.getMessage());
+            log.warn("Failed to remove post {} from timelines: {}", postId, e.getMessage());
         }
 
         log.info("Deleted post {}", postId);
@@ -187,7 +209,128 @@ public class PostService {
     }
 
     @Transactional(readOnly = true)
-    public PagedResponse<PostDto> getExplorePosts(int page, int size) {
+    public PagedResponse<PostDto> getUserPostsByCursor(UUID userId, String cursor, int size) {
+        requireValidPageSize(size);
+        PageCursor after = PageCursor.decode(cursor);
+        Slice<Post> slice = postRepository.findUserPostsBefore(
+                userId, after.getCreatedAt(), after.getId(), PageRequest.of(0, size));
+
+        UserDto user = fetchUser(userId);
+        List<PostDto> posts = slice.getContent().stream()
+                .map(post -> mapToDto(post, user, null, null))
+                .toList();
+
+        return PagedResponse.ofCursor(posts, size, nextCursor(slice, false));
+    }
+
+    @Transactional(readOnly = true)
+    public PagedResponse<PostDto> getFeedPostsByCursor(List<UUID> userIds, String cursor, int size) {
+        requireValidPageSize(size);
+        PageCursor after = PageCursor.decode(cursor);
+        Slice<Post> slice = postRepository.findFeedPostsBefore(
+                userIds, after.getCreatedAt(), after.getId(), PageRequest.of(0, size));
+
+        Set<UUID> postUserIds = slice.getContent().stream()
+                .map(Post::getUserId)
+                .collect(Collectors.toSet());
+        Map<UUID, UserDto> usersMap = fetchUsers(postUserIds);
+
+        List<PostDto> posts = slice.getContent().stream()
+                .map(post -> mapToDto(post, usersMap.get(post.getUserId()), null, null))
+                .toList();
+
+        return PagedResponse.ofCursor(posts, size, nextCursor(slice, false));
+    }
+
+    @Transactional(readOnly = true)
+    public PagedResponse<PostDto> getExplorePostsByCursor(String cursor, int size) {
+        requireValidPageSize(size);
+        PageCursor after = PageCursor.decode(cursor);
+        Slice<Post> slice = postRepository.findPopularPostsBefore(
+                after.getRank(), after.getCreatedAt(), after.getId(), PageRequest.of(0, size));
+
+        Set<UUID> userIds = slice.getContent().stream()
+                .map(Post::getUserId)
+                .collect(Collectors.toSet());
+        Map<UUID, UserDto> usersMap = fetchUsers(userIds);
+
+        List<PostDto> posts = slice.getContent().stream()
+                .map(post -> mapToDto(post, usersMap.get(post.getUserId()), null, null))
+                .toList();
+
+        return PagedResponse.ofCursor(posts, size, nextCursor(slice, true));
+    }
+
+    @Transactional(readOnly = true)
+    public List<PostDto> getPostsByIds(List<UUID> postIds) {
+        if (postIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<UUID, Post> postsById = postRepository.findByIdInAndIsActiveTrue(postIds).stream()
+                .collect(Collectors.toMap(Post::getId, post -> post));
+
+        Set<UUID> userIds = postsById.values().stream()
+                .map(Post::getUserId)
+                .collect(Collectors.toSet());
+        Map<UUID, UserDto> usersMap = fetchUsers(userIds);
+
+        // Preserve the caller's ordering (timeline order), skipping deleted posts
+        return postIds.stream()
+                .map(postsById::get)
+                .filter(Objects::nonNull)
+                .map(post -> mapToDto(post, usersMap.get(post.getUserId()), null, null))
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
+    public PagedResponse<PostDto> getExplorePosts(String window, int page, int size) {
+        ExploreIndex.Slice slice = exploreIndex.slice(ExploreWindow.fromParam(window), (long) page * size, size);
+        if (slice.total() == 0) {
+            // Index not built yet or unreachable: rank by likes straight from the table
+            return getPopularPosts(page, size);
+        }
+
+        return PagedResponse.of(getPostsByIds(slice.postIds()), page, size, slice.total());
+    }
+
+    @Transactional(readOnly = true)
+    public PagedResponse<PostDto> getPostsByHashtag(String hashtag, int page, int size) {
+        if (page < 0) {
+            throw new BadRequestException("Page must not be negative");
+        }
+        requireValidPageSize(size);
+
+        String tag = HashtagExtractor.normalize(hashtag);
+        List<PostHashtagRepository.TaggedPost> tagged = postHashtagRepository.findNewest(tag, (long) page * size, size);
+        List<PostDto> posts = getPostsByIds(tagged.stream().map(PostHashtagRepository.TaggedPost::postId).toList());
+        return PagedResponse.of(posts, page, size, postHashtagRepository.countByHashtag(tag));
+    }
+
+    @Transactional(readOnly = true)
+    public PagedResponse<PostDto> getPostsByHashtagByCursor(String hashtag, String cursor, int size) {
+        requireValidPageSize(size);
+        PageCursor after = PageCursor.decode(cursor);
+        // Read one extra row to learn whether another page exists
+        List<PostHashtagRepository.TaggedPost> tagged = postHashtagRepository.findNewestBefore(
+                HashtagExtractor.normalize(hashtag), after.getCreatedAt(), after.getId(), size + 1);
+
+        String nextCursor = null;
+        if (tagged.size() > size) {
+            tagged = tagged.subList(0, size);
+            PostHashtagRepository.TaggedPost last = tagged.get(size - 1);
+            nextCursor = PageCursor.of(last.createdAt(), last.postId()).encode();
+        }
+
+        List<PostDto> posts = getPostsByIds(tagged.stream().map(PostHashtagRepository.TaggedPost::postId).toList());
+        return PagedResponse.ofCursor(posts, size, nextCursor);
+    }
+
+    public List<TrendingHashtag> getTrendingHashtags(int limit) {
+        return hashtagTrends.getTrending(limit);
+    }
+
+    private PagedResponse<PostDto> getPopularPosts(int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
         Page<Post> postsPage = postRepository.findPopularPosts(pageable);
 
@@ -208,22 +351,6 @@ public class PostService {
         );
     }
 
-    public void incrementLikesCount(UUID postId) {
-        postRepository.incrementLikesCount(postId);
-    }
-
-    public void decrementLikesCount(UUID postId) {
-        postRepository.decrementLikesCount(postId);
-    }
-
-    public void incrementCommentsCount(UUID postId) {
-        postRepository.incrementCommentsCount(postId);
-    }
-
-    public void decrementCommentsCount(UUID postId) {
-        postRepository.decrementCommentsCount(postId);
-    }
-
     @Transactional(readOnly = true)
     public Optional<UUID> getPostOwnerId(UUID postId) {
         return postRepository.findUserIdByPostId(postId);
@@ -234,51 +361,95 @@ public class PostService {
         return postRepository.findByIdAndIsActiveTrue(postId).isPresent();
     }
 
-    private String uploadImage(UUID userId, MultipartFile image) throws IOException {
-        String fileName = String.format("posts/%s/%s", userId, UUID.randomUUID());
-        String extension = getFileExtension(image.getOriginalFilename());
-        if (extension != null) {
-            fileName += extension;
+    private Post savePost(UUID userId, String caption, String location, List<StoredMedia> media) {
+        Post post = Post.builder()
+                .userId(userId)
+                .caption(caption)
+                .location(location)
+                .build();
+
+        int order = 0;
+        for (StoredMedia stored : media) {
+            PostImage postImage = PostImage.builder()
+                    .imageUrl(stored.url())
+                    .displayOrder(order++)
+                    .build();
+            post.addImage(postImage);
+        }
+
+        // Flushed so the post row exists before its hashtag rows reference it
+        post = postRepository.saveAndFlush(post);
+        List<String> hashtags = HashtagExtractor.extract(caption);
+        postHashtagRepository.replaceHashtags(post.getId(), post.getCreatedAt(), hashtags);
+        hashtagTrends.record(hashtags);
+
+        // Post count is applied by user-service once the outbox relay delivers it
+        counterOutbox.record(CounterType.USER_POSTS, userId, 1);
+        return post;
+    }
+
+    private void softDeletePost(UUID postId, UUID userId) {
+        Post post = postRepository.findByIdAndIsActiveTrue(postId)
+                .orElseThrow(() -> new ResourceNotFoundException("Post", "id", postId.toString()));
+
+        if (!post.getUserId().equals(userId)) {
+            throw new UnauthorizedException("You can only delete your own posts");
         }
 
-        BlobId blobId = BlobId.of(bucketName, fileName);
-        BlobInfo blobInfo = BlobInfo.newBuilder(blobId)
-                .setContentType(image.getContentType())
-                .build();
+        post.setIsActive(false);
+        postRepository.save(post);
+        postHashtagRepository.deleteByPostId(postId);
 
-        storage.create(blobInfo, image.getBytes());
+        counterOutbox.record(CounterType.USER_POSTS, userId, -1);
+    }
 
-        return String.format("https://storage.googleapis.com/%s/%s", bucketName, fileName);
+    private void queueDerivatives(Post post, List<StoredMedia> media) {
+        // Images were added in upload order, so each one lines up with the object it was stored as
+        for (int i = 0; i < media.size(); i++) {
+            UUID imageId = post.getImages().get(i).getId();
+            postImageDerivatives.submit(media.get(i).objectName(), EnumSet.of(ImageVariant.THUMBNAIL, ImageVariant.FEED),
+                    urls -> postImageRepository.updateVariantUrls(
+                            imageId, urls.get(ImageVariant.THUMBNAIL), urls.get(ImageVariant.FEED)));
+        }
     }
 
-    private UserDto fetchUser(UUID userId) {
-        try {
-            ResponseEntity<UserDto> response = restTemplate.getForEntity(
-                    userServiceUrl + "/api/users/id/" + userId,
-                    UserDto.class
-            );
-            return response.getBody();
-        } catch (Exception e) {
-            log.warn("Failed to fetch user {}: {}", userId, e.getMessage());
+    private static void requireValidPageSize(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BadRequestException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+
+    private String nextCursor(Slice<Post> slice, boolean rankedByLikes) {
+        if (!slice.hasNext() || slice.getContent().isEmpty()) {
             return null;
         }
+
+        Post last = slice.getContent().get(slice.getContent().size() - 1);
+        PageCursor cursor = rankedByLikes
+                ? PageCursor.of(last.getLikesCount(), last.getCreatedAt(), last.getId())
+                : PageCursor.of(last.getCreatedAt(), last.getId());
+        return cursor.encode();
+    }
+
+    private UserDto fetchUser(UUID userId) {
+        return userServiceClient.getUser(userId);
     }
 
     private Map<UUID, UserDto> fetchUsers(Set<UUID> userIds) {
-        Map<UUID, UserDto> usersMap = new HashMap<>();
-        for (UUID userId : userIds) {
-            UserDto user = fetchUser(userId);
-            if (user != null) {
-                usersMap.put(userId, user);
-            }
-        }
-        return usersMap;
+        return userServiceClient.getUsers(userIds);
     }
 
     private PostDto mapToDto(Post post, UserDto user, Boolean isLiked, Boolean isSaved) {
-        List<String> imageUrls = post.getImages().stream()
+        List<PostImage> images = post.getImages().stream()
                 .sorted(Comparator.comparingInt(PostImage::getDisplayOrder))
-                .map(PostImage::getImageUrl)
+                .toList();
+        List<String> imageUrls = images.stream().map(PostImage::getImageUrl).toList();
+        // Until an image's variants are generated, clients get the original in their place
+        List<String> thumbnailUrls = images.stream()
+                .map(image -> image.getThumbnailUrl() != null ? image.getThumbnailUrl() : image.getImageUrl())
+                .toList();
+        List<String> feedImageUrls = images.stream()
+                .map(image -> image.getFeedUrl() != null ? image.getFeedUrl() : image.getImageUrl())
                 .toList();
 
         return PostDto.builder()
@@ -287,6 +458,9 @@ public class PostService {
                 .user(user)
                 .caption(post.getCaption())
                 .imageUrls(imageUrls)
+                .thumbnailUrls(thumbnailUrls)
+                .feedImageUrls(feedImageUrls)
+                .hashtags(HashtagExtractor.extract(post.getCaption()))
                 .location(post.getLocation())
                 .likesCount(post.getLikesCount())
                 .commentsCount(post.getCommentsCount())
@@ -295,10 +469,4 @@ public class PostService {
                 .createdAt(post.getCreatedAt())
                 .build();
     }
-
-    private String getFileExtension(String filename) {
-        if (filename == null) return null;
-        int lastDotIndex = filename.lastIndexOf('.');
-        return lastDotIndex > 0 ? filename.substring(lastDotIndex) : null;
-    }
 }
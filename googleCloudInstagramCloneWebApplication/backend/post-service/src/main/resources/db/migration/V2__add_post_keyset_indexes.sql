@@ -0,0 +1,4 @@
+-- Keyset pagination indexes: every cursor page is a single range scan on (sort key, id)
+CREATE INDEX IF NOT EXISTS idx_posts_user_created_id ON posts(user_id, created_at DESC, id DESC) WHERE is_active = true;
+CREATE INDEX IF NOT EXISTS idx_posts_active_created_id ON posts(created_at DESC, id DESC) WHERE is_active = true;
+CREATE INDEX IF NOT EXISTS idx_posts_popular ON posts(likes_count DESC, created_at DESC, id DESC) WHERE is_active = true;
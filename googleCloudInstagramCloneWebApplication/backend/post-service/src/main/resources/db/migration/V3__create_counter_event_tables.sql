@@ -0,0 +1,18 @@
+-- Counter deltas waiting to be relayed to the owning service
+CREATE TABLE IF NOT EXISTS counter_outbox (
+    id UUID PRIMARY KEY,
+    counter_type VARCHAR(32) NOT NULL,
+    target_id UUID NOT NULL,
+    delta INTEGER NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_counter_outbox_created_at ON counter_outbox(created_at);
+
+-- Relayed counter events already applied here, for deduplicating redeliveries
+CREATE TABLE IF NOT EXISTS processed_counter_events (
+    event_id UUID PRIMARY KEY,
+    processed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_processed_counter_events_processed_at ON processed_counter_events(processed_at);
@@ -0,0 +1,11 @@
+-- Hashtags parsed from captions. created_at is copied from the post so a tag's listing is one keyset
+-- range scan; rows are removed when the post is deleted, so the table only indexes active posts.
+CREATE TABLE IF NOT EXISTS post_hashtags (
+    hashtag VARCHAR(100) NOT NULL,
+    post_id UUID NOT NULL REFERENCES posts(id) ON DELETE CASCADE,
+    created_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (hashtag, post_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_post_hashtags_tag_created_id ON post_hashtags(hashtag, created_at DESC, post_id DESC);
+CREATE INDEX IF NOT EXISTS idx_post_hashtags_post_id ON post_hashtags(post_id);
@@ -0,0 +1,3 @@
+-- Downscaled renditions written by the derivative workers; NULL until generated
+ALTER TABLE post_images ADD COLUMN thumbnail_url VARCHAR(500);
+ALTER TABLE post_images ADD COLUMN feed_url VARCHAR(500);
@@ -0,0 +1,27 @@
+-- Index the hashtags of posts created before post_hashtags existed, with the same rules as
+-- HashtagExtractor: '#' not glued to a preceding word, letters/digits/underscores with at least one
+-- letter, at most 100 characters, lowercased, the first 30 distinct tags per post.
+WITH matches AS (
+    SELECT p.id AS post_id, p.created_at, lower(m.match[1]) AS hashtag, m.position
+    FROM posts p
+    CROSS JOIN LATERAL regexp_matches(p.caption, '(?<![[:alpha:][:digit:]_&/])#([[:alpha:][:digit:]_]+)', 'g')
+        WITH ORDINALITY AS m(match, position)
+    WHERE p.is_active = true
+      AND p.created_at IS NOT NULL
+      AND p.caption LIKE '%#%'
+), accepted AS (
+    SELECT post_id, created_at, hashtag, min(position) AS first_position
+    FROM matches
+    WHERE length(hashtag) <= 100
+      AND hashtag ~ '[[:alpha:]]'
+    GROUP BY post_id, created_at, hashtag
+), ranked AS (
+    SELECT post_id, created_at, hashtag,
+           row_number() OVER (PARTITION BY post_id ORDER BY first_position) AS tag_number
+    FROM accepted
+)
+INSERT INTO post_hashtags (hashtag, post_id, created_at)
+SELECT hashtag, post_id, created_at
+FROM ranked
+WHERE tag_number <= 30
+ON CONFLICT DO NOTHING;
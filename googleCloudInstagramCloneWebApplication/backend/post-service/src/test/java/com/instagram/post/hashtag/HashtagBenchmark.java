@@ -0,0 +1,99 @@
+package com.instagram.post.hashtag;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of hashtag extraction per caption and of counting tags in the trending sketches, single-threaded
+ * and with concurrent writers on one sketch. Run with
+ * {@code mvn -pl post-service test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.instagram.post.hashtag.HashtagBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HashtagBenchmark {
+
+    private static final String CAPTION_WITH_TAGS =
+            "Golden hour at the harbour with the whole crew 🌅 #sunset #Travel #friends #lisboa2024 "
+                    + "see https://example.com/#anchor and a#b #123";
+    private static final String CAPTION_WITHOUT_TAGS =
+            "Golden hour at the harbour with the whole crew, back tomorrow for more of the same";
+
+    private final String[] vocabulary = new String[10_000];
+    private CountMinSketch sketch;
+    private HashtagTrends trends;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        for (int i = 0; i < vocabulary.length; i++) {
+            vocabulary[i] = "tag" + i;
+        }
+        // Production defaults: hashtags.trending.sketch-depth and sketch-width
+        sketch = new CountMinSketch(4, 4096);
+        trends = new HashtagTrends(new SimpleMeterRegistry(), 3600, 12, 20, 4, 4096);
+    }
+
+    @Benchmark
+    public List<String> extractCaptionWithTags() {
+        return HashtagExtractor.extract(CAPTION_WITH_TAGS);
+    }
+
+    @Benchmark
+    public List<String> extractCaptionWithoutTags() {
+        return HashtagExtractor.extract(CAPTION_WITHOUT_TAGS);
+    }
+
+    @Benchmark
+    public void sketchAdd() {
+        sketch.add(randomTag(), 1);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void sketchAddContended() {
+        sketch.add(randomTag(), 1);
+    }
+
+    @Benchmark
+    public long sketchEstimate() {
+        return sketch.estimate(randomTag());
+    }
+
+    // One post's tags through the trends, as PostService records them outside a transaction
+    @Benchmark
+    public void trendsRecordPost() {
+        trends.record(List.of(randomTag(), randomTag(), randomTag()));
+    }
+
+    private String randomTag() {
+        return vocabulary[ThreadLocalRandom.current().nextInt(vocabulary.length)];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HashtagBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,38 @@
+package com.instagram.post.hashtag;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HashtagExtractorTest {
+
+    @Test
+    void extractsLowercasedTagsInOrderOfFirstAppearance() {
+        assertThat(HashtagExtractor.extract("#Sunset at the beach #travel #sunset #café"))
+                .containsExactly("sunset", "travel", "café");
+    }
+
+    @Test
+    void skipsTagsGluedToWordsUrlsAndDigitsOnly() {
+        assertThat(HashtagExtractor.extract("a#b https://example.com/#anchor &#39; #123 #2024 #top10"))
+                .containsExactly("top10");
+    }
+
+    @Test
+    void capsTagsPerPostAndTagLength() {
+        StringBuilder caption = new StringBuilder("#" + "x".repeat(HashtagExtractor.MAX_HASHTAG_LENGTH + 1));
+        for (int i = 0; i < HashtagExtractor.MAX_HASHTAGS_PER_POST + 5; i++) {
+            caption.append(" #tag").append(i);
+        }
+
+        assertThat(HashtagExtractor.extract(caption.toString()))
+                .hasSize(HashtagExtractor.MAX_HASHTAGS_PER_POST)
+                .doesNotContain("x".repeat(HashtagExtractor.MAX_HASHTAG_LENGTH + 1));
+    }
+
+    @Test
+    void returnsEmptyListWithoutTags() {
+        assertThat(HashtagExtractor.extract(null)).isEmpty();
+        assertThat(HashtagExtractor.extract("no tags here")).isEmpty();
+    }
+}
@@ -0,0 +1,25 @@
+package com.instagram.user.config;
+
+import com.instagram.user.graph.FollowGraphCache;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+
+@Configuration
+public class FollowGraphConfig {
+
+    @Bean
+    public RedisMessageListenerContainer followGraphEdgeListener(RedisConnectionFactory connectionFactory,
+                                                                 FollowGraphCache followGraphCache) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> followGraphCache.onEdgeMessage(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(FollowGraphCache.EDGE_CHANNEL));
+        return container;
+    }
+}
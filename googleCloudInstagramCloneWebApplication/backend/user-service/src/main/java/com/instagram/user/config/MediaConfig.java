@@ -0,0 +1,47 @@
+package com.instagram.user.config;
+
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageOptions;
+import com.instagram.common.media.GcsMediaStorage;
+import com.instagram.common.media.ImageDerivativePipeline;
+import com.instagram.common.media.LocalMediaStorage;
+import com.instagram.common.media.MediaStorage;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MediaConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "media.storage", havingValue = "gcs", matchIfMissing = true)
+    public Storage storage() {
+        return StorageOptions.getDefaultInstance().getService();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "media.storage", havingValue = "gcs", matchIfMissing = true)
+    public MediaStorage gcsMediaStorage(Storage storage,
+                                        @Value("${gcs.bucket-name}") String bucketName,
+                                        @Value("${media.upload.chunk-size:1048576}") int chunkSize) {
+        return new GcsMediaStorage(storage, bucketName, chunkSize);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "media.storage", havingValue = "local")
+    public MediaStorage localMediaStorage(@Value("${media.local.root:${java.io.tmpdir}/instagram-media}") String root,
+                                          @Value("${media.local.base-url:http://localhost:8080/media}") String baseUrl) {
+        return new LocalMediaStorage(root, baseUrl);
+    }
+
+    @Bean(destroyMethod = "close")
+    public ImageDerivativePipeline avatarDerivatives(MediaStorage mediaStorage, MeterRegistry meterRegistry,
+                                                     @Value("${media.derivatives.threads:1}") int threads,
+                                                     @Value("${media.derivatives.queue-capacity:200}") int queueCapacity,
+                                                     @Value("${media.derivatives.quality:0.8}") float quality,
+                                                     @Value("${media.derivatives.max-source-pixels:50000000}") long maxSourcePixels) {
+        return new ImageDerivativePipeline("avatars", mediaStorage, threads, queueCapacity, quality, maxSourcePixels, meterRegistry);
+    }
+}
@@ -13,6 +13,7 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
 import java.util.List;
@@ -43,6 +44,12 @@ public class UserController {
         return ResponseEntity.ok(userService.getUserById(userId));
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "Get users by IDs (internal use)")
+    public ResponseEntity<List<UserDto>> getUsersByIds(@RequestBody List<UUID> userIds) {
+        return ResponseEntity.ok(userService.getUsersByIds(userIds));
+    }
+
     @PostMapping
     @Operation(summary = "Create user profile (internal use)")
     public ResponseEntity<UserDto> createUser(@RequestBody Map<String, String> request) {
@@ -82,6 +89,14 @@ public class UserController {
         return ResponseEntity.ok(userService.searchUsers(query, page, size, userId));
     }
 
+    @GetMapping("/search/typeahead")
+    @Operation(summary = "Suggest users whose username or full name starts with a prefix, most followed first")
+    public ResponseEntity<List<UserDto>> typeahead(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(userService.typeahead(prefix, limit));
+    }
+
     @PostMapping("/{userId}/follow")
     @Operation(summary = "Follow a user")
     public ResponseEntity<Void> followUser(
@@ -128,6 +143,22 @@ public class UserController {
         return ResponseEntity.ok(userService.getFollowingIds(userId));
     }
 
+    @GetMapping("/{userId}/followers/ids")
+    @Operation(summary = "Get IDs of a user's followers (internal use)")
+    public ResponseEntity<List<UUID>> getFollowerIds(@PathVariable UUID userId) {
+        return ResponseEntity.ok(userService.getFollowerIds(userId));
+    }
+
+    @GetMapping(value = "/{userId}/followers/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream a user's follower IDs as NDJSON chunks (internal use)")
+    public ResponseEntity<StreamingResponseBody> streamFollowerIds(
+            @PathVariable UUID userId,
+            @RequestParam(defaultValue = "1000") int chunkSize) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> userService.streamFollowerIds(userId, chunkSize, out));
+    }
+
     @GetMapping("/{followerId}/is-following/{followingId}")
     @Operation(summary = "Check if user is following another user")
     public ResponseEntity<Boolean> isFollowing(
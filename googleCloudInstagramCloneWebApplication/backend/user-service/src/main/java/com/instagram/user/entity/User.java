@@ -35,6 +35,9 @@ public class User {
     @Column(name = "profile_picture_url", length = 500)
     private String profilePictureUrl;
 
+    @Column(name = "avatar_url", length = 500)
+    private String avatarUrl;
+
     @Column(name = "followers_count")
     @Builder.Default
     private Long followersCount = 0L;
@@ -0,0 +1,152 @@
+package com.instagram.user.graph;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Immutable sorted set of user IDs stored as interleaved (most, least significant bits) longs, 16 bytes
+ * per ID with no per-element objects. IDs are ordered unsigned high word first, which is the order
+ * Postgres sorts {@code uuid} columns in, so sets load straight from an {@code ORDER BY} query.
+ * Updates copy the array, so callers only patch small sets and reload large ones instead.
+ */
+public final class AdjacencySet {
+
+    static final AdjacencySet EMPTY = new AdjacencySet(new long[0]);
+
+    private final long[] words;
+
+    private AdjacencySet(long[] words) {
+        this.words = words;
+    }
+
+    public int size() {
+        return words.length / 2;
+    }
+
+    public boolean contains(UUID id) {
+        return indexOf(id.getMostSignificantBits(), id.getLeastSignificantBits()) >= 0;
+    }
+
+    public AdjacencySet with(UUID id) {
+        int index = indexOf(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        if (index >= 0) {
+            return this;
+        }
+
+        int insertAt = -(index + 1);
+        long[] updated = new long[words.length + 2];
+        System.arraycopy(words, 0, updated, 0, insertAt * 2);
+        updated[insertAt * 2] = id.getMostSignificantBits();
+        updated[insertAt * 2 + 1] = id.getLeastSignificantBits();
+        System.arraycopy(words, insertAt * 2, updated, insertAt * 2 + 2, words.length - insertAt * 2);
+        return new AdjacencySet(updated);
+    }
+
+    public AdjacencySet without(UUID id) {
+        int index = indexOf(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        if (index < 0) {
+            return this;
+        }
+
+        long[] updated = new long[words.length - 2];
+        System.arraycopy(words, 0, updated, 0, index * 2);
+        System.arraycopy(words, index * 2 + 2, updated, index * 2, words.length - index * 2 - 2);
+        return new AdjacencySet(updated);
+    }
+
+    public UUID get(int index) {
+        return new UUID(words[index * 2], words[index * 2 + 1]);
+    }
+
+    /**
+     * Read-only view that materializes each UUID only as it is visited, e.g. while being serialized.
+     */
+    public List<UUID> asList() {
+        return new AbstractList<>() {
+            @Override
+            public UUID get(int index) {
+                return AdjacencySet.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return AdjacencySet.this.size();
+            }
+        };
+    }
+
+    private static int compare(long mostA, long leastA, long mostB, long leastB) {
+        int byMost = Long.compareUnsigned(mostA, mostB);
+        return byMost != 0 ? byMost : Long.compareUnsigned(leastA, leastB);
+    }
+
+    private int indexOf(long most, long least) {
+        int low = 0;
+        int high = size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(words[mid * 2], words[mid * 2 + 1], most, least);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Collects IDs in ascending order, as read from an {@code ORDER BY} on the uuid column. Input that
+     * turns out unsorted or duplicated is sorted and deduplicated once at build time rather than producing
+     * a broken set.
+     */
+    static final class Builder {
+
+        private long[] words = new long[32];
+        private int size;
+        private boolean sorted = true;
+
+        void add(UUID id) {
+            long most = id.getMostSignificantBits();
+            long least = id.getLeastSignificantBits();
+            if (size > 0 && compare(words[size * 2 - 2], words[size * 2 - 1], most, least) >= 0) {
+                sorted = false;
+            }
+            if (words.length < (size + 1) * 2) {
+                words = Arrays.copyOf(words, words.length * 2);
+            }
+            words[size * 2] = most;
+            words[size * 2 + 1] = least;
+            size++;
+        }
+
+        AdjacencySet build() {
+            if (sorted) {
+                return new AdjacencySet(Arrays.copyOf(words, size * 2));
+            }
+
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> compare(words[a * 2], words[a * 2 + 1], words[b * 2], words[b * 2 + 1]));
+
+            long[] resorted = new long[size * 2];
+            int count = 0;
+            for (int i : order) {
+                long most = words[i * 2];
+                long least = words[i * 2 + 1];
+                if (count == 0 || compare(resorted[count * 2 - 2], resorted[count * 2 - 1], most, least) != 0) {
+                    resorted[count * 2] = most;
+                    resorted[count * 2 + 1] = least;
+                    count++;
+                }
+            }
+            return new AdjacencySet(Arrays.copyOf(resorted, count * 2));
+        }
+    }
+}
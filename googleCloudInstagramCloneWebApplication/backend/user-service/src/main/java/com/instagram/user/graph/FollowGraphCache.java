@@ -0,0 +1,146 @@
+package com.instagram.user.graph;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * In-memory adjacency index of the follow graph, one {@link AdjacencySet} per user and direction.
+ * Sets are loaded on first use, bounded by the total number of IDs held, and patched in place when a
+ * follow or unfollow commits. Patching copies the set, so sets above {@code user.follow-graph.patch-max-size}
+ * are dropped instead and reloaded on their next read; a popular account gaining followers constantly would
+ * otherwise cost a full copy per new follower. Other instances apply the same edge change from the
+ * {@link #EDGE_CHANNEL} broadcast; the write TTL bounds how long a missed message can leave a set stale.
+ */
+@Component
+@Slf4j
+public class FollowGraphCache {
+
+    public static final String EDGE_CHANNEL = "user:follow-graph:edges";
+
+    private static final String FOLLOWING_SQL =
+            "SELECT following_id FROM follows WHERE follower_id = ? ORDER BY following_id";
+    private static final String FOLLOWERS_SQL =
+            "SELECT follower_id FROM follows WHERE following_id = ? ORDER BY follower_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final Cache<UUID, AdjacencySet> following;
+    private final Cache<UUID, AdjacencySet> followers;
+    private final int patchMaxSize;
+
+    public FollowGraphCache(JdbcTemplate jdbcTemplate,
+                            StringRedisTemplate redisTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${user.follow-graph.max-ids:4000000}") long maxIds,
+                            @Value("${user.follow-graph.ttl:1800}") long ttlSeconds,
+                            @Value("${user.follow-graph.patch-max-size:10000}") int patchMaxSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.redisTemplate = redisTemplate;
+        this.patchMaxSize = patchMaxSize;
+        // Each direction gets half of the ID budget; at 16 bytes per ID the default is about 64 MB
+        this.following = newCache(maxIds / 2, ttlSeconds);
+        this.followers = newCache(maxIds / 2, ttlSeconds);
+        CaffeineCacheMetrics.monitor(meterRegistry, following, "followGraph.following");
+        CaffeineCacheMetrics.monitor(meterRegistry, followers, "followGraph.followers");
+    }
+
+    public AdjacencySet getFollowing(UUID userId) {
+        return following.get(userId, id -> load(FOLLOWING_SQL, id));
+    }
+
+    public AdjacencySet getFollowers(UUID userId) {
+        return followers.get(userId, id -> load(FOLLOWERS_SQL, id));
+    }
+
+    /**
+     * Returns the user's follower set only if it is already in memory, without loading it.
+     */
+    public AdjacencySet getFollowersIfPresent(UUID userId) {
+        return followers.getIfPresent(userId);
+    }
+
+    public void recordFollow(UUID followerId, UUID followingId) {
+        afterCommit(true, followerId, followingId);
+    }
+
+    public void recordUnfollow(UUID followerId, UUID followingId) {
+        afterCommit(false, followerId, followingId);
+    }
+
+    /**
+     * Applies an edge change broadcast by any instance, including this one. Only sets already in memory
+     * are patched; anything else loads the committed state when first read.
+     */
+    public void applyEdge(boolean added, UUID followerId, UUID followingId) {
+        following.asMap().computeIfPresent(followerId, (id, ids) -> patch(ids, added, followingId));
+        followers.asMap().computeIfPresent(followingId, (id, ids) -> patch(ids, added, followerId));
+    }
+
+    public void onEdgeMessage(String message) {
+        // "+<follower>:<following>" or "-<follower>:<following>"
+        int separator = message.indexOf(':');
+        applyEdge(message.charAt(0) == '+',
+                UUID.fromString(message.substring(1, separator)),
+                UUID.fromString(message.substring(separator + 1)));
+    }
+
+    private void afterCommit(boolean added, UUID followerId, UUID followingId) {
+        // A follow that rolls back must never reach the index
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(added, followerId, followingId);
+                }
+            });
+        } else {
+            publish(added, followerId, followingId);
+        }
+    }
+
+    private void publish(boolean added, UUID followerId, UUID followingId) {
+        applyEdge(added, followerId, followingId);
+        try {
+            redisTemplate.convertAndSend(EDGE_CHANNEL, (added ? "+" : "-") + followerId + ":" + followingId);
+        } catch (Exception e) {
+            log.warn("Failed to broadcast follow edge {} -> {}: {}", followerId, followingId, e.getMessage());
+        }
+    }
+
+    private AdjacencySet patch(AdjacencySet ids, boolean added, UUID id) {
+        if (ids.size() > patchMaxSize) {
+            // Returning null removes the entry
+            return null;
+        }
+        return added ? ids.with(id) : ids.without(id);
+    }
+
+    private AdjacencySet load(String sql, UUID userId) {
+        AdjacencySet.Builder builder = new AdjacencySet.Builder();
+        jdbcTemplate.query(sql, rs -> {
+            builder.add(rs.getObject(1, UUID.class));
+        }, userId);
+        return builder.build();
+    }
+
+    private static Cache<UUID, AdjacencySet> newCache(long maxIds, long ttlSeconds) {
+        return Caffeine.newBuilder()
+                .maximumWeight(maxIds)
+                .weigher((UUID userId, AdjacencySet ids) -> ids.size() + 1)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+}
@@ -1,16 +1,20 @@
 package com.instagram.user.repository;
 
 import com.instagram.user.entity.Follow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface FollowRepository extends JpaRepository<Follow, UUID> {
@@ -25,11 +29,10 @@ public interface FollowRepository extends JpaRepository<Follow, UUID> {
     @Query("SELECT f.followerId FROM Follow f WHERE f.followingId = :userId")
     Page<UUID> findFollowerIdsByFollowingId(@Param("userId") UUID userId, Pageable pageable);
 
-    @Query("SELECT f.followingId FROM Follow f WHERE f.followerId = :userId")
-    List<UUID> findAllFollowingIdsByFollowerId(@Param("userId") UUID userId);
-
+    // Read through a server-side cursor; must be consumed inside a transaction and closed
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
     @Query("SELECT f.followerId FROM Follow f WHERE f.followingId = :userId")
-    List<UUID> findAllFollowerIdsByFollowingId(@Param("userId") UUID userId);
+    Stream<UUID> streamFollowerIdsByFollowingId(@Param("userId") UUID userId);
 
     long countByFollowerId(UUID followerId);
 
@@ -4,9 +4,11 @@ import com.instagram.user.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -23,12 +25,41 @@ public interface UserRepository extends JpaRepository<User, UUID> {
 
     boolean existsByEmail(String email);
 
-    @Query("SELECT u FROM User u WHERE LOWER(u.username) LIKE LOWER(CONCAT('%', :query, '%')) " +
-           "OR LOWER(u.fullName) LIKE LOWER(CONCAT('%', :query, '%'))")
-    Page<User> searchUsers(@Param("query") String query, Pageable pageable);
+    // Served by the trigram indexes; exact and prefix username matches rank first, then by followers
+    @Query(value = "SELECT * FROM users WHERE is_active = true " +
+                   "AND (LOWER(username) LIKE :pattern ESCAPE '\\' OR LOWER(full_name) LIKE :pattern ESCAPE '\\') " +
+                   "ORDER BY CASE WHEN LOWER(username) = :query THEN 0 " +
+                   "WHEN LOWER(username) LIKE :prefix ESCAPE '\\' THEN 1 ELSE 2 END, " +
+                   "followers_count DESC, username",
+           countQuery = "SELECT COUNT(*) FROM users WHERE is_active = true " +
+                        "AND (LOWER(username) LIKE :pattern ESCAPE '\\' OR LOWER(full_name) LIKE :pattern ESCAPE '\\')",
+           nativeQuery = true)
+    Page<User> searchUsers(@Param("query") String query,
+                           @Param("pattern") String pattern,
+                           @Param("prefix") String prefix,
+                           Pageable pageable);
+
+    // Two prefix range scans on the text_pattern_ops indexes, ranked by followers
+    @Query(value = "SELECT * FROM users WHERE is_active = true " +
+                   "AND (LOWER(username) LIKE :prefix ESCAPE '\\' OR LOWER(full_name) LIKE :prefix ESCAPE '\\') " +
+                   "ORDER BY followers_count DESC, username LIMIT :limit",
+           nativeQuery = true)
+    List<User> findTypeaheadMatches(@Param("prefix") String prefix, @Param("limit") int limit);
 
     List<User> findByIdIn(List<UUID> ids);
 
     @Query("SELECT u FROM User u WHERE u.isActive = true ORDER BY u.followersCount DESC")
     Page<User> findPopularUsers(Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE User u SET u.postsCount = CASE WHEN u.postsCount + :delta > 0 THEN u.postsCount + :delta ELSE 0 END WHERE u.id = :userId")
+    void adjustPostsCount(@Param("userId") UUID userId, @Param("delta") long delta);
+
+    // Called from the derivative worker; matching on the source URL drops results for a picture since replaced
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.avatarUrl = :avatarUrl WHERE u.id = :userId AND u.profilePictureUrl = :profilePictureUrl")
+    int updateAvatarUrl(@Param("userId") UUID userId,
+                        @Param("profilePictureUrl") String profilePictureUrl,
+                        @Param("avatarUrl") String avatarUrl);
 }
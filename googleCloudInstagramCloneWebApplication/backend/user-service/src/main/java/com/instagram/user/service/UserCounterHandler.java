@@ -0,0 +1,33 @@
+package com.instagram.user.service;
+
+import com.instagram.common.counter.CounterDeltaHandler;
+import com.instagram.common.counter.CounterType;
+import com.instagram.user.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+@Component
+@RequiredArgsConstructor
+public class UserCounterHandler implements CounterDeltaHandler {
+
+    private final UserRepository userRepository;
+
+    @Override
+    public Set<CounterType> supportedTypes() {
+        return EnumSet.of(CounterType.USER_POSTS);
+    }
+
+    @Override
+    public void apply(CounterType type, Map<UUID, Long> deltas) {
+        deltas.forEach((userId, delta) -> {
+            if (delta != 0) {
+                userRepository.adjustPostsCount(userId, delta);
+            }
+        });
+    }
+}
@@ -1,29 +1,38 @@
 package com.instagram.user.service;
 
-import com.google.cloud.storage.BlobId;
-import com.google.cloud.storage.BlobInfo;
-import com.google.cloud.storage.Storage;
+import com.instagram.common.cache.UserProfileCacheInvalidator;
 import com.instagram.common.dto.PagedResponse;
 import com.instagram.common.dto.UserDto;
 import com.instagram.common.exception.BadRequestException;
 import com.instagram.common.exception.ResourceNotFoundException;
+import com.instagram.common.media.ImageDerivativePipeline;
+import com.instagram.common.media.ImageVariant;
+import com.instagram.common.media.MediaObjectNames;
+import com.instagram.common.media.MediaStorage;
 import com.instagram.user.entity.Follow;
 import com.instagram.user.entity.User;
+import com.instagram.user.graph.AdjacencySet;
+import com.instagram.user.graph.FollowGraphCache;
 import com.instagram.user.repository.FollowRepository;
 import com.instagram.user.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -33,10 +42,16 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final FollowRepository followRepository;
-    private final Storage storage;
+    private final MediaStorage mediaStorage;
+    private final ImageDerivativePipeline avatarDerivatives;
+    private final TransactionTemplate transactionTemplate;
+    private final UserProfileCacheInvalidator userProfileCacheInvalidator;
+    private final FollowGraphCache followGraphCache;
 
-    @Value("${gcs.bucket-name}")
-    private String bucketName;
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final int MAX_STREAM_CHUNK_SIZE = 10000;
+    private static final int MIN_SUBSTRING_QUERY_LENGTH = 3;
+    private static final int MAX_TYPEAHEAD_RESULTS = 20;
 
     @Transactional(readOnly = true)
     public UserDto getUserById(UUID userId) {
@@ -45,6 +60,20 @@ public class UserService {
         return mapToDto(user, null);
     }
 
+    @Transactional(readOnly = true)
+    public List<UserDto> getUsersByIds(List<UUID> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (userIds.size() > MAX_BATCH_SIZE) {
+            throw new BadRequestException("Cannot fetch more than " + MAX_BATCH_SIZE + " users at once");
+        }
+
+        return userRepository.findByIdIn(userIds.stream().distinct().toList()).stream()
+                .map(user -> mapToDto(user, null))
+                .toList();
+    }
+
     @Transactional(readOnly = true)
     public UserDto getUserByUsername(String username) {
         User user = userRepository.findByUsername(username)
@@ -98,43 +127,69 @@ public class UserService {
 
         user = userRepository.save(user);
         log.info("Updated profile for userId: {}", userId);
+        userProfileCacheInvalidator.invalidate(userId);
         return mapToDto(user, null);
     }
 
+    // The upload streams to storage before the transaction opens, so no connection waits on it
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public UserDto updateProfilePicture(UUID userId, MultipartFile file) throws IOException {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId.toString()));
-
         String contentType = file.getContentType();
         if (contentType == null || !contentType.startsWith("image/")) {
             throw new BadRequestException("File must be an image");
         }
 
-        String fileName = String.format("profile-pictures/%s/%s", userId, UUID.randomUUID());
-        String extension = getFileExtension(file.getOriginalFilename());
-        if (extension != null) {
-            fileName += extension;
+        if (!userRepository.existsById(userId)) {
+            throw new ResourceNotFoundException("User", "id", userId.toString());
         }
 
-        BlobId blobId = BlobId.of(bucketName, fileName);
-        BlobInfo blobInfo = BlobInfo.newBuilder(blobId)
-                .setContentType(contentType)
-                .build();
-
-        storage.create(blobInfo, file.getBytes());
+        String objectName = MediaObjectNames.forUpload("profile-pictures/" + userId, file.getOriginalFilename());
+        String publicUrl;
+        try (InputStream content = file.getInputStream()) {
+            publicUrl = mediaStorage.store(objectName, contentType, content);
+        } catch (IOException | RuntimeException e) {
+            // An upload closed mid-stream can leave a truncated object behind
+            mediaStorage.delete(objectName);
+            throw e;
+        }
 
-        String publicUrl = String.format("https://storage.googleapis.com/%s/%s", bucketName, fileName);
-        user.setProfilePictureUrl(publicUrl);
-        user = userRepository.save(user);
+        User user;
+        try {
+            user = transactionTemplate.execute(status -> {
+                User current = userRepository.findById(userId)
+                        .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId.toString()));
+                current.setProfilePictureUrl(publicUrl);
+                // The old avatar shows the previous picture; clients use the new original until it is regenerated
+                current.setAvatarUrl(null);
+                return userRepository.save(current);
+            });
+        } catch (RuntimeException e) {
+            mediaStorage.delete(objectName);
+            throw e;
+        }
 
         log.info("Updated profile picture for userId: {}", userId);
+        userProfileCacheInvalidator.invalidate(userId);
+        avatarDerivatives.submit(objectName, EnumSet.of(ImageVariant.AVATAR), urls -> {
+            if (userRepository.updateAvatarUrl(userId, publicUrl, urls.get(ImageVariant.AVATAR)) > 0) {
+                userProfileCacheInvalidator.invalidate(userId);
+            }
+        });
         return mapToDto(user, null);
     }
 
     @Transactional(readOnly = true)
     public PagedResponse<UserDto> searchUsers(String query, int page, int size, UUID currentUserId) {
+        String normalized = normalizeSearchQuery(query);
+        if (normalized.isEmpty()) {
+            return PagedResponse.of(Collections.emptyList(), page, size, 0L);
+        }
+
+        // Trigrams need three characters to narrow a substring match, so shorter queries match prefixes only
+        String escaped = escapeLikePattern(normalized);
+        String pattern = normalized.length() < MIN_SUBSTRING_QUERY_LENGTH ? escaped + "%" : "%" + escaped + "%";
         Pageable pageable = PageRequest.of(page, size);
-        Page<User> usersPage = userRepository.searchUsers(query, pageable);
+        Page<User> usersPage = userRepository.searchUsers(normalized, pattern, escaped + "%", pageable);
 
         List<UUID> userIds = usersPage.getContent().stream()
                 .map(User::getId)
@@ -156,6 +211,23 @@ public class UserService {
         );
     }
 
+    @Transactional(readOnly = true)
+    public List<UserDto> typeahead(String prefix, int limit) {
+        if (limit < 1 || limit > MAX_TYPEAHEAD_RESULTS) {
+            throw new BadRequestException("Limit must be between 1 and " + MAX_TYPEAHEAD_RESULTS);
+        }
+
+        String normalized = normalizeSearchQuery(prefix);
+        if (normalized.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        return userRepository.findTypeaheadMatches(escapeLikePattern(normalized) + "%", limit)
+                .stream()
+                .map(user -> mapToDto(user, null))
+                .toList();
+    }
+
     public void followUser(UUID followerId, UUID followingId) {
         if (followerId.equals(followingId)) {
             throw new BadRequestException("Cannot follow yourself");
@@ -175,6 +247,7 @@ public class UserService {
                 .build();
 
         followRepository.save(follow);
+        followGraphCache.recordFollow(followerId, followingId);
         log.info("User {} followed user {}", followerId, followingId);
     }
 
@@ -187,6 +260,7 @@ public class UserService {
                 .orElseThrow(() -> new BadRequestException("Not following this user"));
 
         followRepository.delete(follow);
+        followGraphCache.recordUnfollow(followerId, followingId);
         log.info("User {} unfollowed user {}", followerId, followingId);
     }
 
@@ -246,7 +320,47 @@ public class UserService {
 
     @Transactional(readOnly = true)
     public List<UUID> getFollowingIds(UUID userId) {
-        return followRepository.findAllFollowingIdsByFollowerId(userId);
+        return followGraphCache.getFollowing(userId).asList();
+    }
+
+    @Transactional(readOnly = true)
+    public List<UUID> getFollowerIds(UUID userId) {
+        return followGraphCache.getFollowers(userId).asList();
+    }
+
+    /**
+     * Writes the user's follower IDs as NDJSON, one JSON array of up to {@code chunkSize} IDs per line.
+     * Rows come through a database cursor unless the follower set is already in memory, so neither
+     * side ever holds the full list; a slow reader blocks the writes and with them the cursor.
+     */
+    @Transactional(readOnly = true)
+    public void streamFollowerIds(UUID userId, int chunkSize, OutputStream out) throws IOException {
+        // Clamped rather than rejected: the 200 status is already set by the time this runs
+        chunkSize = Math.min(Math.max(chunkSize, 1), MAX_STREAM_CHUNK_SIZE);
+        List<UUID> chunk = new ArrayList<>(chunkSize);
+        AdjacencySet cached = followGraphCache.getFollowersIfPresent(userId);
+        if (cached != null) {
+            for (int i = 0; i < cached.size(); i++) {
+                chunk.add(cached.get(i));
+                if (chunk.size() == chunkSize) {
+                    writeIdChunk(out, chunk);
+                }
+            }
+        } else {
+            try (Stream<UUID> followerIds = followRepository.streamFollowerIdsByFollowingId(userId)) {
+                Iterator<UUID> iterator = followerIds.iterator();
+                while (iterator.hasNext()) {
+                    chunk.add(iterator.next());
+                    if (chunk.size() == chunkSize) {
+                        writeIdChunk(out, chunk);
+                    }
+                }
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            writeIdChunk(out, chunk);
+        }
     }
 
     @Transactional(readOnly = true)
@@ -272,14 +386,13 @@ public class UserService {
 
     @Transactional(readOnly = true)
     public PagedResponse<UserDto> getSuggestedUsers(UUID userId, int page, int size) {
-        List<UUID> followingIds = followRepository.findAllFollowingIdsByFollowerId(userId);
-        followingIds.add(userId); // Exclude self
+        AdjacencySet followingIds = followGraphCache.getFollowing(userId);
 
         Pageable pageable = PageRequest.of(page, size);
         Page<User> popularUsers = userRepository.findPopularUsers(pageable);
 
         List<UserDto> suggestions = popularUsers.getContent().stream()
-                .filter(user -> !followingIds.contains(user.getId()))
+                .filter(user -> !user.getId().equals(userId) && !followingIds.contains(user.getId()))
                 .map(user -> mapToDto(user, false))
                 .limit(size)
                 .toList();
@@ -292,6 +405,24 @@ public class UserService {
         );
     }
 
+    private void writeIdChunk(OutputStream out, List<UUID> chunk) throws IOException {
+        StringBuilder line = new StringBuilder(chunk.size() * 39 + 3).append('[');
+        for (int i = 0; i < chunk.size(); i++) {
+            line.append(i == 0 ? "\"" : ",\"").append(chunk.get(i)).append('"');
+        }
+        out.write(line.append("]\n").toString().getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        chunk.clear();
+    }
+
+    private static String normalizeSearchQuery(String query) {
+        return query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String escapeLikePattern(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
     private UserDto mapToDto(User user, Boolean isFollowing) {
         return UserDto.builder()
                 .id(user.getId().toString())
@@ -300,6 +431,8 @@ public class UserService {
                 .fullName(user.getFullName())
                 .bio(user.getBio())
                 .profilePictureUrl(user.getProfilePictureUrl())
+                // Until the avatar rendition is generated, clients get the original in its place
+                .avatarUrl(user.getAvatarUrl() != null ? user.getAvatarUrl() : user.getProfilePictureUrl())
                 .followersCount(user.getFollowersCount())
                 .followingCount(user.getFollowingCount())
                 .postsCount(user.getPostsCount())
@@ -307,10 +440,4 @@ public class UserService {
                 .createdAt(user.getCreatedAt())
                 .build();
     }
-
-    private String getFileExtension(String filename) {
-        if (filename == null) return null;
-        int lastDotIndex = filename.lastIndexOf('.');
-        return lastDotIndex > 0 ? filename.substring(lastDotIndex) : null;
-    }
 }
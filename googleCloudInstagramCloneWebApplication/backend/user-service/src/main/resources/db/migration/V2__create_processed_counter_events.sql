@@ -0,0 +1,7 @@
+-- Relayed counter events already applied here, for deduplicating redeliveries
+CREATE TABLE IF NOT EXISTS processed_counter_events (
+    event_id UUID PRIMARY KEY,
+    processed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_processed_counter_events_processed_at ON processed_counter_events(processed_at);
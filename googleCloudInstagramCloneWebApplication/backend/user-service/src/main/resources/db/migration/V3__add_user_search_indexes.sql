@@ -0,0 +1,10 @@
+-- User search: trigram GIN indexes serve substring matches ('%q%') and short prefixes on username and
+-- full name; text_pattern_ops btrees serve typeahead prefix scans ('q%'). All are on LOWER(...) to match
+-- the case-insensitive queries.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_users_username_trgm ON users USING gin (LOWER(username) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_users_full_name_trgm ON users USING gin (LOWER(full_name) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_users_username_prefix ON users (LOWER(username) text_pattern_ops);
+CREATE INDEX IF NOT EXISTS idx_users_full_name_prefix ON users (LOWER(full_name) text_pattern_ops);
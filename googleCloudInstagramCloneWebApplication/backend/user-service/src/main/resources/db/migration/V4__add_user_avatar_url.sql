@@ -0,0 +1,2 @@
+-- Square avatar rendition of profile_picture_url, written by the derivative worker; NULL until generated
+ALTER TABLE users ADD COLUMN avatar_url VARCHAR(500);
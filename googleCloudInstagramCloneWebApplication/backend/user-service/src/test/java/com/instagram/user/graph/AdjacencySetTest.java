@@ -0,0 +1,121 @@
+package com.instagram.user.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdjacencySetTest {
+
+    // Ascending in unsigned order; the last two have the sign bit set, so a signed comparison would put them first
+    private static final UUID FIRST = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private static final UUID SECOND = UUID.fromString("00000000-0000-0000-0000-000000000002");
+    private static final UUID THIRD = UUID.fromString("7fffffff-ffff-ffff-0000-000000000000");
+    private static final UUID FOURTH = UUID.fromString("80000000-0000-0000-0000-000000000000");
+    private static final UUID FIFTH = UUID.fromString("ffffffff-ffff-ffff-ffff-ffffffffffff");
+
+    @Test
+    void withInsertsAtTheStartMiddleAndEnd() {
+        AdjacencySet set = build(SECOND, FOURTH);
+
+        assertThat(set.with(FIRST).asList()).containsExactly(FIRST, SECOND, FOURTH);
+        assertThat(set.with(THIRD).asList()).containsExactly(SECOND, THIRD, FOURTH);
+        assertThat(set.with(FIFTH).asList()).containsExactly(SECOND, FOURTH, FIFTH);
+        assertThat(AdjacencySet.EMPTY.with(THIRD).asList()).containsExactly(THIRD);
+    }
+
+    @Test
+    void withoutRemovesFromTheStartMiddleAndEnd() {
+        AdjacencySet set = build(FIRST, THIRD, FIFTH);
+
+        assertThat(set.without(FIRST).asList()).containsExactly(THIRD, FIFTH);
+        assertThat(set.without(THIRD).asList()).containsExactly(FIRST, FIFTH);
+        assertThat(set.without(FIFTH).asList()).containsExactly(FIRST, THIRD);
+        assertThat(build(THIRD).without(THIRD).size()).isZero();
+    }
+
+    @Test
+    void updatesCopyAndLeaveTheOriginalUntouched() {
+        AdjacencySet set = build(FIRST, THIRD);
+
+        AdjacencySet added = set.with(SECOND);
+        AdjacencySet removed = set.without(FIRST);
+
+        assertThat(set.asList()).containsExactly(FIRST, THIRD);
+        assertThat(added.asList()).containsExactly(FIRST, SECOND, THIRD);
+        assertThat(removed.asList()).containsExactly(THIRD);
+    }
+
+    @Test
+    void addingAPresentIdOrRemovingAnAbsentOneReturnsTheSameSet() {
+        AdjacencySet set = build(FIRST, THIRD);
+
+        assertThat(set.with(THIRD)).isSameAs(set);
+        assertThat(set.without(SECOND)).isSameAs(set);
+        assertThat(set.without(FIFTH)).isSameAs(set);
+        assertThat(AdjacencySet.EMPTY.without(FIRST)).isSameAs(AdjacencySet.EMPTY);
+    }
+
+    @Test
+    void containsFindsOnlyMembers() {
+        AdjacencySet set = build(FIRST, THIRD, FOURTH, FIFTH);
+
+        assertThat(set.contains(FIRST)).isTrue();
+        assertThat(set.contains(FOURTH)).isTrue();
+        assertThat(set.contains(FIFTH)).isTrue();
+        assertThat(set.contains(SECOND)).isFalse();
+        assertThat(AdjacencySet.EMPTY.contains(FIRST)).isFalse();
+    }
+
+    @Test
+    void builderDropsDuplicatesInSortedInput() {
+        AdjacencySet set = build(FIRST, SECOND, SECOND, FOURTH, FOURTH);
+
+        assertThat(set.asList()).containsExactly(FIRST, SECOND, FOURTH);
+    }
+
+    @Test
+    void builderSortsAndDeduplicatesUnsortedInput() {
+        AdjacencySet set = build(FIFTH, FIRST, FOURTH, FIRST, THIRD, SECOND, FIFTH);
+
+        assertThat(set.asList()).containsExactly(FIRST, SECOND, THIRD, FOURTH, FIFTH);
+        assertThat(set.with(FOURTH)).isSameAs(set);
+    }
+
+    @Test
+    void builderSortsLargeShuffledInputPastItsInitialCapacity() {
+        Random random = new Random(42);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            ids.add(new UUID(random.nextLong(), random.nextLong()));
+        }
+        List<UUID> input = new ArrayList<>(ids);
+        input.addAll(ids.subList(0, 50));
+        Collections.shuffle(input, random);
+
+        AdjacencySet.Builder builder = new AdjacencySet.Builder();
+        input.forEach(builder::add);
+        AdjacencySet set = builder.build();
+
+        List<UUID> expected = new ArrayList<>(ids);
+        expected.sort((a, b) -> {
+            int byMost = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+            return byMost != 0 ? byMost : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+        });
+        assertThat(set.asList()).containsExactlyElementsOf(expected);
+        ids.forEach(id -> assertThat(set.contains(id)).isTrue());
+    }
+
+    private static AdjacencySet build(UUID... ids) {
+        AdjacencySet.Builder builder = new AdjacencySet.Builder();
+        for (UUID id : ids) {
+            builder.add(id);
+        }
+        return builder.build();
+    }
+}
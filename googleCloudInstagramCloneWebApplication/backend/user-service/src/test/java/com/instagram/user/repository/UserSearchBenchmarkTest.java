@@ -0,0 +1,201 @@
+package com.instagram.user.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * User search at 1M users: the original substring query on the schema before V3 against the indexed
+ * search and typeahead queries after it. Each query is timed as a request runs it (page plus count for
+ * search) and the median is printed per search term. Run with {@code mvn test -P benchmarks -pl user-service}.
+ */
+@Tag("benchmark")
+@Testcontainers(disabledWithoutDocker = true)
+class UserSearchBenchmarkTest {
+
+    private static final int USERS = 1_000_000;
+    private static final int WARMUP_RUNS = 5;
+    private static final int MEASURED_RUNS = 25;
+    private static final int PAGE_SIZE = 20;
+    private static final List<String> TERMS = List.of("an", "anna", "smith", "nna_sm", "zzqx");
+
+    // UserRepository.searchUsers before the search indexes
+    private static final String OLD_SEARCH =
+            "SELECT * FROM users WHERE LOWER(username) LIKE LOWER(CONCAT('%', ?, '%')) " +
+            "OR LOWER(full_name) LIKE LOWER(CONCAT('%', ?, '%')) LIMIT " + PAGE_SIZE;
+    private static final String OLD_COUNT =
+            "SELECT COUNT(*) FROM users WHERE LOWER(username) LIKE LOWER(CONCAT('%', ?, '%')) " +
+            "OR LOWER(full_name) LIKE LOWER(CONCAT('%', ?, '%'))";
+
+    // Same SQL as UserRepository.searchUsers and findTypeaheadMatches
+    private static final String NEW_SEARCH =
+            "SELECT * FROM users WHERE is_active = true " +
+            "AND (LOWER(username) LIKE ? ESCAPE '\\' OR LOWER(full_name) LIKE ? ESCAPE '\\') " +
+            "ORDER BY CASE WHEN LOWER(username) = ? THEN 0 " +
+            "WHEN LOWER(username) LIKE ? ESCAPE '\\' THEN 1 ELSE 2 END, " +
+            "followers_count DESC, username LIMIT " + PAGE_SIZE;
+    private static final String NEW_COUNT =
+            "SELECT COUNT(*) FROM users WHERE is_active = true " +
+            "AND (LOWER(username) LIKE ? ESCAPE '\\' OR LOWER(full_name) LIKE ? ESCAPE '\\')";
+    private static final String TYPEAHEAD =
+            "SELECT * FROM users WHERE is_active = true " +
+            "AND (LOWER(username) LIKE ? ESCAPE '\\' OR LOWER(full_name) LIKE ? ESCAPE '\\') " +
+            "ORDER BY followers_count DESC, username LIMIT 10";
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withCommand("postgres", "-c", "shared_buffers=512MB", "-c", "max_wal_size=4GB");
+
+    private static Connection connection;
+
+    @BeforeAll
+    static void setUp() throws SQLException {
+        connection = DriverManager.getConnection(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+    }
+
+    @AfterAll
+    static void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void indexedSearchAgainstOriginalQuery() throws SQLException {
+        migrate("2");
+        loadUsers();
+        List<Double> original = new ArrayList<>();
+        for (String term : TERMS) {
+            original.add(time(() -> {
+                query(OLD_SEARCH, term, term);
+                query(OLD_COUNT, term, term);
+            }));
+        }
+
+        migrate(null);
+        analyze();
+        System.out.printf("%nUser search over %,d users, median ms of %d runs%n", USERS, MEASURED_RUNS);
+        System.out.printf("%-10s %12s %12s %12s%n", "term", "original", "search", "typeahead");
+        for (int i = 0; i < TERMS.size(); i++) {
+            String term = TERMS.get(i);
+            String escaped = term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+            // As UserService builds them: under three characters a search matches prefixes only
+            String pattern = term.length() < 3 ? escaped + "%" : "%" + escaped + "%";
+            String prefix = escaped + "%";
+
+            double search = time(() -> {
+                query(NEW_SEARCH, pattern, pattern, term, prefix);
+                query(NEW_COUNT, pattern, pattern);
+            });
+            double typeahead = time(() -> query(TYPEAHEAD, prefix, prefix));
+            System.out.printf("%-10s %12.2f %12.2f %12.2f%n", term, original.get(i), search, typeahead);
+        }
+
+        // Selective terms, where a sequential scan of 1M rows is never the cheaper plan
+        assertThat(plan(NEW_COUNT, "%smith1234%", "%smith1234%")).doesNotContain("Seq Scan on users");
+        assertThat(plan(TYPEAHEAD, "anna\\_smith12%", "anna\\_smith12%")).doesNotContain("Seq Scan on users");
+    }
+
+    private static void migrate(String target) {
+        var configuration = Flyway.configure()
+                .dataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())
+                .locations("classpath:db/migration");
+        if (target != null) {
+            configuration.target(target);
+        }
+        configuration.load().migrate();
+    }
+
+    private static void loadUsers() throws SQLException {
+        // Names drawn from small pools so terms match realistic fractions of users; followers are skewed
+        // so the ranking has a long tail
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    INSERT INTO users (id, username, email, full_name, followers_count, is_active)
+                    SELECT gen_random_uuid(),
+                           lower(f.name) || '_' || lower(l.name) || i,
+                           'user' || i || '@example.com',
+                           f.name || ' ' || l.name,
+                           floor(power(random(), 4) * 1000000)::bigint,
+                           i %% 50 <> 0
+                    FROM generate_series(1, %d) AS i
+                    CROSS JOIN LATERAL (SELECT (ARRAY['Anna','Ben','Chloe','David','Emma','Felix','Grace','Hugo',
+                            'Isla','Jack','Kira','Liam','Maya','Noah','Olivia','Pablo','Quinn','Rosa','Sam','Tara'])
+                            [1 + i %% 20] AS name) f
+                    CROSS JOIN LATERAL (SELECT (ARRAY['Smith','Jones','Garcia','Silva','Kim','Nguyen','Rossi',
+                            'Muller','Dubois','Novak','Tanaka','Cohen','Singh','Ivanova','Okafor','Larsen','Costa',
+                            'Moreau','Walsh','Berg','Haddad','Lopez','Sato','Khan','Meyer'])
+                            [1 + (i / 20) %% 25] AS name) l
+                    """.formatted(USERS));
+        }
+        analyze();
+    }
+
+    private static void analyze() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE users");
+        }
+    }
+
+    private static double time(SqlRunnable run) throws SQLException {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            run.run();
+        }
+        long[] nanos = new long[MEASURED_RUNS];
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            run.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos[MEASURED_RUNS / 2] / 1_000_000.0;
+    }
+
+    private static void query(String sql, String... params) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                statement.setString(i + 1, params[i]);
+            }
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    rows.getObject(1);
+                }
+            }
+        }
+    }
+
+    private static String plan(String sql, String... params) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < params.length; i++) {
+                statement.setString(i + 1, params[i]);
+            }
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    plan.append(rows.getString(1)).append('\n');
+                }
+            }
+        }
+        return plan.toString();
+    }
+
+    @FunctionalInterface
+    private interface SqlRunnable {
+        void run() throws SQLException;
+    }
+}